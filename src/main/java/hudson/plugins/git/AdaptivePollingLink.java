@@ -0,0 +1,125 @@
+package hudson.plugins.git;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.model.Job;
+import hudson.model.ManagementLink;
+import hudson.plugins.git.extensions.impl.AdaptivePolling;
+import hudson.plugins.git.util.AdaptivePollingHistory;
+import hudson.scm.SCM;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import jenkins.model.Jenkins;
+import jenkins.triggers.SCMTriggerItem;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * Reports the polling intervals of the jobs using {@link AdaptivePolling} and the remote calls their skipped polls
+ * saved.
+ */
+@Extension
+@Restricted(NoExternalUse.class)
+public class AdaptivePollingLink extends ManagementLink {
+
+    @Override
+    public String getIconFileName() {
+        return "symbol-git-icon plugin-git";
+    }
+
+    @Override
+    public String getDisplayName() {
+        return "Git Adaptive Polling";
+    }
+
+    @Override
+    public String getDescription() {
+        return "Polling intervals of the jobs polling Git repositories adaptively, and the remote calls saved.";
+    }
+
+    @Override
+    public String getUrlName() {
+        return "git-adaptive-polling";
+    }
+
+    @NonNull
+    @Override
+    public Category getCategory() {
+        return Category.STATUS;
+    }
+
+    /**
+     * @return one row per job and Git SCM with adaptive polling.
+     */
+    @NonNull
+    public List<Row> getRows() {
+        Jenkins.get().checkPermission(Jenkins.ADMINISTER);
+        List<Row> rows = new ArrayList<>();
+        for (Job<?, ?> job : Jenkins.get().allItems(Job.class)) {
+            SCMTriggerItem item = SCMTriggerItem.SCMTriggerItems.asSCMTriggerItem(job);
+            if (item == null) {
+                continue;
+            }
+            for (SCM scm : item.getSCMs()) {
+                if (scm instanceof GitSCM git && git.getExtensions().get(AdaptivePolling.class) != null) {
+                    rows.add(new Row(job, git));
+                }
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * @return the number of remote calls saved by all the jobs.
+     */
+    public long getTotalSaved() {
+        long saved = 0;
+        for (Row row : getRows()) {
+            saved += row.getSaved();
+        }
+        return saved;
+    }
+
+    /**
+     * Polling history of one Git SCM of a job.
+     */
+    public static final class Row {
+        private final Job<?, ?> job;
+        private final int repositories;
+        private final AdaptivePollingHistory.Remote remote;
+
+        Row(Job<?, ?> job, GitSCM git) {
+            this.job = job;
+            this.repositories = git.getRepositories().size();
+            this.remote = AdaptivePollingHistory.forJob(job).getRemote(git);
+        }
+
+        public Job<?, ?> getJob() {
+            return job;
+        }
+
+        public long getIntervalMinutes() {
+            return TimeUnit.MILLISECONDS.toMinutes(remote.getIntervalMs());
+        }
+
+        public long getPolls() {
+            return remote.getPollCount();
+        }
+
+        public long getChanges() {
+            return remote.getChangeCount();
+        }
+
+        public long getSkipped() {
+            return remote.getSkippedCount();
+        }
+
+        /**
+         * @return the remote calls saved, a skipped poll saving one call per repository.
+         */
+        public long getSaved() {
+            return remote.getSkippedCount() * repositories;
+        }
+    }
+}
@@ -38,6 +38,17 @@ public class BranchSpec extends AbstractDescribableImpl<BranchSpec> implements S
 
     private String name;
 
+    /**
+     * The spec compiled for the last expanded name it was matched with, since the same spec is matched against every
+     * ref of every poll.
+     */
+    private transient volatile CompiledSpec compiled;
+
+    /**
+     * As {@link #compiled}, for {@link #matchesRepositoryBranch(String, String)}.
+     */
+    private transient volatile CompiledSpec compiledForRepository;
+
     @Exported
     @Whitelisted
     public String getName() {
@@ -51,6 +62,8 @@ public class BranchSpec extends AbstractDescribableImpl<BranchSpec> implements S
             this.name = "**";
         else
             this.name = name.trim();
+        compiled = null;
+        compiledForRepository = null;
     }
 
     @DataBoundConstructor
@@ -84,7 +97,11 @@ public class BranchSpec extends AbstractDescribableImpl<BranchSpec> implements S
      * @return true if ref matches configured pattern
      */
     public boolean matches(String ref, EnvVars env) {
-        return getPattern(env).matcher(ref).matches();
+        CompiledSpec spec = getCompiled(env, false);
+        if (spec.pattern != null) {
+            return spec.pattern.matcher(ref).matches();
+        }
+        return matchesLiteral(spec.literal, spec.unqualified, ref);
     }
 
     /**
@@ -97,9 +114,12 @@ public class BranchSpec extends AbstractDescribableImpl<BranchSpec> implements S
         if (branchName == null) {
             return false;
         }
-        Pattern pattern = getPattern(new EnvVars(), repositoryName);
+        CompiledSpec spec = getCompiled(new EnvVars(), true);
         String branchWithoutRefs = cutRefs(branchName);
-        return pattern.matcher(branchWithoutRefs).matches() || pattern.matcher(join(repositoryName, branchWithoutRefs)).matches();
+        if (spec.pattern == null) {
+            return spec.literal.equals(branchWithoutRefs) || spec.literal.equals(join(repositoryName, branchWithoutRefs));
+        }
+        return spec.pattern.matcher(branchWithoutRefs).matches() || spec.pattern.matcher(join(repositoryName, branchWithoutRefs)).matches();
     }
 
     /**
@@ -141,25 +161,80 @@ public class BranchSpec extends AbstractDescribableImpl<BranchSpec> implements S
     }
 
     private String getExpandedName(EnvVars env) {
-        String expandedName = env.expand(name);
+        String expandedName = name.indexOf('$') < 0 ? name : env.expand(name);
         if (expandedName.length() == 0) {
             return "**";
         }
         return expandedName;
     }
 
-    private Pattern getPattern(EnvVars env) {
-        return getPattern(env, null);
+    /**
+     * @param env environment variables to expand the name with
+     * @return this spec compiled for {@link #matches(String, EnvVars)}
+     */
+    CompiledSpec getCompiled(EnvVars env) {
+        return getCompiled(env, false);
     }
 
-    private Pattern getPattern(EnvVars env, String repositoryName) {
+    private CompiledSpec getCompiled(EnvVars env, boolean forRepository) {
         String expandedName = getExpandedName(env);
+        CompiledSpec spec = forRepository ? compiledForRepository : compiled;
+        if (spec != null && spec.expandedName.equals(expandedName)) {
+            return spec;
+        }
+        spec = compile(expandedName, forRepository);
+        if (forRepository) {
+            compiledForRepository = spec;
+        } else {
+            compiled = spec;
+        }
+        return spec;
+    }
+
+    private CompiledSpec compile(String expandedName, boolean forRepository) {
+        boolean regex = expandedName.startsWith(":") && expandedName.length() > 1;
+        if (!regex && expandedName.indexOf('*') < 0) {
+            // no wildcard: the spec matches its own text, so no regex is needed
+            String literal = forRepository ? cutRefs(expandedName).replaceAll("^remotes/", "") : expandedName;
+            return new CompiledSpec(expandedName, null, literal, !expandedName.contains("/"), false);
+        }
+        return new CompiledSpec(expandedName, getPattern(expandedName, forRepository), null, false, regex);
+    }
+
+    /**
+     * Matches a ref against a wildcard-free spec the way the pattern built by {@link #getPattern(String, boolean)}
+     * would.
+     */
+    static boolean matchesLiteral(String literal, boolean unqualified, String ref) {
+        if (!ref.endsWith(literal)) {
+            return false;
+        }
+        String prefix = ref.substring(0, ref.length() - literal.length());
+        if (prefix.isEmpty() || prefix.equals("refs/heads/")) {
+            return true;
+        }
+        if (!unqualified) {
+            return prefix.equals("refs/remotes/") || prefix.equals("remotes/");
+        }
+        return isRemoteName(prefix)
+                || (prefix.startsWith("remotes/") && isRemoteName(prefix.substring("remotes/".length())))
+                || (prefix.startsWith("refs/remotes/") && isRemoteName(prefix.substring("refs/remotes/".length())));
+    }
+
+    /**
+     * @return {@code true} if the prefix is a single path segment followed by a slash.
+     */
+    private static boolean isRemoteName(String prefix) {
+        return prefix.length() > 1 && prefix.indexOf('/') == prefix.length() - 1;
+    }
+
+    private Pattern getPattern(String expandedName, boolean forRepository) {
         // use regex syntax directly if name starts with colon
         if (expandedName.startsWith(":") && expandedName.length() > 1) {
             String regexSubstring = expandedName.substring(1, expandedName.length());
             return Pattern.compile(regexSubstring);
         }
-        if (repositoryName != null) {
+        if (forRepository) {
             // remove the "refs/.../" stuff from the branch-spec if necessary
             String pattern = cutRefs(expandedName)
                     // remove a leading "remotes/" from the branch spec
@@ -241,6 +316,28 @@ public class BranchSpec extends AbstractDescribableImpl<BranchSpec> implements S
         return String.join("/", repositoryName, branchWithoutRefs);
     }
 
+    /**
+     * A spec with its name expanded and compiled: either a regex or, for specs without wildcards, a literal name.
+     */
+    static final class CompiledSpec {
+        final String expandedName;
+        final Pattern pattern;
+        final String literal;
+        final boolean unqualified;
+        /**
+         * {@code true} if the pattern is a regex given by the user rather than one generated from wildcards.
+         */
+        final boolean userRegex;
+
+        CompiledSpec(String expandedName, Pattern pattern, String literal, boolean unqualified, boolean userRegex) {
+            this.expandedName = expandedName;
+            this.pattern = pattern;
+            this.literal = literal;
+            this.unqualified = unqualified;
+            this.userRegex = userRegex;
+        }
+    }
+
     @Extension
     public static class DescriptorImpl extends Descriptor<BranchSpec> {
         @Override
@@ -0,0 +1,150 @@
+package hudson.plugins.git;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.EnvVars;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * The {@link BranchSpec}s of a job compiled into a single matcher, to find the first spec matching a ref without
+ * testing every spec in turn.
+ * <p>
+ * Specs without wildcards are looked up by name, specs with wildcards are combined into one alternation and only
+ * regular expressions given by the user are matched one by one.
+ */
+@Restricted(NoExternalUse.class)
+public class BranchSpecSet {
+
+    private final List<BranchSpec> specs;
+
+    /**
+     * Indexes of the specs with a given literal name, in order.
+     */
+    private final Map<String, List<Integer>> literals = new HashMap<>();
+
+    private final BranchSpec.CompiledSpec[] compiled;
+
+    /**
+     * Alternation of the wildcard specs, or {@code null} if there are none.
+     */
+    @CheckForNull
+    private final Pattern combined;
+
+    /**
+     * The spec index matched by each capturing group of {@link #combined}, or -1 for the groups nested in a spec.
+     */
+    private final int[] specOfGroup;
+
+    /**
+     * Indexes of the specs given as regular expressions.
+     */
+    private final List<Integer> userRegexes = new ArrayList<>();
+
+    /**
+     * @param specs the specs, in order of precedence.
+     * @param env environment variables to expand the spec names with.
+     */
+    public BranchSpecSet(@NonNull List<BranchSpec> specs, @NonNull EnvVars env) {
+        this.specs = new ArrayList<>(specs);
+        this.compiled = new BranchSpec.CompiledSpec[this.specs.size()];
+        StringBuilder alternation = new StringBuilder();
+        List<Integer> groups = new ArrayList<>();
+        groups.add(-1); // group 0 is the whole match
+        for (int i = 0; i < compiled.length; i++) {
+            BranchSpec.CompiledSpec spec = this.specs.get(i).getCompiled(env);
+            compiled[i] = spec;
+            if (spec.pattern == null) {
+                literals.computeIfAbsent(spec.literal, k -> new ArrayList<>()).add(i);
+            } else if (spec.userRegex) {
+                // user regexes may use back references or inline flags that would not survive being combined
+                userRegexes.add(i);
+            } else {
+                if (alternation.length() > 0) {
+                    alternation.append('|');
+                }
+                alternation.append('(').append(spec.pattern.pattern()).append(')');
+                groups.add(i);
+                for (int g = spec.pattern.matcher("").groupCount(); g > 0; g--) {
+                    groups.add(-1);
+                }
+            }
+        }
+        this.combined = alternation.length() == 0 ? null : Pattern.compile(alternation.toString());
+        this.specOfGroup = groups.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * @param ref the ref or branch name.
+     * @return the index of the first spec matching the ref, or -1 if none matches.
+     */
+    public int indexOf(@NonNull String ref) {
+        int first = Integer.MAX_VALUE;
+        // a literal spec matches the whole ref or what follows one of its slashes
+        int start = 0;
+        while (true) {
+            List<Integer> candidates = literals.get(start == 0 ? ref : ref.substring(start));
+            if (candidates != null) {
+                for (int i : candidates) {
+                    if (i >= first) {
+                        break;
+                    }
+                    if (BranchSpec.matchesLiteral(compiled[i].literal, compiled[i].unqualified, ref)) {
+                        first = i;
+                        break;
+                    }
+                }
+            }
+            int slash = ref.indexOf('/', start);
+            if (slash < 0) {
+                break;
+            }
+            start = slash + 1;
+        }
+        if (combined != null) {
+            Matcher matcher = combined.matcher(ref);
+            if (matcher.matches()) {
+                for (int g = 1; g < specOfGroup.length; g++) {
+                    if (specOfGroup[g] >= 0 && matcher.start(g) >= 0) {
+                        first = Math.min(first, specOfGroup[g]);
+                        break;
+                    }
+                }
+            }
+        }
+        for (int i : userRegexes) {
+            if (i >= first) {
+                break;
+            }
+            if (compiled[i].pattern.matcher(ref).matches()) {
+                first = i;
+                break;
+            }
+        }
+        return first == Integer.MAX_VALUE ? -1 : first;
+    }
+
+    /**
+     * @param ref the ref or branch name.
+     * @return {@code true} if any spec matches the ref.
+     */
+    public boolean matches(@NonNull String ref) {
+        return indexOf(ref) >= 0;
+    }
+
+    /**
+     * @param ref the ref or branch name.
+     * @return the first spec matching the ref, or {@code null} if none matches.
+     */
+    @CheckForNull
+    public BranchSpec firstMatch(@NonNull String ref) {
+        int i = indexOf(ref);
+        return i < 0 ? null : specs.get(i);
+    }
+}
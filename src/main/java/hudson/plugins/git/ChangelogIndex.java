@@ -0,0 +1,325 @@
+package hudson.plugins.git;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.model.Run;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Offsets of the commits of a changelog file, so that each commit is read only when it is needed.
+ * <p>
+ * Each commit is described by three offsets: the start of its {@code commit} line, the start of its raw diff entries
+ * and its end. The lines before the raw diff entries are enough for the summary of a change set, the raw diff entries
+ * are only read when the paths of the change set are requested. The offsets are written next to the changelog, in
+ * {@code <changelog>.idx}, along with the length and modification time of the changelog they were computed from.
+ * <p>
+ * Commits listed twice are only indexed once, and at most {@link GitChangeLogParser#THRESHOLD} lines of a commit are
+ * read, as {@link GitChangeLogParser} does when it parses the whole changelog.
+ */
+final class ChangelogIndex {
+
+    private static final Logger LOGGER = Logger.getLogger(ChangelogIndex.class.getName());
+
+    static final String SUFFIX = ".idx";
+
+    private static final int MAGIC = 0x47434958;
+
+    private static final int VERSION = 1;
+
+    /**
+     * The build owning the changelog, which is found again in the build directory if the job is renamed.
+     */
+    @CheckForNull
+    private final Run<?, ?> build;
+
+    private final File changelog;
+
+    /**
+     * Start, raw diff entries and end offsets of each commit, in changelog order.
+     */
+    private final long[] offsets;
+
+    private ChangelogIndex(@CheckForNull Run<?, ?> build, @NonNull File changelog, @NonNull long[] offsets) {
+        this.build = build != null && build.getRootDir().equals(changelog.getParentFile()) ? build : null;
+        this.changelog = changelog;
+        this.offsets = offsets;
+    }
+
+    /**
+     * Reads the index of a changelog, computing and writing it if it is missing or outdated.
+     *
+     * @param build the build owning the changelog, may be null.
+     * @param changelog the changelog file.
+     * @return the index of the changelog.
+     * @throws IOException if the changelog could not be read.
+     */
+    @NonNull
+    static ChangelogIndex load(@CheckForNull Run<?, ?> build, @NonNull File changelog) throws IOException {
+        File indexFile = new File(changelog.getPath() + SUFFIX);
+        long length = changelog.length();
+        long lastModified = changelog.lastModified();
+        if (indexFile.isFile()) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile.toPath())))) {
+                if (in.readInt() == MAGIC && in.readInt() == VERSION && in.readLong() == length && in.readLong() == lastModified) {
+                    long[] offsets = new long[in.readInt() * 3];
+                    for (int i = 0; i < offsets.length; i++) {
+                        offsets[i] = in.readLong();
+                    }
+                    return new ChangelogIndex(build, changelog, offsets);
+                }
+            } catch (IOException e) {
+                LOGGER.log(Level.FINE, "Recomputing unreadable changelog index " + indexFile, e);
+            }
+        }
+        long[] offsets;
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(changelog.toPath()))) {
+            offsets = scan(in);
+        }
+        File tmp = new File(indexFile.getPath() + ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp.toPath())))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(length);
+                out.writeLong(lastModified);
+                out.writeInt(offsets.length / 3);
+                for (long offset : offsets) {
+                    out.writeLong(offset);
+                }
+            }
+            Files.move(tmp.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // the index is only an optimization, it is computed again next time
+            LOGGER.log(Level.FINE, "Failed to write changelog index " + indexFile, e);
+            Files.deleteIfExists(tmp.toPath());
+        }
+        return new ChangelogIndex(build, changelog, offsets);
+    }
+
+    /**
+     * Reads the changelog once and notes where each commit and its raw diff entries start and end.
+     * <p>
+     * The raw diff entries are only deferred when nothing but raw diff entries and empty lines follow the first of
+     * them, otherwise the whole commit is read for the summary.
+     */
+    static long[] scan(@NonNull InputStream in) throws IOException {
+        LineScanner lines = new LineScanner(in);
+        Set<String> ids = new HashSet<>();
+        long[] offsets = new long[48];
+        int count = 0;
+        long start = -1;
+        long rawStart = -1;
+        long end = -1;
+        int lineCount = 0;
+        boolean skipped = false;
+        while (lines.next()) {
+            if (lines.startsWith("commit ")) {
+                if (start >= 0 && !skipped) {
+                    offsets = append(offsets, count++, start, rawStart < 0 ? end : rawStart, end);
+                }
+                String id = GitChangeSet.firstToken(lines.text(), "commit ".length());
+                if (id == null) {
+                    throw new IllegalArgumentException("Commit has no ID[" + lines.text() + "]");
+                }
+                // the first of duplicated commits is kept
+                skipped = !ids.add(id);
+                start = lines.start();
+                rawStart = -1;
+                lineCount = 0;
+            }
+            if (start < 0 || lineCount >= GitChangeLogParser.THRESHOLD) {
+                continue;
+            }
+            lineCount++;
+            end = lines.end();
+            if (lines.isEmpty()) {
+                continue;
+            }
+            if (lines.startsWith(":")) {
+                if (rawStart < 0) {
+                    rawStart = lines.start();
+                }
+            } else if (rawStart >= 0) {
+                // more than raw diff entries follow, the whole commit is read at once
+                rawStart = Long.MAX_VALUE;
+            }
+        }
+        if (start >= 0 && !skipped) {
+            offsets = append(offsets, count++, start, rawStart < 0 ? end : rawStart, end);
+        }
+        for (int i = 0; i < count; i++) {
+            if (offsets[i * 3 + 1] == Long.MAX_VALUE) {
+                offsets[i * 3 + 1] = offsets[i * 3 + 2];
+            }
+        }
+        return Arrays.copyOf(offsets, count * 3);
+    }
+
+    private static long[] append(long[] offsets, int index, long start, long rawStart, long end) {
+        if (offsets.length < (index + 1) * 3) {
+            offsets = Arrays.copyOf(offsets, offsets.length * 2);
+        }
+        offsets[index * 3] = start;
+        offsets[index * 3 + 1] = rawStart;
+        offsets[index * 3 + 2] = end;
+        return offsets;
+    }
+
+    /**
+     * @return the number of commits in the changelog.
+     */
+    int size() {
+        return offsets.length / 3;
+    }
+
+    /**
+     * @param commit the index of the commit in the changelog.
+     * @return the lines of the commit needed for its summary.
+     * @throws IOException if the changelog could not be read.
+     */
+    @NonNull
+    List<String> readSummary(int commit) throws IOException {
+        return read(offsets[commit * 3], offsets[commit * 3 + 1]);
+    }
+
+    /**
+     * @param commit the index of the commit in the changelog.
+     * @return {@code true} if the raw diff entries of the commit are not part of its summary.
+     */
+    boolean hasRawEntries(int commit) {
+        return offsets[commit * 3 + 1] < offsets[commit * 3 + 2];
+    }
+
+    /**
+     * @param commit the index of the commit in the changelog.
+     * @return the raw diff entry lines of the commit.
+     * @throws IOException if the changelog could not be read.
+     */
+    @NonNull
+    List<String> readRawEntries(int commit) throws IOException {
+        return read(offsets[commit * 3 + 1], offsets[commit * 3 + 2]);
+    }
+
+    private File getChangelog() {
+        return build != null ? new File(build.getRootDir(), changelog.getName()) : changelog;
+    }
+
+    private List<String> read(long from, long to) throws IOException {
+        byte[] bytes = new byte[Math.toIntExact(to - from)];
+        try (RandomAccessFile file = new RandomAccessFile(getChangelog(), "r")) {
+            file.seek(from);
+            file.readFully(bytes);
+        }
+        List<String> lines = new ArrayList<>();
+        int lineStart = 0;
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] == '\n' || bytes[i] == '\r') {
+                lines.add(new String(bytes, lineStart, i - lineStart, StandardCharsets.UTF_8));
+                if (bytes[i] == '\r' && i + 1 < bytes.length && bytes[i + 1] == '\n') {
+                    i++;
+                }
+                lineStart = i + 1;
+            }
+        }
+        if (lineStart < bytes.length) {
+            lines.add(new String(bytes, lineStart, bytes.length - lineStart, StandardCharsets.UTF_8));
+        }
+        return lines;
+    }
+
+    /**
+     * Reads the lines of a changelog with their offsets. Lines end with {@code \n}, {@code \r} or {@code \r\n}, as
+     * for {@link java.io.BufferedReader#readLine()}. The UTF-8 encoding of line terminators never appears within a
+     * multi-byte character, so lines are split on bytes and only decoded when their text is needed.
+     */
+    private static final class LineScanner {
+
+        private final InputStream in;
+        private byte[] line = new byte[256];
+        private int length;
+        private long start;
+        private long end;
+        private long position;
+        private int pending = -1;
+
+        LineScanner(InputStream in) {
+            this.in = in;
+        }
+
+        boolean next() throws IOException {
+            start = position;
+            length = 0;
+            int b = pending >= 0 ? pending : in.read();
+            pending = -1;
+            if (b < 0) {
+                return false;
+            }
+            while (b >= 0 && b != '\n' && b != '\r') {
+                if (length == line.length) {
+                    line = Arrays.copyOf(line, length * 2);
+                }
+                line[length++] = (byte) b;
+                position++;
+                b = in.read();
+            }
+            if (b >= 0) {
+                position++;
+                if (b == '\r') {
+                    int following = in.read();
+                    if (following == '\n') {
+                        position++;
+                    } else {
+                        pending = following;
+                    }
+                }
+            }
+            end = position;
+            return true;
+        }
+
+        long start() {
+            return start;
+        }
+
+        long end() {
+            return end;
+        }
+
+        boolean isEmpty() {
+            return length == 0;
+        }
+
+        boolean startsWith(String prefix) {
+            if (length < prefix.length()) {
+                return false;
+            }
+            for (int i = 0; i < prefix.length(); i++) {
+                if (line[i] != prefix.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        String text() {
+            return new String(line, 0, length, StandardCharsets.UTF_8);
+        }
+    }
+}
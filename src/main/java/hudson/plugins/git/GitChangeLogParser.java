@@ -3,12 +3,14 @@ package hudson.plugins.git;
 import hudson.model.Run;
 import hudson.scm.ChangeLogParser;
 import hudson.scm.RepositoryBrowser;
+import jenkins.util.SystemProperties;
 import org.jenkinsci.plugins.gitclient.CliGitAPIImpl;
 import org.jenkinsci.plugins.gitclient.GitClient;
 
 import org.apache.commons.io.LineIterator;
 
 import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 
 import java.io.File;
 import java.io.InputStream;
@@ -83,6 +85,13 @@ public class GitChangeLogParser extends ChangeLogParser {
 
     @Override public GitChangeSetList parse(Run build, RepositoryBrowser<?> browser, File changelogFile)
         throws IOException {
+        if (INDEXED && changelogFile.length() > 0) {
+            try {
+                return new GitChangeSetList(build, browser, ChangelogIndex.load(build, changelogFile), this);
+            } catch (InvalidPathException e) {
+                throw new IOException(e);
+            }
+        }
         // Parse the log file into GitChangeSet items - each one is a commit
         try (Stream<String> lineStream = Files.lines(changelogFile.toPath(), StandardCharsets.UTF_8)) {
             return new GitChangeSetList(build, browser, parse(lineStream.iterator()));
@@ -93,21 +102,24 @@ public class GitChangeLogParser extends ChangeLogParser {
 
     private List<GitChangeSet> parse(Iterator<String> changelog) {
         Set<GitChangeSet> r = new LinkedHashSet<>();
-        List<String> lines = null;
+        // change sets do not keep the lines they are parsed from, one buffer serves every commit
+        List<String> lines = new ArrayList<>();
+        boolean inCommit = false;
         while (changelog.hasNext()) {
             String line = changelog.next();
             if (line.startsWith("commit ")) {
-                if (lines != null) {
+                if (inCommit) {
                     r.add(parseCommit(lines, authorOrCommitter));
+                    lines.clear();
                 }
-                lines = new ArrayList<>();
+                inCommit = true;
             }
 
-            if (lines != null && lines.size()<THRESHOLD)
+            if (inCommit && lines.size()<THRESHOLD)
                 lines.add(line);    // TODO: if we ignored some lines, tell the user so.
         }
 
-        if (lines != null) {
+        if (inCommit) {
             r.add(parseCommit(lines, authorOrCommitter));
         }
         return new ArrayList<>(r);
@@ -117,8 +129,25 @@ public class GitChangeLogParser extends ChangeLogParser {
         return new GitChangeSet(lines, authorOrCommitter, showEntireCommitSummaryInChanges);
     }
 
+    /**
+     * Parses the summary of a commit of an indexed changelog, its paths being parsed when they are first requested.
+     */
+    GitChangeSet parse(ChangelogIndex index, int commit) throws IOException {
+        GitChangeSet changeSet = parseCommit(index.readSummary(commit), authorOrCommitter);
+        if (index.hasRawEntries(commit)) {
+            changeSet.setPendingPaths(() -> index.readRawEntries(commit));
+        }
+        return changeSet;
+    }
+
     /**
      * To control the memory overhead of a large change, we ignore beyond certain number of lines.
      */
-    private static int THRESHOLD = 1000;
+    static final int THRESHOLD = 1000;
+
+    /**
+     * Set to false to parse the whole changelog of a build at once rather than through an index of its commits.
+     */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL")
+    static /* not final */ boolean INDEXED = SystemProperties.getBoolean(GitChangeLogParser.class.getName() + ".indexed", true);
 }
@@ -13,27 +13,28 @@ import org.apache.commons.lang3.math.NumberUtils;
 import org.kohsuke.stapler.export.Exported;
 import org.kohsuke.stapler.export.ExportedBean;
 import org.springframework.security.core.AuthenticationException;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 import com.google.common.util.concurrent.UncheckedExecutionException;
 
 import edu.umd.cs.findbugs.annotations.CheckForNull;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import java.io.IOException;
-import java.text.DateFormat;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Date;
 import java.util.HashSet;
 import java.util.List;
-import java.util.TimeZone;
+import java.util.concurrent.Callable;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import static hudson.Util.fixEmpty;
 
+import java.time.Instant;
+import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeFormatterBuilder;
@@ -47,21 +48,35 @@ public class GitChangeSet extends ChangeLogSet.Entry {
 
     private static final String PREFIX_AUTHOR = "author ";
     private static final String PREFIX_COMMITTER = "committer ";
-    private static final String IDENTITY = "([^<]*)<(.*)> (.*)";
 
-    private static final Pattern FILE_LOG_ENTRY = Pattern.compile("^:[0-9]{6} [0-9]{6} ([0-9a-f]{40}) ([0-9a-f]{40}) ([ACDMRTUX])(?>[0-9]+)?\t(.*)$");
-    private static final Pattern AUTHOR_ENTRY = Pattern.compile("^"
-            + PREFIX_AUTHOR + IDENTITY + "$");
-    private static final Pattern COMMITTER_ENTRY = Pattern.compile("^"
-            + PREFIX_COMMITTER + IDENTITY + "$");
-    private static final Pattern RENAME_SPLIT = Pattern.compile("^(.*?)\t(.*)$");
+    /*
+     * Layout of a git raw diff entry, ':100644 100644 <src sha1> <dst sha1> <status>[score]\t<path>'.
+     * The fixed width fields are scanned by hand rather than with a regular expression, the changelog
+     * of a large build has one such line per changed file.
+     */
+    private static final int RAW_SRC_MODE = 1;
+    private static final int RAW_DST_MODE = 8;
+    private static final int RAW_MODE_LENGTH = 6;
+    private static final int RAW_SRC = 15;
+    private static final int RAW_DST = 56;
+    private static final int RAW_HASH_LENGTH = 40;
+    private static final int RAW_STATUS = 97;
+    private static final String RAW_STATUSES = "ACDMRTUX";
 
     private static final String NULL_HASH = "0000000000000000000000000000000000000000";
     private static final String ISO_8601 = "yyyy-MM-dd'T'HH:mm:ss";
+    private static final DateTimeFormatter LEGACY_DATE_FORMATTER = DateTimeFormatter.ofPattern(ISO_8601).withZone(ZoneOffset.UTC);
     private static final String ISO_8601_WITH_TZ = "yyyy-MM-dd'T'HH:mm:ssX";
     static final int TRUNCATE_LIMIT = 72;
 
-    private final DateTimeFormatter [] dateFormatters;
+    /* Formatters are immutable and thread-safe, build them once rather than per change set */
+    private static final DateTimeFormatter [] DATE_FORMATTERS = createDateFormatters();
+
+    /*
+     * Names, emails and paths repeat across the commits of a changelog and across the changelogs
+     * of a job, so share one copy of each. A weak interner lets unused strings be collected.
+     */
+    private static final Interner<String> STRINGS = Interners.newWeakInterner();
 
     public static final Logger LOGGER = Logger.getLogger(GitChangeSet.class.getName());
 
@@ -94,7 +109,9 @@ public class GitChangeSet extends ChangeLogSet.Entry {
     private String title;
     private String id;
     private String parentCommit;
-    private Collection<Path> paths = new HashSet<>();
+    private final ArrayList<Path> paths = new ArrayList<>(0);
+    /* Reads the raw diff entries of a change set loaded from an indexed changelog, null once they are parsed */
+    private volatile Callable<List<String>> pendingPaths;
     private boolean authorOrCommitter;
     private boolean showEntireCommitSummaryInChanges;
 
@@ -108,14 +125,6 @@ public class GitChangeSet extends ChangeLogSet.Entry {
         this(lines, authorOrCommitter, isShowEntireCommitSummaryInChanges());
     }
 
-    /* Add time zone parsing for +00:00 offset, +0000 offset, and +00 offset */
-    private DateTimeFormatterBuilder addZoneOffset(DateTimeFormatterBuilder builder) {
-        builder.optionalStart().appendOffset("+HH:MM", "+00:00").optionalEnd();
-        builder.optionalStart().appendOffset("+HHMM", "+0000").optionalEnd();
-        builder.optionalStart().appendOffset("+HH", "Z").optionalEnd();
-        return builder;
-    }
-
     /**
      * Create Git change set using information in given lines.
      *
@@ -129,7 +138,17 @@ public class GitChangeSet extends ChangeLogSet.Entry {
         if (lines.size() > 0) {
             parseCommit(lines);
         }
+    }
 
+    /* Add time zone parsing for +00:00 offset, +0000 offset, and +00 offset */
+    private static DateTimeFormatterBuilder addZoneOffset(DateTimeFormatterBuilder builder) {
+        builder.optionalStart().appendOffset("+HH:MM", "+00:00").optionalEnd();
+        builder.optionalStart().appendOffset("+HHMM", "+0000").optionalEnd();
+        builder.optionalStart().appendOffset("+HH", "Z").optionalEnd();
+        return builder;
+    }
+
+    private static DateTimeFormatter[] createDateFormatters() {
         // Nearly ISO dates generated by git log --format=+%ci
         // Look like '2015-09-30 08:21:24 -0600'
         // ISO is    '2015-09-30T08:21:24-06:00'
@@ -150,10 +169,11 @@ public class GitChangeSet extends ChangeLogSet.Entry {
         addZoneOffset(builder);
         DateTimeFormatter nearlyISOFormatter = builder.toFormatter();
 
-        dateFormatters = new DateTimeFormatter[3];
+        DateTimeFormatter[] dateFormatters = new DateTimeFormatter[3];
         dateFormatters[0] = gitDateFormatter; // First priority +%cI format
         dateFormatters[1] = nearlyISOFormatter; // Second priority seen in git-plugin
         dateFormatters[2] = DateTimeFormatter.ISO_OFFSET_DATE_TIME; // Third priority, ISO 8601 format
+        return dateFormatters;
     }
 
     /**
@@ -184,71 +204,39 @@ public class GitChangeSet extends ChangeLogSet.Entry {
             if( line.length() < 1)
                 continue;
             if (line.startsWith("commit ")) {
-                String[] split = line.split(" ");
-                if (split.length > 1) this.id = split[1];
+                String commitId = firstToken(line, "commit ".length());
+                if (commitId != null) this.id = commitId;
                 else throw new IllegalArgumentException("Commit has no ID" + lines);
             } else if (line.startsWith("tree ")) {
             } else if (line.startsWith("parent ")) {
-                String[] split = line.split(" ");
                 // parent may be null for initial commit or changelog computed from a shallow clone
-                if (split.length > 1) this.parentCommit = split[1];
+                String parent = firstToken(line, "parent ".length());
+                if (parent != null) this.parentCommit = parent;
             } else if (line.startsWith(PREFIX_COMMITTER)) {
-                Matcher committerMatcher = COMMITTER_ENTRY.matcher(line);
-                if (committerMatcher.matches()
-                        && committerMatcher.groupCount() >= 3) {
-                    this.committer = committerMatcher.group(1).trim();
-                    this.committerEmail = committerMatcher.group(2);
-                    this.committerTime = isoDateFormat(committerMatcher.group(3));
+                String[] identity = parseIdentity(line, PREFIX_COMMITTER.length());
+                if (identity != null) {
+                    this.committer = STRINGS.intern(identity[0].trim());
+                    this.committerEmail = STRINGS.intern(identity[1]);
+                    this.committerTime = isoDateFormat(identity[2]);
                 }
             } else if (line.startsWith(PREFIX_AUTHOR)) {
-                Matcher authorMatcher = AUTHOR_ENTRY.matcher(line);
-                if (authorMatcher.matches() && authorMatcher.groupCount() >= 3) {
-                    this.author = authorMatcher.group(1).trim();
-                    this.authorEmail = authorMatcher.group(2);
-                    this.authorTime = isoDateFormat(authorMatcher.group(3));
+                String[] identity = parseIdentity(line, PREFIX_AUTHOR.length());
+                if (identity != null) {
+                    this.author = STRINGS.intern(identity[0].trim());
+                    this.authorEmail = STRINGS.intern(identity[1]);
+                    this.authorTime = isoDateFormat(identity[2]);
                 }
             } else if (line.startsWith("    ")) {
-                message.append(line.substring(4)).append('\n');
+                message.append(line, 4, line.length()).append('\n');
             } else if (':' == line.charAt(0)) {
-                Matcher fileMatcher = FILE_LOG_ENTRY.matcher(line);
-                if (fileMatcher.matches() && fileMatcher.groupCount() >= 4) {
-                    String mode = fileMatcher.group(3);
-                    if (mode.length() == 1) {
-                        String src = null;
-                        String dst = null;
-                        String path = fileMatcher.group(4);
-                        char editMode = mode.charAt(0);
-                        if (editMode == 'M' || editMode == 'A' || editMode == 'D'
-                            || editMode == 'R' || editMode == 'C') {
-                            src = parseHash(fileMatcher.group(1));
-                            dst = parseHash(fileMatcher.group(2));
-                        }
-
-                        // Handle rename as two operations - a delete and an add
-                        if (editMode == 'R') {
-                            Matcher renameSplitMatcher = RENAME_SPLIT.matcher(path);
-                            if (renameSplitMatcher.matches() && renameSplitMatcher.groupCount() >= 2) {
-                                String oldPath = renameSplitMatcher.group(1);
-                                String newPath = renameSplitMatcher.group(2);
-                                this.paths.add(new Path(src, dst, 'D', oldPath, this));
-                                this.paths.add(new Path(src, dst, 'A', newPath, this));
-                            }
-                        }
-                        // Handle copy as an add
-                        else if (editMode == 'C') {
-                            Matcher copySplitMatcher = RENAME_SPLIT.matcher(path);
-                            if (copySplitMatcher.matches() && copySplitMatcher.groupCount() >= 2) {
-                                String newPath = copySplitMatcher.group(2);
-                                this.paths.add(new Path(src, dst, 'A', newPath, this));
-                            }
-                        }
-                        else {
-                            this.paths.add(new Path(src, dst, editMode, path, this));
-                        }
-                    }
-                }
+                parseRawEntry(line);
             }
         }
+        this.paths.trimToSize();
+        // author and committer time are usually the same, keep one copy
+        if (committerTime != null && committerTime.equals(authorTime)) {
+            this.committerTime = authorTime;
+        }
         this.comment = message.toString();
         int endOfFirstLine = this.comment.indexOf('\n');
         if (endOfFirstLine == -1) {
@@ -261,6 +249,122 @@ public class GitChangeSet extends ChangeLogSet.Entry {
         }
     }
 
+    private void parseRawEntry(String line) {
+        int pathStart = rawEntryPathStart(line);
+        if (pathStart > 0) {
+            String src = null;
+            String dst = null;
+            String path = line.substring(pathStart);
+            char editMode = line.charAt(RAW_STATUS);
+            if (editMode == 'M' || editMode == 'A' || editMode == 'D'
+                || editMode == 'R' || editMode == 'C') {
+                src = parseHash(line.substring(RAW_SRC, RAW_SRC + RAW_HASH_LENGTH));
+                dst = parseHash(line.substring(RAW_DST, RAW_DST + RAW_HASH_LENGTH));
+            }
+
+            // Handle rename as two operations - a delete and an add
+            if (editMode == 'R') {
+                int tab = path.indexOf('\t');
+                if (tab >= 0) {
+                    String oldPath = path.substring(0, tab);
+                    String newPath = path.substring(tab + 1);
+                    this.paths.add(new Path(src, dst, 'D', STRINGS.intern(oldPath), this));
+                    this.paths.add(new Path(src, dst, 'A', STRINGS.intern(newPath), this));
+                }
+            }
+            // Handle copy as an add
+            else if (editMode == 'C') {
+                int tab = path.indexOf('\t');
+                if (tab >= 0) {
+                    String newPath = path.substring(tab + 1);
+                    this.paths.add(new Path(src, dst, 'A', STRINGS.intern(newPath), this));
+                }
+            }
+            else {
+                this.paths.add(new Path(src, dst, editMode, STRINGS.intern(path), this));
+            }
+        }
+    }
+
+    /**
+     * Returns the first space separated token starting at {@code start}, as {@code line.split(" ")[1]} did.
+     *
+     * @return the token, possibly empty if the line has consecutive spaces, or null if only spaces follow
+     */
+    static String firstToken(String line, int start) {
+        int nonSpace = start;
+        while (nonSpace < line.length() && line.charAt(nonSpace) == ' ') {
+            nonSpace++;
+        }
+        if (nonSpace == line.length()) {
+            return null;
+        }
+        int end = line.indexOf(' ', start);
+        return line.substring(start, end < 0 ? line.length() : end);
+    }
+
+    /**
+     * Splits {@code name <email> date} starting at {@code start}. The name ends at the first {@code '<'} and the
+     * email at the last {@code "> "}, as the {@code ([^<]*)<(.*)> (.*)} pattern previously matched.
+     *
+     * @return name, email and date, or null if the line is not an identity
+     */
+    private static String[] parseIdentity(String line, int start) {
+        int emailStart = line.indexOf('<', start);
+        int emailEnd = line.lastIndexOf("> ");
+        if (emailStart < 0 || emailEnd <= emailStart) {
+            return null;
+        }
+        return new String[] {
+            line.substring(start, emailStart), line.substring(emailStart + 1, emailEnd), line.substring(emailEnd + 2)
+        };
+    }
+
+    /**
+     * Checks the fixed width fields of a git raw diff entry.
+     *
+     * @return index of the path following the tab, or -1 if the line is not a raw diff entry
+     */
+    private static int rawEntryPathStart(String line) {
+        if (line.length() <= RAW_STATUS + 1
+                || !isDigits(line, RAW_SRC_MODE, RAW_MODE_LENGTH) || line.charAt(RAW_DST_MODE - 1) != ' '
+                || !isDigits(line, RAW_DST_MODE, RAW_MODE_LENGTH) || line.charAt(RAW_SRC - 1) != ' '
+                || !isHash(line, RAW_SRC) || line.charAt(RAW_DST - 1) != ' '
+                || !isHash(line, RAW_DST) || line.charAt(RAW_STATUS - 1) != ' '
+                || RAW_STATUSES.indexOf(line.charAt(RAW_STATUS)) < 0) {
+            return -1;
+        }
+        int i = RAW_STATUS + 1;
+        // optional similarity score of renames and copies
+        while (i < line.length() && isDigit(line.charAt(i))) {
+            i++;
+        }
+        return i < line.length() && line.charAt(i) == '\t' ? i + 1 : -1;
+    }
+
+    private static boolean isDigits(String line, int start, int length) {
+        for (int i = start; i < start + length; i++) {
+            if (!isDigit(line.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isHash(String line, int start) {
+        for (int i = start; i < start + RAW_HASH_LENGTH; i++) {
+            char c = line.charAt(i);
+            if (!isDigit(c) && (c < 'a' || c > 'f')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
     /* Package protected for testing */
     static String splitString(String msg, int lineSize) {
         if (msg ==  null) return "";
@@ -291,9 +395,7 @@ public class GitChangeSet extends ChangeLogSet.Entry {
         if (NumberUtils.isDigits(date)) {
             // legacy mode
             long time = Long.parseLong(date);
-            DateFormat formatter = new SimpleDateFormat(ISO_8601);
-            formatter.setTimeZone(TimeZone.getTimeZone("GMT"));
-            return formatter.format(new Date(time * 1000)) + timezone;
+            return LEGACY_DATE_FORMATTER.format(Instant.ofEpochSecond(time)) + timezone;
         } else {
             // already in ISO format
             return s;
@@ -326,7 +428,7 @@ public class GitChangeSet extends ChangeLogSet.Entry {
             return -1;
         }
 
-        for (DateTimeFormatter dateFormatter : dateFormatters) {
+        for (DateTimeFormatter dateFormatter : DATE_FORMATTERS) {
             try {
                 ZonedDateTime dateTime = ZonedDateTime.parse(date, dateFormatter);
                 return dateTime.toEpochSecond()* 1000L;
@@ -358,8 +460,41 @@ public class GitChangeSet extends ChangeLogSet.Entry {
         return parentCommit;
     }
 
+    /**
+     * Defers parsing the raw diff entries of this change set until its paths are requested.
+     *
+     * @param rawEntries reads the raw diff entry lines of this change set
+     */
+    void setPendingPaths(Callable<List<String>> rawEntries) {
+        this.pendingPaths = rawEntries;
+    }
+
+    private void loadPaths() {
+        if (pendingPaths == null) {
+            return;
+        }
+        synchronized (paths) {
+            Callable<List<String>> rawEntries = pendingPaths;
+            if (rawEntries == null) {
+                return;
+            }
+            try {
+                for (String line : rawEntries.call()) {
+                    if (!line.isEmpty() && ':' == line.charAt(0)) {
+                        parseRawEntry(line);
+                    }
+                }
+            } catch (Exception e) {
+                LOGGER.log(Level.WARNING, "Failed to read the paths of commit " + id, e);
+            }
+            paths.trimToSize();
+            pendingPaths = null;
+        }
+    }
+
     @Override
     public Collection<String> getAffectedPaths() {
+        loadPaths();
         Collection<String> affectedPaths = new HashSet<>(this.paths.size());
         for (Path file : this.paths) {
             affectedPaths.add(file.getPath());
@@ -374,11 +509,13 @@ public class GitChangeSet extends ChangeLogSet.Entry {
      */
     @Exported
     public Collection<Path> getPaths() {
+        loadPaths();
         return paths;
     }
 
     @Override
     public Collection<Path> getAffectedFiles() {
+        loadPaths();
         return this.paths;
     }
 
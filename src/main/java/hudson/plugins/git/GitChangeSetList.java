@@ -5,9 +5,14 @@ import hudson.scm.ChangeLogSet;
 import hudson.scm.RepositoryBrowser;
 import org.kohsuke.stapler.export.Exported;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.AbstractList;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * List of changeset that went into a particular build.
@@ -24,6 +29,14 @@ public class GitChangeSetList extends ChangeLogSet<GitChangeSet> {
             log.setParent(this);
     }
 
+    /**
+     * Creates a list of the change sets of an indexed changelog, parsing each change set when it is first requested.
+     */
+    /*package*/ GitChangeSetList(Run build, RepositoryBrowser<?> browser, ChangelogIndex index, GitChangeLogParser parser) {
+        super(build, browser);
+        this.changeSets = new IndexedChangeSets(index, parser);
+    }
+
     public boolean isEmptySet() {
         return changeSets.isEmpty();
     }
@@ -41,4 +54,51 @@ public class GitChangeSetList extends ChangeLogSet<GitChangeSet> {
         return "git";
     }
 
+    /**
+     * Change sets of an indexed changelog, newest first, parsed when first requested.
+     */
+    private final class IndexedChangeSets extends AbstractList<GitChangeSet> implements RandomAccess {
+
+        private final ChangelogIndex index;
+        private final GitChangeLogParser parser;
+        private final AtomicReferenceArray<GitChangeSet> loaded;
+
+        IndexedChangeSets(ChangelogIndex index, GitChangeLogParser parser) {
+            this.index = index;
+            this.parser = parser;
+            this.loaded = new AtomicReferenceArray<>(index.size());
+        }
+
+        @Override
+        public GitChangeSet get(int i) {
+            GitChangeSet changeSet = loaded.get(i);
+            if (changeSet == null) {
+                // put new things first
+                int commit = index.size() - 1 - checkIndex(i);
+                try {
+                    changeSet = parser.parse(index, commit);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                changeSet.setParent(GitChangeSetList.this);
+                if (!loaded.compareAndSet(i, null, changeSet)) {
+                    changeSet = loaded.get(i);
+                }
+            }
+            return changeSet;
+        }
+
+        private int checkIndex(int i) {
+            if (i < 0 || i >= size()) {
+                throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + size());
+            }
+            return i;
+        }
+
+        @Override
+        public int size() {
+            return index.size();
+        }
+    }
+
 }
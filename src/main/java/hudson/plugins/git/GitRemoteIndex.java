@@ -0,0 +1,394 @@
+package hudson.plugins.git;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.ExtensionList;
+import hudson.ExtensionPoint;
+import hudson.XmlFile;
+import hudson.model.Item;
+import hudson.model.ItemGroup;
+import hudson.model.Items;
+import hudson.model.Run;
+import hudson.model.Saveable;
+import hudson.model.listeners.ItemListener;
+import hudson.model.listeners.SaveableListener;
+import hudson.scm.SCM;
+import hudson.security.ACL;
+import hudson.security.ACLContext;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.model.Jenkins;
+import jenkins.triggers.SCMTriggerItem;
+import jenkins.util.SystemProperties;
+import net.jcip.annotations.GuardedBy;
+import org.eclipse.jgit.transport.RemoteConfig;
+import org.eclipse.jgit.transport.URIish;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * Index from the {@link GitStatus#looseMatchKey(URIish) loose match key} of a remote repository to the full names
+ * of the items that use that remote.
+ * <p>
+ * {@link GitStatus.Listener} implementations use an index to visit only the items that can match a notification
+ * instead of every item in the instance. The index is a pre-filter: listeners still apply
+ * {@link GitStatus#looselyMatches(URIish, URIish)} to the candidates it returns.
+ * <p>
+ * Item and save events only mark entries as stale; stale entries are re-read the next time the index is queried.
+ */
+@Restricted(NoExternalUse.class)
+public abstract class GitRemoteIndex implements ExtensionPoint {
+
+    private static final Logger LOGGER = Logger.getLogger(GitRemoteIndex.class.getName());
+
+    /**
+     * Escape hatch to fall back to scanning all items on every notification.
+     * <p>
+     * -Dhudson.plugins.git.GitRemoteIndex.disabled=true on command line
+     */
+    static /* not final */ boolean DISABLED = SystemProperties.getBoolean(GitRemoteIndex.class.getName() + ".disabled");
+
+    private final Object lock = new Object();
+
+    /**
+     * Loose match key to full names of the items using it.
+     */
+    @GuardedBy("lock")
+    private final Map<String, Set<String>> itemsByKey = new HashMap<>();
+
+    /**
+     * Full name of each indexed item with at least one {@link GitSCM} to the keys it is registered under.
+     */
+    @GuardedBy("lock")
+    private final Map<String, Set<String>> keysByItem = new HashMap<>();
+
+    /**
+     * Full names of items that must be re-read before the next query. Event listeners record into this set without
+     * taking {@link #lock}, so that saving a job never waits for a query in progress.
+     */
+    private final Set<String> stale = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Full names of items whose descendants must also be re-read before the next query.
+     */
+    private final Set<String> staleGroups = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean rebuild = true;
+
+    /**
+     * @return the index of {@link SCMTriggerItem} jobs by the remotes of their {@link GitSCM}s.
+     */
+    @NonNull
+    public static GitRemoteIndex forJobs() {
+        return ExtensionList.lookupSingleton(TriggerItems.class);
+    }
+
+    /**
+     * Lists the remotes used by an item.
+     *
+     * @param item the item.
+     * @return the remotes of the item, or {@code null} if the item is not of the kind this index tracks.
+     */
+    @CheckForNull
+    protected abstract Collection<URIish> remotesOf(@NonNull Item item);
+
+    /**
+     * @return {@code true} unless the index has been disabled by system property.
+     */
+    public boolean isEnabled() {
+        return !DISABLED;
+    }
+
+    /**
+     * Returns the items that may have a {@link GitSCM} loosely matching the given uri. When the index is disabled,
+     * every item is returned.
+     *
+     * @param uri the notified repository uri.
+     * @return the candidate items, ordered by full name.
+     */
+    @NonNull
+    public List<Item> getCandidates(@NonNull URIish uri) {
+        Jenkins jenkins = Jenkins.get();
+        if (!isEnabled()) {
+            return jenkins.getAllItems();
+        }
+        Set<String> names;
+        synchronized (lock) {
+            refresh(jenkins);
+            Set<String> matching = itemsByKey.get(GitStatus.looseMatchKey(uri));
+            names = matching == null ? Collections.emptySet() : new TreeSet<>(matching);
+        }
+        List<Item> result = new ArrayList<>(names.size());
+        try (ACLContext ctx = ACL.as(ACL.SYSTEM)) {
+            for (String name : names) {
+                Item item = jenkins.getItemByFullName(name);
+                if (item != null) {
+                    result.add(item);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return {@code true} if the index is enabled and at least one item has a {@link GitSCM}.
+     */
+    public boolean hasGitItems() {
+        if (!isEnabled()) {
+            return false;
+        }
+        synchronized (lock) {
+            refresh(Jenkins.get());
+            return !keysByItem.isEmpty();
+        }
+    }
+
+    /**
+     * Marks the whole index as stale.
+     */
+    public void invalidateAll() {
+        rebuild = true;
+    }
+
+    /**
+     * Marks a single item as stale.
+     *
+     * @param fullName the full name of the item.
+     * @param descendants {@code true} to also re-read the items nested below it.
+     */
+    public void invalidate(@NonNull String fullName, boolean descendants) {
+        if (descendants) {
+            staleGroups.add(fullName);
+        }
+        stale.add(fullName);
+    }
+
+    /**
+     * Removes an item, and every item nested below it, from the index.
+     *
+     * @param fullName the full name of the item.
+     */
+    public void remove(@NonNull String fullName) {
+        // re-reading a name that no longer resolves drops it and its descendants
+        invalidate(fullName, true);
+    }
+
+    @GuardedBy("lock")
+    private void refresh(Jenkins jenkins) {
+        if (rebuild) {
+            long startMs = System.currentTimeMillis();
+            rebuild = false;
+            stale.clear();
+            staleGroups.clear();
+            itemsByKey.clear();
+            keysByItem.clear();
+            try (ACLContext ctx = ACL.as(ACL.SYSTEM)) {
+                for (Item item : jenkins.getAllItems()) {
+                    add(item);
+                }
+            }
+            if (LOGGER.isLoggable(Level.FINE)) {
+                LOGGER.log(Level.FINE, "Indexed {0} git jobs under {1} remote keys in {2} ms",
+                        new Object[]{keysByItem.size(), itemsByKey.size(), System.currentTimeMillis() - startMs});
+            }
+            return;
+        }
+        if (stale.isEmpty()) {
+            return;
+        }
+        try (ACLContext ctx = ACL.as(ACL.SYSTEM)) {
+            for (Iterator<String> it = stale.iterator(); it.hasNext(); ) {
+                String name = it.next();
+                it.remove();
+                boolean descendants = staleGroups.remove(name);
+                if (descendants) {
+                    removeTree(name);
+                } else {
+                    removeItem(name);
+                }
+                Item item = jenkins.getItemByFullName(name);
+                if (item == null) {
+                    continue;
+                }
+                add(item);
+                if (descendants && item instanceof ItemGroup<?> group) {
+                    for (Item child : Items.allItems(group, Item.class)) {
+                        add(child);
+                    }
+                }
+            }
+        }
+    }
+
+    @GuardedBy("lock")
+    private void add(Item item) {
+        Collection<URIish> remotes = remotesOf(item);
+        if (remotes == null) {
+            return;
+        }
+        Set<String> keys = new HashSet<>();
+        for (URIish remote : remotes) {
+            keys.add(GitStatus.looseMatchKey(remote));
+        }
+        String name = item.getFullName();
+        keysByItem.put(name, keys);
+        for (String key : keys) {
+            itemsByKey.computeIfAbsent(key, k -> new HashSet<>()).add(name);
+        }
+    }
+
+    @GuardedBy("lock")
+    private void removeItem(String name) {
+        Set<String> keys = keysByItem.remove(name);
+        if (keys == null) {
+            return;
+        }
+        for (String key : keys) {
+            Set<String> names = itemsByKey.get(key);
+            if (names != null) {
+                names.remove(name);
+                if (names.isEmpty()) {
+                    itemsByKey.remove(key);
+                }
+            }
+        }
+    }
+
+    @GuardedBy("lock")
+    private void removeTree(String name) {
+        removeItem(name);
+        String prefix = name + "/";
+        List<String> nested = new ArrayList<>();
+        for (String candidate : keysByItem.keySet()) {
+            if (candidate.startsWith(prefix)) {
+                nested.add(candidate);
+            }
+        }
+        for (String candidate : nested) {
+            removeItem(candidate);
+        }
+    }
+
+    /**
+     * Indexes {@link SCMTriggerItem} jobs by the remotes of their {@link GitSCM}s.
+     */
+    @Extension
+    public static class TriggerItems extends GitRemoteIndex {
+
+        @Override
+        protected Collection<URIish> remotesOf(@NonNull Item item) {
+            SCMTriggerItem scmTriggerItem = SCMTriggerItem.SCMTriggerItems.asSCMTriggerItem(item);
+            if (scmTriggerItem == null) {
+                return null;
+            }
+            List<URIish> remotes = null;
+            for (SCM scm : scmTriggerItem.getSCMs()) {
+                if (!(scm instanceof GitSCM git)) {
+                    continue;
+                }
+                if (remotes == null) {
+                    remotes = new ArrayList<>();
+                }
+                for (RemoteConfig repository : git.getRepositories()) {
+                    remotes.addAll(repository.getURIs());
+                }
+            }
+            return remotes;
+        }
+    }
+
+    /**
+     * Keeps the indexes in step with item lifecycle events.
+     */
+    @Extension
+    public static class ItemListenerImpl extends ItemListener {
+
+        @Override
+        public void onLoaded() {
+            for (GitRemoteIndex index : all()) {
+                index.invalidateAll();
+            }
+        }
+
+        @Override
+        public void onCreated(Item item) {
+            for (GitRemoteIndex index : all()) {
+                index.invalidate(item.getFullName(), true);
+            }
+        }
+
+        @Override
+        public void onCopied(Item src, Item item) {
+            for (GitRemoteIndex index : all()) {
+                index.invalidate(item.getFullName(), true);
+            }
+        }
+
+        @Override
+        public void onUpdated(Item item) {
+            for (GitRemoteIndex index : all()) {
+                index.invalidate(item.getFullName(), item instanceof ItemGroup);
+            }
+        }
+
+        @Override
+        public void onDeleted(Item item) {
+            for (GitRemoteIndex index : all()) {
+                index.remove(item.getFullName());
+            }
+        }
+
+        @Override
+        public void onLocationChanged(Item item, String oldFullName, String newFullName) {
+            for (GitRemoteIndex index : all()) {
+                index.remove(oldFullName);
+                index.invalidate(newFullName, true);
+            }
+        }
+    }
+
+    /**
+     * Re-reads an item when its configuration or one of its builds is saved, since the {@link SCM}s of some job
+     * types (e.g. Pipeline) are derived from their builds.
+     */
+    @Extension
+    public static class SaveableListenerImpl extends SaveableListener {
+
+        @Override
+        public void onChange(Saveable o, XmlFile file) {
+            String name = fullNameOf(o);
+            if (name != null) {
+                for (GitRemoteIndex index : all()) {
+                    index.invalidate(name, false);
+                }
+            }
+        }
+
+        @CheckForNull
+        private static String fullNameOf(Saveable o) {
+            if (o instanceof Item item) {
+                return item.getFullName();
+            }
+            if (o instanceof Run<?, ?> run) {
+                return run.getParent().getFullName();
+            }
+            return null;
+        }
+    }
+
+    private static List<GitRemoteIndex> all() {
+        return ExtensionList.lookup(GitRemoteIndex.class);
+    }
+}
@@ -20,6 +20,7 @@ import hudson.model.Descriptor.FormException;
 import hudson.plugins.git.browser.GitRepositoryBrowser;
 import hudson.plugins.git.extensions.GitSCMExtension;
 import hudson.plugins.git.extensions.GitSCMExtensionDescriptor;
+import hudson.plugins.git.extensions.impl.AdaptivePolling;
 import hudson.plugins.git.extensions.impl.AuthorInChangelog;
 import hudson.plugins.git.extensions.impl.BuildChooserSetting;
 import hudson.plugins.git.extensions.impl.BuildSingleRevisionOnly;
@@ -28,8 +29,10 @@ import hudson.plugins.git.extensions.impl.CloneOption;
 import hudson.plugins.git.extensions.impl.FirstBuildChangelog;
 import hudson.plugins.git.extensions.impl.PathRestriction;
 import hudson.plugins.git.extensions.impl.LocalBranch;
+import hudson.plugins.git.extensions.impl.MessageExclusion;
 import hudson.plugins.git.extensions.impl.RelativeTargetDirectory;
 import hudson.plugins.git.extensions.impl.PreBuildMerge;
+import hudson.plugins.git.extensions.impl.UserExclusion;
 import hudson.plugins.git.opt.PreBuildMergeOptions;
 import hudson.plugins.git.util.Build;
 import hudson.plugins.git.util.*;
@@ -49,6 +52,7 @@ import hudson.util.FormValidation;
 import hudson.util.ListBoxModel;
 import jenkins.model.Jenkins;
 import jenkins.plugins.git.GitHooksConfiguration;
+import jenkins.plugins.git.GitCachePolling;
 import jenkins.plugins.git.GitSCMMatrixUtil;
 import jenkins.plugins.git.GitToolChooser;
 import jenkins.util.SystemProperties;
@@ -56,6 +60,7 @@ import net.sf.json.JSONObject;
 
 import org.eclipse.jgit.errors.MissingObjectException;
 import org.eclipse.jgit.lib.Config;
+import org.eclipse.jgit.lib.Constants;
 import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.revwalk.RevCommit;
 import org.eclipse.jgit.transport.RefSpec;
@@ -64,6 +69,8 @@ import org.eclipse.jgit.transport.URIish;
 import org.jenkinsci.plugins.gitclient.*;
 import org.jenkinsci.plugins.scriptsecurity.sandbox.whitelists.Whitelisted;
 import org.jenkinsci.Symbol;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
 import org.kohsuke.stapler.DataBoundConstructor;
 import org.kohsuke.stapler.DataBoundSetter;
 import org.kohsuke.stapler.StaplerRequest2;
@@ -126,6 +133,11 @@ public class GitSCM extends GitSCMBackwardCompatibility {
     public static /* not final */ boolean ALLOW_LOCAL_CHECKOUT =
             SystemProperties.getBoolean(ALLOW_LOCAL_CHECKOUT_PROPERTY);
 
+    /**
+     * Number of commits read from the repository at a time when checking whether new commits are excluded.
+     */
+    static final int EXCLUSION_BATCH_SIZE = 200;
+
     /**
      * Store a config version so we're able to migrate config on various
      * functionality upgrades.
@@ -678,7 +690,13 @@ public class GitSCM extends GitSCMBackwardCompatibility {
 
     /* Package protected for test access */
     boolean requiresWorkspaceForPolling(EnvVars environment) {
+        PathRestriction pathRestriction = getExtensions().get(PathRestriction.class);
+        boolean pollOnController = pathRestriction != null && pathRestriction.isPollOnController();
         for (GitSCMExtension ext : getExtensions()) {
+            if (pollOnController && (ext instanceof UserExclusion || ext instanceof MessageExclusion)) {
+                // evaluated in the cache repository along with the paths
+                continue;
+            }
             if (ext.requiresWorkspaceForPolling()) return true;
         }
         return getSingleBranch(environment) == null;
@@ -686,8 +704,16 @@ public class GitSCM extends GitSCMBackwardCompatibility {
 
     @Override
     public PollingResult compareRemoteRevisionWith(Job<?, ?> project, Launcher launcher, FilePath workspace, final TaskListener listener, SCMRevisionState baseline) throws IOException, InterruptedException {
+        AdaptivePolling adaptivePolling = getExtensions().get(AdaptivePolling.class);
+        if (adaptivePolling != null && !adaptivePolling.isPollDue(this, project, listener)) {
+            return NO_CHANGES;
+        }
         try {
-            return compareRemoteRevisionWithImpl( project, launcher, workspace, listener);
+            PollingResult result = compareRemoteRevisionWithImpl( project, launcher, workspace, listener);
+            if (adaptivePolling != null) {
+                adaptivePolling.recordPoll(this, project, result);
+            }
+            return result;
         } catch (GitException e){
             throw new IOException(e);
         }
@@ -721,14 +747,27 @@ public class GitSCM extends GitSCMBackwardCompatibility {
             final EnvVars environment = project instanceof AbstractProject<?,?> ap ? GitUtils.getPollEnvironment(ap, workspace, launcher, listener, false) : new EnvVars();
 
             GitClient git = createClient(listener, environment, lastBuild, Jenkins.get(), null);
+            BranchSpecSet branchSpecs = new BranchSpecSet(getBranches(), environment);
+            // only present here if it allows polling without a workspace
+            PathRestriction pathRestriction = getExtensions().get(PathRestriction.class);
 
             for (RemoteConfig remoteConfig : getParamExpandedRepos(lastBuild, listener)) {
                 String remote = remoteConfig.getName();
                 List<RefSpec> refSpecs = getRefSpecs(remoteConfig, environment);
+                if (!canMatchHeads(refSpecs)) {
+                    // the heads would all be ignored below, so do not ask the remote for them
+                    listener.getLogger().println("[poll] Skipping " + remote + " as none of its refspecs matches a branch");
+                    continue;
+                }
 
                 for (URIish urIish : remoteConfig.getURIs()) {
                     String gitRepo = urIish.toString();
-                    Map<String, ObjectId> heads = git.getHeadRev(gitRepo);
+                    UserRemoteConfig userRemoteConfig = getUserRemoteConfig(urIish, environment);
+                    Map<String, ObjectId> heads = userRemoteConfig == null
+                            ? git.getHeadRev(gitRepo)
+                            : RemoteHeadsCache.get().getHeads(urIish, userRemoteConfig.getCredentialsId(),
+                                    project.getParent().getFullName(), project.getFullName(),
+                                    () -> git.getHeadRev(gitRepo));
                     if (heads==null || heads.isEmpty()) {
                         listener.getLogger().println("[poll] Couldn't get remote head revision");
                         return BUILD_NOW;
@@ -752,33 +791,37 @@ public class GitSCM extends GitSCMBackwardCompatibility {
                         }
                     }
 
-                    for (BranchSpec branchSpec : getBranches()) {
-                        for (Entry<String, ObjectId> entry : heads.entrySet()) {
-                            final String head = entry.getKey();
-                            // head is "refs/(heads|tags|whatever)/branchName
+                    for (Entry<String, ObjectId> entry : heads.entrySet()) {
+                        final String head = entry.getKey();
+                        // head is "refs/(heads|tags|whatever)/branchName
 
-                            // first, check the a canonical git reference is configured
-                            if (!branchSpec.matches(head, environment)) {
+                        // first, check the a canonical git reference is configured
+                        if (!branchSpecs.matches(head)) {
 
-                                // convert head `refs/(heads|tags|whatever)/branch` into shortcut notation `remote/branch`
-                                String name;
-                                Matcher matcher = GIT_REF.matcher(head);
-                                if (matcher.matches()) name = remote + head.substring(matcher.group(1).length());
-                                else name = remote + "/" + head;
+                            // convert head `refs/(heads|tags|whatever)/branch` into shortcut notation `remote/branch`
+                            String name;
+                            Matcher matcher = GIT_REF.matcher(head);
+                            if (matcher.matches()) name = remote + head.substring(matcher.group(1).length());
+                            else name = remote + "/" + head;
 
-                                if (!branchSpec.matches(name, environment)) continue;
-                            }
+                            if (!branchSpecs.matches(name)) continue;
+                        }
 
-                            final ObjectId sha1 = entry.getValue();
-                            Build built = buildData.getLastBuild(sha1);
-                            if (built != null) {
-                                listener.getLogger().println("[poll] Latest remote head revision on " + head + " is: " + sha1.getName() + " - already built by " + built.getBuildNumber());
-                                continue;
-                            }
+                        final ObjectId sha1 = entry.getValue();
+                        Build built = buildData.getLastBuild(sha1);
+                        if (built != null) {
+                            listener.getLogger().println("[poll] Latest remote head revision on " + head + " is: " + sha1.getName() + " - already built by " + built.getBuildNumber());
+                            continue;
+                        }
 
-                            listener.getLogger().println("[poll] Latest remote head revision on " + head + " is: " + sha1.getName());
-                            return BUILD_NOW;
+                        listener.getLogger().println("[poll] Latest remote head revision on " + head + " is: " + sha1.getName());
+                        if (pathRestriction != null && userRemoteConfig != null && buildData.lastBuild != null
+                                && head.startsWith(Constants.R_HEADS)
+                                && !GitCachePolling.hasIncludedCommits(project, this, userRemoteConfig, gitRepo, head,
+                                        buildData.lastBuild.getSHA1(), sha1, buildData, listener)) {
+                            continue;
                         }
+                        return BUILD_NOW;
                     }
                 }
             }
@@ -826,6 +869,40 @@ public class GitSCM extends GitSCMBackwardCompatibility {
         }
     }
 
+    /**
+     * Tells whether any of the refspecs can fetch a branch. Polling without a workspace lists only the
+     * {@code refs/heads/} refs of the remote (with protocol v2 the remote itself filters on that prefix), so a
+     * remote whose refspecs only fetch other refs cannot have changes to poll.
+     */
+    static boolean canMatchHeads(List<RefSpec> refSpecs) {
+        for (RefSpec refSpec : refSpecs) {
+            String source = refSpec.getSource();
+            if (source == null) {
+                continue;
+            }
+            int wildcard = source.indexOf('*');
+            String prefix = wildcard < 0 ? source : source.substring(0, wildcard);
+            if (prefix.startsWith(Constants.R_HEADS) || (wildcard >= 0 && Constants.R_HEADS.startsWith(prefix))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Finds the configured remote whose expanded url is the given uri, to tell which credentials are used for it.
+     */
+    @CheckForNull
+    private UserRemoteConfig getUserRemoteConfig(URIish uri, EnvVars environment) {
+        for (UserRemoteConfig uc : getUserRemoteConfigs()) {
+            String url = getParameterString(uc.getUrl(), environment);
+            if (uri.toString().equals(url) || uri.toPrivateString().equals(url)) {
+                return uc;
+            }
+        }
+        return null;
+    }
+
     /**
      * Allows {@link Builder}s and {@link Publisher}s to access a configured {@link GitClient} object to
      * perform additional git operations.
@@ -2028,27 +2105,61 @@ public class GitSCM extends GitSCMBackwardCompatibility {
      * @return the last recorded build data
      */
     public @CheckForNull BuildData getBuildData(Run build) {
-        BuildData buildData = null;
-        while (build != null) {
-            List<BuildData> buildDataList = build.getActions(BuildData.class);
-            // We need to get the latest recorded build data. It may happen
-            // that the build has more than one checkout of the same repo.
-            List<BuildData> buildDataListReverted = reversedView(buildDataList);
-            for (BuildData bd : buildDataListReverted) {
-                if (bd != null && isRelevantBuildData(bd)) {
-                    buildData = bd;
-                    break;
+        Job<?, ?> job = build == null ? null : build.getParent();
+        if (job != null) {
+            List<String> urls = new ArrayList<>();
+            for (UserRemoteConfig c : getUserRemoteConfigs()) {
+                urls.add(c.getUrl());
+            }
+            // builds after the one the index points to hold no relevant build data
+            Integer latest = BuildDataIndex.forJob(job).getLatest(urls);
+            if (latest != null && latest <= build.getNumber()) {
+                Run<?, ?> candidate = latest == build.getNumber() ? build : job.getBuildByNumber(latest);
+                BuildData buildData = candidate == null ? null : getRelevantBuildData(candidate);
+                if (buildData != null) {
+                    return buildData;
                 }
             }
+        }
+        Run<?, ?> start = build;
+        BuildData buildData = null;
+        while (build != null) {
+            buildData = getRelevantBuildData(build);
             if (buildData != null) {
                 break;
             }
             build = build.getPreviousBuild();
         }
 
+        if (buildData != null && job != null && isLatestBuild(start)) {
+            // written before the index, later lookups start from here
+            BuildDataIndex.forJob(job).record(job, buildData.getRemoteUrls(), build.getNumber());
+        }
         return buildData;
     }
 
+    private @CheckForNull BuildData getRelevantBuildData(Run<?, ?> build) {
+        List<BuildData> buildDataList = build.getActions(BuildData.class);
+        // We need to get the latest recorded build data. It may happen
+        // that the build has more than one checkout of the same repo.
+        List<BuildData> buildDataListReverted = reversedView(buildDataList);
+        for (BuildData bd : buildDataListReverted) {
+            if (bd != null && isRelevantBuildData(bd)) {
+                return bd;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Tells whether no build after the given one could hold build data missing from the {@link BuildDataIndex},
+     * the next build being at most the one checking out.
+     */
+    private static boolean isLatestBuild(Run<?, ?> build) {
+        Run<?, ?> next = build.getNextBuild();
+        return next == null || next.isBuilding() && next.getNextBuild() == null;
+    }
+
     /**
      * Gets a reversed view of an unmodifiable list without using increasing space or time.
      * @param list The list to revert.
@@ -2096,6 +2207,10 @@ public class GitSCM extends GitSCMBackwardCompatibility {
 
     /**
      * Given a Revision "r", check whether the list of revisions "COMMITS_WE_HAVE_BUILT..r" are to be entirely excluded given the exclusion rules
+     * <p>
+     * The commits are read from the repository {@link #EXCLUSION_BATCH_SIZE} at a time, a merge commit once for each
+     * of its parents as with {@code git log -m}, and no more commits are read once one is not excluded, so that the
+     * memory used does not grow with the number of commits.
      *
      * @param git GitClient object
      * @param r Revision object
@@ -2104,40 +2219,37 @@ public class GitSCM extends GitSCMBackwardCompatibility {
      */
     private boolean isRevExcluded(GitClient git, Revision r, TaskListener listener, BuildData buildData) throws IOException, InterruptedException {
         try {
-            List<String> revShow;
+            boolean useRawOutput = getExtensions().get(PathRestriction.class) != null;
+            ObjectId from = null;
             if (buildData != null && buildData.lastBuild != null) {
-                if (getExtensions().get(PathRestriction.class) != null) {
-                    revShow  = git.showRevision(buildData.lastBuild.revision.getSha1(), r.getSha1());
-                } else {
-                    revShow  = git.showRevision(buildData.lastBuild.revision.getSha1(), r.getSha1(), false);
-                }
+                from = buildData.lastBuild.revision.getSha1();
             } else {
-                revShow  = git.showRevision(r.getSha1());
+                useRawOutput = true;
             }
 
-            revShow.add("commit "); // sentinel value
-
-            int start=0, idx=0;
-            for (String line : revShow) {
-                if (line.startsWith("commit ") && idx!=0) {
-                    boolean showEntireCommitSummary = GitChangeSet.isShowEntireCommitSummaryInChanges() || !(git instanceof CliGitAPIImpl);
-                    GitChangeSet change = new GitChangeSet(revShow.subList(start,idx), getExtensions().get(AuthorInChangelog.class)!=null, showEntireCommitSummary);
+            boolean showEntireCommitSummary = GitChangeSet.isShowEntireCommitSummaryInChanges() || !(git instanceof CliGitAPIImpl);
+            boolean authorOrCommitter = getExtensions().get(AuthorInChangelog.class) != null;
+            int read = 0;
+            List<List<String>> commits;
+            do {
+                commits = git.withRepository(new RawLogRepositoryCallback(from, r.getSha1(), read, EXCLUSION_BATCH_SIZE, useRawOutput));
+                read += commits.size();
+                for (List<String> revShow : commits) {
+                    revShow.add("commit "); // sentinel value
+
+                    int start=0, idx=0;
+                    for (String line : revShow) {
+                        if (line.startsWith("commit ") && idx!=0) {
+                            GitChangeSet change = new GitChangeSet(revShow.subList(start,idx), authorOrCommitter, showEntireCommitSummary);
+                            if (!isCommitExcluded(git, change, listener, buildData))
+                                return false;    // this sequence of commits have one commit that we want to build
+                            start = idx;
+                        }
 
-                    Boolean excludeThisCommit=null;
-                    for (GitSCMExtension ext : extensions) {
-                        excludeThisCommit = ext.isRevExcluded(this, git, change, listener, buildData);
-                        if (excludeThisCommit!=null)
-                            break;
+                        idx++;
                     }
-                    if (excludeThisCommit==null || !excludeThisCommit)
-                        return false;    // this sequence of commits have one commit that we want to build
-                    start = idx;
                 }
-
-                idx++;
-            }
-
-            assert start==revShow.size()-1;
+            } while (from != null && commits.size() == EXCLUSION_BATCH_SIZE);
 
             // every commit got excluded
             return true;
@@ -2147,6 +2259,25 @@ public class GitSCM extends GitSCMBackwardCompatibility {
         }
     }
 
+    /**
+     * Asks the extensions whether a commit is to be excluded.
+     *
+     * @param git GitClient object
+     * @param change the commit
+     * @param listener build log
+     * @param buildData the build data of the last build
+     * @return true if an extension excludes the commit
+     */
+    @Restricted(NoExternalUse.class)
+    public boolean isCommitExcluded(GitClient git, GitChangeSet change, TaskListener listener, BuildData buildData) throws IOException, InterruptedException {
+        for (GitSCMExtension ext : extensions) {
+            Boolean excludeThisCommit = ext.isRevExcluded(this, git, change, listener, buildData);
+            if (excludeThisCommit != null)
+                return excludeThisCommit;
+        }
+        return false;
+    }
+
     /**
      * Data bound setter for doGenerateSubmoduleConfigurations that
      * intentionally ignores the value passed by the caller.
@@ -2173,6 +2304,7 @@ public class GitSCM extends GitSCMBackwardCompatibility {
     @Initializer(before=JOB_LOADED)
     public static void configureXtream() {
         Run.XSTREAM.registerConverter(new ObjectIdConverter());
+        Run.XSTREAM.registerConverter(new BranchBuildMap.ConverterImpl());
         Items.XSTREAM.registerConverter(new RemoteConfigConverter(Items.XSTREAM));
         Items.XSTREAM.alias("org.spearce.jgit.transport.RemoteConfig", RemoteConfig.class);
     }
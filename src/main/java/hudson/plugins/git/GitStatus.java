@@ -7,13 +7,16 @@ import hudson.Extension;
 import hudson.ExtensionPoint;
 import hudson.Util;
 import hudson.model.*;
+import hudson.plugins.git.extensions.impl.AdaptivePolling;
 import hudson.plugins.git.extensions.impl.IgnoreNotifyCommit;
+import hudson.plugins.git.util.CommitBuildIndex;
 import hudson.scm.SCM;
 import hudson.security.ACL;
 import hudson.security.ACLContext;
 import hudson.triggers.SCMTrigger;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.io.StringWriter;
 import java.net.URISyntaxException;
 import java.util.*;
 import java.util.logging.Level;
@@ -21,18 +24,30 @@ import java.util.logging.Logger;
 import java.util.regex.Pattern;
 import jakarta.servlet.http.HttpServletRequest;
 
+import static jakarta.servlet.http.HttpServletResponse.SC_ACCEPTED;
 import static jakarta.servlet.http.HttpServletResponse.SC_BAD_REQUEST;
+import static jakarta.servlet.http.HttpServletResponse.SC_CONFLICT;
 import static jakarta.servlet.http.HttpServletResponse.SC_OK;
+import static jakarta.servlet.http.HttpServletResponse.SC_SERVICE_UNAVAILABLE;
 import jenkins.model.Jenkins;
 import jenkins.model.ParameterizedJobMixIn;
+import jenkins.plugins.git.AbstractGitSCMSource;
 import jenkins.scm.api.SCMEvent;
 import jenkins.triggers.SCMTriggerItem;
 import jenkins.util.SystemProperties;
+import net.sf.json.JSONArray;
+import net.sf.json.JSONException;
+import net.sf.json.JSONObject;
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 
+import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.transport.RemoteConfig;
 import org.eclipse.jgit.transport.URIish;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
 import org.kohsuke.stapler.*;
+import org.kohsuke.stapler.interceptor.RequirePOST;
 
 /**
  * Root action that requests the plugin to poll for changes in remote repositories.
@@ -42,6 +57,14 @@ public class GitStatus implements UnprotectedRootAction {
     static /* not final */ String NOTIFY_COMMIT_ACCESS_CONTROL =
             SystemProperties.getString(GitStatus.class.getName() + ".NOTIFY_COMMIT_ACCESS_CONTROL");
 
+    /**
+     * Acknowledge notifications with 202 and process them in the background through {@link NotifyCommitQueue}.
+     * <p>
+     * -Dhudson.plugins.git.GitStatus.asyncNotifyCommit=true on command line
+     */
+    static /* not final */ boolean ASYNC_NOTIFY_COMMIT =
+            SystemProperties.getBoolean(GitStatus.class.getName() + ".asyncNotifyCommit");
+
     @Override
     public String getDisplayName() {
         return "Git";
@@ -118,22 +141,9 @@ public class GitStatus implements UnprotectedRootAction {
     public HttpResponse doNotifyCommit(HttpServletRequest request, @QueryParameter(required=true) String url,
                                        @QueryParameter() String branches, @QueryParameter() String sha1,
                                        @QueryParameter() String token) {
-        if (!"disabled".equalsIgnoreCase(NOTIFY_COMMIT_ACCESS_CONTROL)
-                && !"disabled-for-polling".equalsIgnoreCase(NOTIFY_COMMIT_ACCESS_CONTROL)) {
-            if (token == null || token.isEmpty()) {
-                return HttpResponses.errorWithoutStack(401, "An access token is required. Please refer to Git plugin documentation (https://plugins.jenkins.io/git/#plugin-content-push-notification-from-repository) for details.");
-            }
-            if (!ApiTokenPropertyConfiguration.get().isValidApiToken(token)) {
-                return HttpResponses.errorWithoutStack(403, "Invalid access token");
-            }
-        }
-        if ("disabled-for-polling".equalsIgnoreCase(NOTIFY_COMMIT_ACCESS_CONTROL) && sha1 != null && !sha1.isEmpty()) {
-            if (token == null || token.isEmpty()) {
-                return HttpResponses.errorWithoutStack(401, "An access token is required when using the sha1 parameter. Please refer to Git plugin documentation (https://plugins.jenkins.io/git/#plugin-content-push-notification-from-repository) for details.");
-            } 
-            if (!ApiTokenPropertyConfiguration.get().isValidApiToken(token)) {
-                return HttpResponses.errorWithoutStack(403, "Invalid access token");
-            }
+        HttpResponse denied = checkAccessToken(token, sha1 != null && !sha1.isEmpty());
+        if (denied != null) {
+            return denied;
         }
         lastURL = url;
         lastBranches = branches;
@@ -171,13 +181,26 @@ public class GitStatus implements UnprotectedRootAction {
             branchesArray = branches.split(",");
         }
 
-        final List<ResponseContributor> contributors = new ArrayList<>();
-        Jenkins jenkins = Jenkins.get();
         String origin = SCMEvent.originOf(request);
-        for (Listener listener : jenkins.getExtensionList(Listener.class)) {
-            contributors.addAll(listener.onNotifyCommit(origin, uri, sha1, buildParameters, branchesArray));
+        if (ASYNC_NOTIFY_COMMIT) {
+            NotifyCommitQueue.Notification notification =
+                    new NotifyCommitQueue.Notification(origin, uri, sha1, buildParameters, branchesArray);
+            if (!NotifyCommitQueue.get().submit(notification)) {
+                return HttpResponses.errorWithoutStack(SC_SERVICE_UNAVAILABLE, "Too many pending notifications");
+            }
+            return new HttpResponse() {
+                @Override
+                public void generateResponse(StaplerRequest2 req, StaplerResponse2 rsp, Object node) throws IOException {
+                    rsp.setStatus(SC_ACCEPTED);
+                    rsp.setContentType("text/plain");
+                    rsp.addHeader("X-Git-Notification-Id", notification.getId());
+                    rsp.getWriter().println("Queued notification " + notification.getId());
+                }
+            };
         }
 
+        final List<ResponseContributor> contributors = notifyListeners(origin, uri, sha1, buildParameters, branchesArray);
+
         return new HttpResponse() {
           @Override
           public void generateResponse(StaplerRequest2 req, StaplerResponse2 rsp, Object node) throws IOException {
@@ -199,6 +222,328 @@ public class GitStatus implements UnprotectedRootAction {
         };
     }
 
+    /**
+     * Receives several notifications in a single POST. The body is a JSON array of objects with a required
+     * {@code url} and optional {@code branches} (a comma separated string or an array) and {@code sha1}.
+     * Build parameters are not accepted.
+     * <p>
+     * Notifications without a sha1 for the same repository are merged into one, so that every job is visited at most
+     * once for them. The response is a JSON array with the results of each notification, in request order. When
+     * notifications are queued, the status is 503 if the queue refused any of them.
+     * <p>
+     * The access token is checked before the body is read, except when access control is disabled for polling only,
+     * where it is required once the body is known to hold a sha1.
+     */
+    @RequirePOST
+    public HttpResponse doNotifyCommits(StaplerRequest2 request, @QueryParameter() String token) throws IOException {
+        HttpResponse denied = checkAccessToken(token, false);
+        if (denied != null) {
+            return denied;
+        }
+        JSONArray json;
+        try {
+            json = JSONArray.fromObject(IOUtils.toString(request.getReader()));
+        } catch (JSONException e) {
+            return HttpResponses.error(SC_BAD_REQUEST, new IllegalArgumentException("Expected a JSON array of notifications", e));
+        }
+        String[] urls = new String[json.size()];
+        List<BatchNotification> batch = new ArrayList<>();
+        Map<String, BatchNotification> byKey = new HashMap<>();
+        boolean withSha1 = false;
+        for (int i = 0; i < json.size(); i++) {
+            JSONObject entry = json.optJSONObject(i);
+            String url = entry == null ? null : Util.fixEmptyAndTrim(entry.optString("url"));
+            if (url == null) {
+                return HttpResponses.error(SC_BAD_REQUEST, new IllegalArgumentException("Notification " + i + " has no url"));
+            }
+            URIish uri;
+            try {
+                uri = new URIish(url);
+            } catch (URISyntaxException e) {
+                return HttpResponses.error(SC_BAD_REQUEST, new Exception("Illegal URL: " + url, e));
+            }
+            String sha1 = Util.fixEmptyAndTrim(entry.optString("sha1"));
+            if (sha1 != null && !SHA1_PATTERN.matcher(sha1).matches()) {
+                return HttpResponses.error(SC_BAD_REQUEST, new IllegalArgumentException("Illegal SHA1 in notification " + i));
+            }
+            withSha1 |= sha1 != null;
+            Set<String> branches = new TreeSet<>();
+            Object value = entry.opt("branches");
+            if (value instanceof JSONArray array) {
+                for (Object branch : array) {
+                    branches.add(String.valueOf(branch).trim());
+                }
+            } else if (value instanceof String string) {
+                for (String branch : string.split(",")) {
+                    branches.add(branch.trim());
+                }
+            }
+            branches.removeIf(String::isBlank);
+            urls[i] = url;
+
+            // polling-only notifications of one repository merge; "no branches" means any branch and absorbs the others
+            String key = looseMatchKey(uri) + (sha1 == null ? "" : "#" + String.join(",", branches) + "@" + sha1);
+            BatchNotification notification = byKey.get(key);
+            if (notification == null) {
+                notification = new BatchNotification(uri, sha1, branches);
+                byKey.put(key, notification);
+                batch.add(notification);
+            } else if (sha1 == null) {
+                notification.merge(branches);
+            }
+            notification.indices.add(i);
+        }
+        if (withSha1) {
+            denied = checkAccessToken(token, true);
+            if (denied != null) {
+                return denied;
+            }
+        }
+
+        String origin = SCMEvent.originOf(request);
+        boolean anyRejected = false;
+        for (BatchNotification notification : batch) {
+            if (ASYNC_NOTIFY_COMMIT) {
+                NotifyCommitQueue.Notification queued = new NotifyCommitQueue.Notification(origin, notification.uri,
+                        notification.sha1, Collections.emptyList(), notification.getBranches());
+                boolean accepted = NotifyCommitQueue.get().submit(queued);
+                anyRejected |= !accepted;
+                notification.contributors.add(new MessageResponseContributor(accepted
+                        ? "Queued notification " + queued.getId()
+                        : "Too many pending notifications"));
+            } else {
+                notification.contributors.addAll(notifyListeners(origin, notification.uri, notification.sha1,
+                        Collections.emptyList(), notification.getBranches()));
+            }
+        }
+
+        int status = !ASYNC_NOTIFY_COMMIT ? SC_OK : anyRejected ? SC_SERVICE_UNAVAILABLE : SC_ACCEPTED;
+        return new HttpResponse() {
+            @Override
+            public void generateResponse(StaplerRequest2 req, StaplerResponse2 rsp, Object node) throws IOException {
+                JSONObject[] results = new JSONObject[urls.length];
+                for (BatchNotification notification : batch) {
+                    StringWriter body = new StringWriter();
+                    try (PrintWriter w = new PrintWriter(body)) {
+                        for (ResponseContributor c : notification.contributors) {
+                            c.writeBody(req, rsp, w);
+                        }
+                    }
+                    JSONArray messages = new JSONArray();
+                    for (String line : body.toString().split("\\R")) {
+                        if (!line.isEmpty()) {
+                            messages.add(line);
+                        }
+                    }
+                    for (int i : notification.indices) {
+                        JSONObject result = new JSONObject();
+                        result.put("url", urls[i]);
+                        result.put("messages", messages);
+                        results[i] = result;
+                    }
+                }
+                rsp.setStatus(status);
+                rsp.setContentType("application/json;charset=UTF-8");
+                rsp.getWriter().print(JSONArray.fromObject(results));
+            }
+        };
+    }
+
+    /**
+     * Lists the builds that built a commit or listed it in their changelog, looked up in the
+     * {@link CommitBuildIndex} of each job. The response is a JSON array of objects with the full name of the job, the
+     * number and the URL of the build, for the builds the user can read.
+     *
+     * @param sha the full SHA1 of the commit.
+     * @param job the full name of the job to search. The index of a job is complete once built from its history by
+     * {@link #doRebuildBuilds(String)}; a job whose index is not complete is answered with 409 Conflict.
+     * @return the builds, as JSON.
+     * @throws IOException if an index could not be read.
+     */
+    public HttpResponse doBuilds(@QueryParameter(required = true) String sha, @QueryParameter(required = true) String job)
+            throws IOException {
+        if (!ObjectId.isId(sha)) {
+            return HttpResponses.error(SC_BAD_REQUEST, new IllegalArgumentException("Illegal SHA1"));
+        }
+        ObjectId commit = ObjectId.fromString(sha);
+        Job<?, ?> item = Jenkins.get().getItemByFullName(job, Job.class);
+        if (item == null) {
+            return HttpResponses.notFound();
+        }
+        CommitBuildIndex index = CommitBuildIndex.forJob(item);
+        if (!index.isComplete(item)) {
+            return HttpResponses.error(SC_CONFLICT, new IllegalStateException(
+                    "The commit index of " + item.getFullName() + " has not been built, POST to rebuildBuilds first"));
+        }
+        JSONArray builds = new JSONArray();
+        for (int number : index.getBuilds(item, commit)) {
+            Run<?, ?> run = item.getBuildByNumber(number);
+            if (run == null) {
+                // deleted since
+                continue;
+            }
+            JSONObject build = new JSONObject();
+            build.put("job", item.getFullName());
+            build.put("number", number);
+            build.put("url", run.getAbsoluteUrl());
+            builds.add(build);
+        }
+        return new HttpResponse() {
+            @Override
+            public void generateResponse(StaplerRequest2 req, StaplerResponse2 rsp, Object node) throws IOException {
+                rsp.setContentType("application/json;charset=UTF-8");
+                rsp.getWriter().print(builds);
+            }
+        };
+    }
+
+    /**
+     * Writes the {@link CommitBuildIndex} of a job again from its history.
+     *
+     * @param job the full name of the job.
+     * @return the number of records written, as plain text.
+     * @throws IOException if the index could not be written.
+     */
+    @RequirePOST
+    public HttpResponse doRebuildBuilds(@QueryParameter(required = true) String job) throws IOException {
+        Job<?, ?> item = Jenkins.get().getItemByFullName(job, Job.class);
+        if (item == null) {
+            return HttpResponses.notFound();
+        }
+        item.checkPermission(Item.CONFIGURE);
+        int records = CommitBuildIndex.forJob(item).rebuild(item);
+        return HttpResponses.plainText("Indexed " + records + " commits of " + item.getFullName() + "\n");
+    }
+
+    /**
+     * Reports the statistics of the cache repositories of the controller used since startup, by cache entry: the
+     * number of read and write locks acquired and the time spent waiting for them, and the number of fetches run,
+     * skipped because the remote references were unchanged, or coalesced with a concurrent fetch of the same refs.
+     *
+     * @return the statistics, as JSON.
+     */
+    public HttpResponse doCacheStatistics() {
+        Jenkins.get().checkPermission(Jenkins.ADMINISTER);
+        JSONObject statistics = AbstractGitSCMSource.getCacheStatistics();
+        return new HttpResponse() {
+            @Override
+            public void generateResponse(StaplerRequest2 req, StaplerResponse2 rsp, Object node) throws IOException {
+                rsp.setContentType("application/json;charset=UTF-8");
+                rsp.getWriter().print(statistics);
+            }
+        };
+    }
+
+    /**
+     * Reports the statistics of the queue of push notifications since startup: the number of pending notifications,
+     * the number accepted, coalesced with a pending one, rejected because the queue was full and processed, and the
+     * time from queueing to the end of processing. Notifications are only queued when
+     * {@code -Dhudson.plugins.git.GitStatus.asyncNotifyCommit=true} is set.
+     *
+     * @return the statistics, as JSON.
+     */
+    public HttpResponse doNotifyCommitStatistics() {
+        Jenkins.get().checkPermission(Jenkins.ADMINISTER);
+        JSONObject statistics = NotifyCommitQueue.get().toJSON();
+        statistics.put("enabled", ASYNC_NOTIFY_COMMIT);
+        return new HttpResponse() {
+            @Override
+            public void generateResponse(StaplerRequest2 req, StaplerResponse2 rsp, Object node) throws IOException {
+                rsp.setContentType("application/json;charset=UTF-8");
+                rsp.getWriter().print(statistics);
+            }
+        };
+    }
+
+    /**
+     * Reports the statistics of the {@link RemoteHeadsCache} since startup: the number of listings of remote heads
+     * answered from the cache, run, shared with a concurrent listing or dropped by a notification, and the age of the
+     * listings returned from the cache.
+     *
+     * @return the statistics, as JSON.
+     */
+    public HttpResponse doRemoteHeadsStatistics() {
+        Jenkins.get().checkPermission(Jenkins.ADMINISTER);
+        JSONObject statistics = RemoteHeadsCache.get().toJSON();
+        return new HttpResponse() {
+            @Override
+            public void generateResponse(StaplerRequest2 req, StaplerResponse2 rsp, Object node) throws IOException {
+                rsp.setContentType("application/json;charset=UTF-8");
+                rsp.getWriter().print(statistics);
+            }
+        };
+    }
+
+    /**
+     * One or more merged entries of a {@link #doNotifyCommits(StaplerRequest2, String)} batch.
+     */
+    private static final class BatchNotification {
+        private final URIish uri;
+        private final String sha1;
+        private final Set<String> branches;
+        private boolean anyBranch;
+        private final List<Integer> indices = new ArrayList<>();
+        private final List<ResponseContributor> contributors = new ArrayList<>();
+
+        BatchNotification(URIish uri, String sha1, Set<String> branches) {
+            this.uri = uri;
+            this.sha1 = sha1;
+            this.branches = branches;
+            this.anyBranch = branches.isEmpty();
+        }
+
+        void merge(Set<String> others) {
+            anyBranch |= others.isEmpty();
+            branches.addAll(others);
+        }
+
+        String[] getBranches() {
+            return anyBranch ? new String[0] : branches.toArray(new String[0]);
+        }
+    }
+
+    /**
+     * Checks the access token of a notification request against {@link #NOTIFY_COMMIT_ACCESS_CONTROL}.
+     *
+     * @param token the access token of the request.
+     * @param withSha1 {@code true} if the request asks for a specific sha1 to be built.
+     * @return the error response, or {@code null} if the request is allowed.
+     */
+    @CheckForNull
+    private static HttpResponse checkAccessToken(String token, boolean withSha1) {
+        if (!"disabled".equalsIgnoreCase(NOTIFY_COMMIT_ACCESS_CONTROL)
+                && !"disabled-for-polling".equalsIgnoreCase(NOTIFY_COMMIT_ACCESS_CONTROL)) {
+            if (token == null || token.isEmpty()) {
+                return HttpResponses.errorWithoutStack(401, "An access token is required. Please refer to Git plugin documentation (https://plugins.jenkins.io/git/#plugin-content-push-notification-from-repository) for details.");
+            }
+            if (!ApiTokenPropertyConfiguration.get().isValidApiToken(token)) {
+                return HttpResponses.errorWithoutStack(403, "Invalid access token");
+            }
+        }
+        if ("disabled-for-polling".equalsIgnoreCase(NOTIFY_COMMIT_ACCESS_CONTROL) && withSha1) {
+            if (token == null || token.isEmpty()) {
+                return HttpResponses.errorWithoutStack(401, "An access token is required when using the sha1 parameter. Please refer to Git plugin documentation (https://plugins.jenkins.io/git/#plugin-content-push-notification-from-repository) for details.");
+            }
+            if (!ApiTokenPropertyConfiguration.get().isValidApiToken(token)) {
+                return HttpResponses.errorWithoutStack(403, "Invalid access token");
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Passes a notification to every {@link Listener}.
+     */
+    static List<ResponseContributor> notifyListeners(String origin, URIish uri, String sha1,
+                                                     List<ParameterValue> buildParameters, String[] branches) {
+        RemoteHeadsCache.get().invalidate(uri);
+        List<ResponseContributor> contributors = new ArrayList<>();
+        for (Listener listener : Jenkins.get().getExtensionList(Listener.class)) {
+            contributors.addAll(listener.onNotifyCommit(origin, uri, sha1, buildParameters, branches));
+        }
+        return contributors;
+    }
+
     /**
      * Used to test if what we have in the job configuration matches what was submitted to the notification endpoint.
      * It is better to match loosely and wastes a few polling calls than to be pedantic and miss the push notification,
@@ -224,6 +569,19 @@ public class GitStatus implements UnprotectedRootAction {
         return Objects.equals(lhsHost, rhsHost);
     }
 
+    /**
+     * Computes a key that is equal for any two uris that {@link #looselyMatches(URIish, URIish) loosely match}.
+     * Uris with different keys never loosely match, so the key can be used to index jobs by remote repository.
+     * @param uri the repository uri
+     * @return the host and normalized path of the uri
+     */
+    @Restricted(NoExternalUse.class)
+    public static String looseMatchKey(URIish uri) {
+        String host = StringUtils.removeStart(uri.getHost(), "ssh.");
+        String path = uri.getPath();
+        return StringUtils.defaultString(host) + "/" + (path == null ? "" : normalizePath(path));
+    }
+
     private static String normalizePath(String path) {
         if (path.startsWith("/"))   path=path.substring(1);
         if (path.endsWith("/"))     path=path.substring(0,path.length()-1);
@@ -381,7 +739,8 @@ public class GitStatus implements UnprotectedRootAction {
                     LOGGER.severe("Jenkins.getInstance() is null in GitStatus.onNotifyCommit");
                     return result;
                 }
-                for (final Item project : jenkins.getAllItems()) {
+                GitRemoteIndex index = GitRemoteIndex.forJobs();
+                for (final Item project : index.getCandidates(uri)) {
                     SCMTriggerItem scmTriggerItem = SCMTriggerItem.SCMTriggerItems.asSCMTriggerItem(project);
                     if (scmTriggerItem == null) {
                         continue;
@@ -469,6 +828,10 @@ public class GitStatus implements UnprotectedRootAction {
                                 continue;
                             }
                             urlFound = true;
+                            AdaptivePolling adaptivePolling = git.getExtensions().get(AdaptivePolling.class);
+                            if (adaptivePolling != null && project instanceof Job<?,?> polledJob) {
+                                adaptivePolling.reset(git, polledJob);
+                            }
                             if (!(project instanceof ParameterizedJobMixIn.ParameterizedJob<?,?> job && job.isDisabled())) {
                                 //JENKINS-30178 Add default parameters defined in the job
                                 if (project instanceof Job<?,?> job) {
@@ -516,6 +879,9 @@ public class GitStatus implements UnprotectedRootAction {
 
                     }
                 }
+                if (!scmFound) {
+                    scmFound = index.hasGitItems();
+                }
                 if (!scmFound) {
                     result.add(new MessageResponseContributor("No git jobs found"));
                 } else if (!urlFound) {
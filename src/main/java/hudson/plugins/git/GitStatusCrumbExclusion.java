@@ -10,7 +10,7 @@ import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
 
 /**
- * Make POST to /git/notifyCommit work with CSRF protection on.
+ * Make POST to /git/notifyCommit and /git/notifyCommits work with CSRF protection on.
  */
 @Extension
 public class GitStatusCrumbExclusion extends CrumbExclusion {
@@ -19,7 +19,7 @@ public class GitStatusCrumbExclusion extends CrumbExclusion {
     public boolean process(HttpServletRequest req, HttpServletResponse resp, FilterChain chain)
             throws IOException, ServletException {
         String pathInfo = req.getPathInfo();
-        if (pathInfo != null && pathInfo.equals(getExclusionPath())) {
+        if (pathInfo != null && (pathInfo.equals(getExclusionPath()) || pathInfo.equals(getBatchExclusionPath()))) {
             chain.doFilter(req, resp);
             return true;
         }
@@ -29,4 +29,8 @@ public class GitStatusCrumbExclusion extends CrumbExclusion {
     public String getExclusionPath() {
         return "/git/notifyCommit";
     }
+
+    public String getBatchExclusionPath() {
+        return "/git/notifyCommits";
+    }
 }
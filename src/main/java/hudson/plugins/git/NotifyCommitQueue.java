@@ -0,0 +1,298 @@
+package hudson.plugins.git;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.model.ParameterValue;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.util.SystemProperties;
+import net.jcip.annotations.GuardedBy;
+import net.sf.json.JSONObject;
+import org.apache.commons.lang3.StringUtils;
+import org.eclipse.jgit.transport.URIish;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * Bounded queue of push notifications received by {@link GitStatus#doNotifyCommit}, processed by a small pool of
+ * worker threads so that the HTTP request can be acknowledged before any job is matched or scheduled.
+ * <p>
+ * A notification without a sha1 for the same repository, branches and build parameters as one that is still pending
+ * replaces it, as both would poll the same jobs. A notification with a sha1 schedules a build of that sha1, so it is
+ * never replaced.
+ */
+@Restricted(NoExternalUse.class)
+public class NotifyCommitQueue {
+
+    private static final Logger LOGGER = Logger.getLogger(NotifyCommitQueue.class.getName());
+
+    /**
+     * Maximum number of pending notifications.
+     * <p>
+     * -Dhudson.plugins.git.NotifyCommitQueue.capacity=1000 on command line
+     */
+    static final int CAPACITY = SystemProperties.getInteger(NotifyCommitQueue.class.getName() + ".capacity", 1000);
+
+    /**
+     * Number of threads processing notifications.
+     * <p>
+     * -Dhudson.plugins.git.NotifyCommitQueue.workers=2 on command line
+     */
+    static final int WORKERS = SystemProperties.getInteger(NotifyCommitQueue.class.getName() + ".workers", 2);
+
+    private final int capacity;
+
+    private final Executor executor;
+
+    private final Consumer<Notification> processor;
+
+    /**
+     * Pending notifications by coalescing key, in arrival order.
+     */
+    @GuardedBy("this")
+    private final Map<String, Notification> pending = new LinkedHashMap<>();
+
+    private final AtomicLong submitted = new AtomicLong();
+
+    private final AtomicLong coalesced = new AtomicLong();
+
+    private final AtomicLong rejected = new AtomicLong();
+
+    private final AtomicLong processed = new AtomicLong();
+
+    private final AtomicLong totalLatencyMs = new AtomicLong();
+
+    private final AtomicLong maxLatencyMs = new AtomicLong();
+
+    NotifyCommitQueue(int capacity, @NonNull Executor executor, @NonNull Consumer<Notification> processor) {
+        this.capacity = capacity;
+        this.executor = executor;
+        this.processor = processor;
+    }
+
+    @NonNull
+    public static NotifyCommitQueue get() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Queues a notification.
+     *
+     * @param notification the notification.
+     * @return {@code false} if the queue is full and the notification was not accepted.
+     */
+    public boolean submit(@NonNull Notification notification) {
+        String key = notification.getKey();
+        synchronized (this) {
+            Notification previous = pending.get(key);
+            if (previous != null) {
+                // keep the position and the arrival time of the pending one, so latency is not under-reported
+                notification.queuedMs = previous.queuedMs;
+                pending.put(key, notification);
+                submitted.incrementAndGet();
+                coalesced.incrementAndGet();
+                if (LOGGER.isLoggable(Level.FINE)) {
+                    LOGGER.log(Level.FINE, "Notification {0} replaces pending notification {1} for {2}",
+                            new Object[]{notification.getId(), previous.getId(), key});
+                }
+                return true;
+            }
+            if (pending.size() >= capacity) {
+                rejected.incrementAndGet();
+                return false;
+            }
+            pending.put(key, notification);
+            submitted.incrementAndGet();
+        }
+        executor.execute(() -> process(key));
+        return true;
+    }
+
+    private void process(String key) {
+        Notification notification;
+        synchronized (this) {
+            notification = pending.remove(key);
+        }
+        if (notification == null) {
+            return;
+        }
+        try {
+            processor.accept(notification);
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Failed to process notification " + notification.getId() + " for " + key, e);
+        } finally {
+            long latencyMs = System.currentTimeMillis() - notification.queuedMs;
+            processed.incrementAndGet();
+            totalLatencyMs.addAndGet(latencyMs);
+            maxLatencyMs.accumulateAndGet(latencyMs, Math::max);
+            if (LOGGER.isLoggable(Level.FINE)) {
+                LOGGER.log(Level.FINE, "Processed notification {0} for {1} {2} ms after it was queued",
+                        new Object[]{notification.getId(), key, latencyMs});
+            }
+        }
+    }
+
+    /**
+     * @return the number of notifications waiting to be processed.
+     */
+    public synchronized int getDepth() {
+        return pending.size();
+    }
+
+    /**
+     * @return the number of notifications accepted since startup.
+     */
+    public long getSubmittedCount() {
+        return submitted.get();
+    }
+
+    /**
+     * @return the number of accepted notifications that replaced a pending one.
+     */
+    public long getCoalescedCount() {
+        return coalesced.get();
+    }
+
+    /**
+     * @return the number of notifications refused because the queue was full.
+     */
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    /**
+     * @return the number of notifications processed since startup.
+     */
+    public long getProcessedCount() {
+        return processed.get();
+    }
+
+    /**
+     * @return the mean time from queueing to the end of processing, in milliseconds.
+     */
+    public long getAverageLatencyMs() {
+        long count = processed.get();
+        return count == 0 ? 0 : totalLatencyMs.get() / count;
+    }
+
+    /**
+     * @return the longest time from queueing to the end of processing, in milliseconds.
+     */
+    public long getMaxLatencyMs() {
+        return maxLatencyMs.get();
+    }
+
+    /**
+     * @return the statistics of the queue since startup, as JSON.
+     */
+    @NonNull
+    public JSONObject toJSON() {
+        JSONObject latency = new JSONObject();
+        latency.put("averageMs", getAverageLatencyMs());
+        latency.put("maxMs", getMaxLatencyMs());
+        JSONObject json = new JSONObject();
+        json.put("depth", getDepth());
+        json.put("capacity", capacity);
+        json.put("submitted", getSubmittedCount());
+        json.put("coalesced", getCoalescedCount());
+        json.put("rejected", getRejectedCount());
+        json.put("processed", getProcessedCount());
+        json.put("latency", latency);
+        return json;
+    }
+
+    /**
+     * A push notification waiting to be processed.
+     */
+    public static final class Notification {
+        private final String id = UUID.randomUUID().toString();
+        private final String origin;
+        private final URIish uri;
+        private final String sha1;
+        private final List<ParameterValue> buildParameters;
+        private final String[] branches;
+        private volatile long queuedMs = System.currentTimeMillis();
+
+        public Notification(@CheckForNull String origin, @NonNull URIish uri, @CheckForNull String sha1,
+                            @NonNull List<ParameterValue> buildParameters, @NonNull String... branches) {
+            this.origin = origin;
+            this.uri = uri;
+            this.sha1 = sha1;
+            this.buildParameters = new ArrayList<>(buildParameters);
+            this.branches = branches.clone();
+        }
+
+        /**
+         * @return the identifier reported to the caller that submitted the notification.
+         */
+        @NonNull
+        public String getId() {
+            return id;
+        }
+
+        @CheckForNull
+        public String getOrigin() {
+            return origin;
+        }
+
+        @NonNull
+        public URIish getUri() {
+            return uri;
+        }
+
+        @CheckForNull
+        public String getSha1() {
+            return sha1;
+        }
+
+        @NonNull
+        public List<ParameterValue> getBuildParameters() {
+            return buildParameters;
+        }
+
+        @NonNull
+        public String[] getBranches() {
+            return branches.clone();
+        }
+
+        /**
+         * @return a key that is equal for notifications without a sha1 of the same repository, branches and build
+         * parameters, and unique for a notification with a sha1.
+         */
+        @NonNull
+        String getKey() {
+            if (sha1 != null) {
+                return id;
+            }
+            String[] sorted = branches.clone();
+            Arrays.sort(sorted);
+            StringBuilder key = new StringBuilder(GitStatus.looseMatchKey(uri)).append('#').append(StringUtils.join(sorted, ','));
+            for (ParameterValue parameter : buildParameters) {
+                key.append('&').append(parameter.getName()).append('=').append(parameter.getValue());
+            }
+            return key.toString();
+        }
+    }
+
+    private static final class Holder {
+        private static final NotifyCommitQueue INSTANCE = new NotifyCommitQueue(CAPACITY,
+                new ThreadPoolExecutor(WORKERS, WORKERS, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                        new NamingThreadFactory(new DaemonThreadFactory(), "GitStatus.notifyCommit")),
+                n -> GitStatus.notifyListeners(n.getOrigin(), n.getUri(), n.getSha1(), n.getBuildParameters(),
+                        n.getBranches()));
+    }
+}
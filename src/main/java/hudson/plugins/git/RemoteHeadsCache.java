@@ -0,0 +1,275 @@
+package hudson.plugins.git;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.util.SystemProperties;
+import net.sf.json.JSONObject;
+import org.apache.commons.lang3.StringUtils;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.transport.URIish;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * Controller-wide cache of the heads of remote repositories, shared by the jobs that poll without a workspace.
+ * <p>
+ * Entries are keyed by repository URL and by credentials, with the item group the credentials are resolved from,
+ * and expire after {@link #TTL_SECONDS}. Jobs asking for the heads
+ * of a repository while another job is already listing them wait for that call instead of starting their own, even
+ * when listings are not reused. A job is never answered twice with the same listing, so that a job polling again always
+ * gets heads listed after its previous poll.
+ * A push notification for a repository drops its entries.
+ */
+@Restricted(NoExternalUse.class)
+public class RemoteHeadsCache {
+
+    private static final Logger LOGGER = Logger.getLogger(RemoteHeadsCache.class.getName());
+
+    /**
+     * How long the heads of a repository are reused, 0 to only share the listings running concurrently.
+     * <p>
+     * -Dhudson.plugins.git.RemoteHeadsCache.ttlSeconds=10 on command line
+     */
+    static /* not final */ long TTL_SECONDS = SystemProperties.getLong(RemoteHeadsCache.class.getName() + ".ttlSeconds", 10L);
+
+    private static final RemoteHeadsCache INSTANCE = new RemoteHeadsCache();
+
+    /**
+     * Entries by {@link GitStatus#looseMatchKey(URIish) loose match key}, then by the cache key, so that a
+     * notification drops every entry of a repository. The loose match key is only used to find the entries to drop.
+     */
+    private final Map<String, Map<String, Entry>> entries = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    private final AtomicLong shared = new AtomicLong();
+
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private final AtomicLong totalHitAgeMs = new AtomicLong();
+
+    private final AtomicLong maxHitAgeMs = new AtomicLong();
+
+    RemoteHeadsCache() {
+    }
+
+    /**
+     * Lists the heads of a remote repository.
+     */
+    @FunctionalInterface
+    public interface HeadsLoader {
+        Map<String, ObjectId> load() throws GitException, InterruptedException;
+    }
+
+    @NonNull
+    public static RemoteHeadsCache get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns the heads of a remote repository, from the cache if they were listed recently from the same URL with
+     * the same credentials.
+     *
+     * @param uri the repository uri.
+     * @param credentialsId the credentials used to list the heads.
+     * @param credentialsContext the full name of the item group the credentials are resolved from, as credentials with
+     * the same id may differ from one folder to another.
+     * @param job the full name of the polling job.
+     * @param loader lists the heads when they are not cached.
+     * @return a copy of the heads, that the caller may modify.
+     * @throws GitException if listing the heads failed.
+     * @throws InterruptedException if interrupted.
+     */
+    @CheckForNull
+    public Map<String, ObjectId> getHeads(@NonNull URIish uri, @CheckForNull String credentialsId,
+                                          @NonNull String credentialsContext, @NonNull String job,
+                                          @NonNull HeadsLoader loader) throws GitException, InterruptedException {
+        Map<String, Entry> bucket = entries.computeIfAbsent(GitStatus.looseMatchKey(uri), k -> new ConcurrentHashMap<>());
+        String key = cacheKey(uri) + "#" + (credentialsId == null ? "" : credentialsId + "@" + credentialsContext);
+        long now = System.currentTimeMillis();
+        Entry[] created = new Entry[1];
+        Entry entry = bucket.compute(key, (k, old) -> {
+            if (old != null && (!old.heads.isDone() || (old.isFresh(now) && !old.jobs.contains(job)))) {
+                return old;
+            }
+            created[0] = new Entry();
+            return created[0];
+        });
+        entry.jobs.add(job);
+        if (entry == created[0]) {
+            misses.incrementAndGet();
+            return load(bucket, key, entry, loader);
+        }
+        if (entry.heads.isDone()) {
+            long ageMs = now - entry.loadedMs;
+            hits.incrementAndGet();
+            totalHitAgeMs.addAndGet(ageMs);
+            maxHitAgeMs.accumulateAndGet(ageMs, Math::max);
+        } else {
+            shared.incrementAndGet();
+        }
+        return copy(await(entry));
+    }
+
+    /**
+     * @param uri the repository uri.
+     * @return the URL with the host in lower case and without a trailing slash or {@code .git}, keeping the scheme,
+     * the user and the port.
+     */
+    @NonNull
+    static String cacheKey(@NonNull URIish uri) {
+        String path = StringUtils.removeEnd(StringUtils.removeEnd(StringUtils.defaultString(uri.getPath()), "/"), ".git");
+        return StringUtils.defaultString(uri.getScheme()) + "://" + StringUtils.defaultString(uri.getUser()) + "@"
+                + StringUtils.lowerCase(StringUtils.defaultString(uri.getHost())) + ":" + uri.getPort() + "/"
+                + StringUtils.removeStart(path, "/");
+    }
+
+    private Map<String, ObjectId> load(Map<String, Entry> bucket, String key, Entry entry, HeadsLoader loader)
+            throws GitException, InterruptedException {
+        Map<String, ObjectId> heads;
+        try {
+            heads = loader.load();
+        } catch (GitException | InterruptedException | RuntimeException e) {
+            bucket.remove(key, entry);
+            entry.heads.completeExceptionally(e);
+            throw e;
+        }
+        entry.loadedMs = System.currentTimeMillis();
+        entry.heads.complete(heads == null ? null : Collections.unmodifiableMap(new HashMap<>(heads)));
+        if (heads == null || heads.isEmpty()) {
+            // not worth keeping, and polling treats it as a failure
+            bucket.remove(key, entry);
+        }
+        prune(entry.loadedMs);
+        return heads;
+    }
+
+    private static Map<String, ObjectId> await(Entry entry) throws GitException, InterruptedException {
+        try {
+            return entry.heads.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof GitException ge) {
+                throw new GitException(ge.getMessage(), ge);
+            }
+            if (cause instanceof InterruptedException) {
+                throw new GitException("Shared listing of remote heads was interrupted", cause);
+            }
+            throw new GitException(cause);
+        }
+    }
+
+    @CheckForNull
+    private static Map<String, ObjectId> copy(@CheckForNull Map<String, ObjectId> heads) {
+        return heads == null ? null : new HashMap<>(heads);
+    }
+
+    private void prune(long now) {
+        for (Map<String, Entry> bucket : entries.values()) {
+            bucket.values().removeIf(e -> e.heads.isDone() && !e.isFresh(now));
+        }
+        entries.values().removeIf(Map::isEmpty);
+    }
+
+    /**
+     * Drops the cached heads of a repository, whatever the credentials they were listed with.
+     *
+     * @param uri the repository uri.
+     */
+    public void invalidate(@NonNull URIish uri) {
+        if (entries.remove(GitStatus.looseMatchKey(uri)) != null) {
+            invalidations.incrementAndGet();
+            if (LOGGER.isLoggable(Level.FINE)) {
+                LOGGER.log(Level.FINE, "Dropped cached remote heads of {0}", uri);
+            }
+        }
+    }
+
+    /**
+     * @return the number of calls answered from a cached listing.
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * @return the number of calls that listed the remote heads.
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * @return the number of calls that waited for a listing started by another call.
+     */
+    public long getSharedCount() {
+        return shared.get();
+    }
+
+    /**
+     * @return the number of times a notification dropped cached heads.
+     */
+    public long getInvalidationCount() {
+        return invalidations.get();
+    }
+
+    /**
+     * @return the mean age of the listings returned by cache hits, in milliseconds.
+     */
+    public long getAverageHitAgeMs() {
+        long count = hits.get();
+        return count == 0 ? 0 : totalHitAgeMs.get() / count;
+    }
+
+    /**
+     * @return the oldest listing returned by a cache hit, in milliseconds.
+     */
+    public long getMaxHitAgeMs() {
+        return maxHitAgeMs.get();
+    }
+
+    /**
+     * @return the statistics of the cache since startup, as JSON.
+     */
+    @NonNull
+    public JSONObject toJSON() {
+        JSONObject hitAge = new JSONObject();
+        hitAge.put("averageMs", getAverageHitAgeMs());
+        hitAge.put("maxMs", getMaxHitAgeMs());
+        JSONObject json = new JSONObject();
+        json.put("ttlSeconds", TTL_SECONDS);
+        json.put("hits", getHitCount());
+        json.put("misses", getMissCount());
+        json.put("shared", getSharedCount());
+        json.put("invalidations", getInvalidationCount());
+        json.put("hitAge", hitAge);
+        return json;
+    }
+
+    private static final class Entry {
+        private final CompletableFuture<Map<String, ObjectId>> heads = new CompletableFuture<>();
+        /**
+         * Full names of the jobs answered with this listing.
+         */
+        private final Set<String> jobs = ConcurrentHashMap.newKeySet();
+        private volatile long loadedMs;
+
+        boolean isFresh(long now) {
+            return heads.isDone() && !heads.isCompletedExceptionally()
+                    && now - loadedMs < TimeUnit.SECONDS.toMillis(TTL_SECONDS);
+        }
+    }
+}
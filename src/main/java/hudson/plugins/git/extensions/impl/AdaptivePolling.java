@@ -0,0 +1,143 @@
+package hudson.plugins.git.extensions.impl;
+
+import hudson.Extension;
+import hudson.model.Job;
+import hudson.model.TaskListener;
+import hudson.plugins.git.GitSCM;
+import hudson.plugins.git.extensions.FakeGitSCMExtension;
+import hudson.plugins.git.extensions.GitSCMExtensionDescriptor;
+import hudson.plugins.git.util.AdaptivePollingHistory;
+import hudson.scm.PollingResult;
+import hudson.util.FormValidation;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import org.jenkinsci.Symbol;
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.QueryParameter;
+
+/**
+ * Stretches the interval between the polls of a repository while polling finds no changes, and shrinks it back when
+ * polling finds changes or a push notification is received.
+ * <p>
+ * Polls that come earlier than the current interval report no changes without contacting the repository.
+ */
+public class AdaptivePolling extends FakeGitSCMExtension {
+
+    private final int minIntervalMinutes;
+
+    private final int maxIntervalMinutes;
+
+    @DataBoundConstructor
+    public AdaptivePolling(int minIntervalMinutes, int maxIntervalMinutes) {
+        this.minIntervalMinutes = Math.max(1, minIntervalMinutes);
+        this.maxIntervalMinutes = Math.max(this.minIntervalMinutes, maxIntervalMinutes);
+    }
+
+    public int getMinIntervalMinutes() {
+        return minIntervalMinutes;
+    }
+
+    public int getMaxIntervalMinutes() {
+        return maxIntervalMinutes;
+    }
+
+    /**
+     * Tells whether a poll should contact the repository.
+     *
+     * @param scm the SCM being polled.
+     * @param job the job being polled.
+     * @param listener the polling log.
+     * @return {@code false} if the current interval has not elapsed since the last poll.
+     */
+    public boolean isPollDue(GitSCM scm, Job<?, ?> job, TaskListener listener) {
+        AdaptivePollingHistory history = AdaptivePollingHistory.forJob(job);
+        AdaptivePollingHistory.Remote remote = history.getRemote(scm);
+        long waitMs = remote.getNextPollMs() - System.currentTimeMillis();
+        if (waitMs <= 0) {
+            return true;
+        }
+        history.skipped(remote);
+        listener.getLogger().println("[poll] Skipping poll, no changes found in the last " + remote.getQuietPolls()
+                + " polls; next poll in " + TimeUnit.MILLISECONDS.toMinutes(waitMs) + " min");
+        return false;
+    }
+
+    /**
+     * Records the result of a poll that contacted the repository and adjusts the interval.
+     *
+     * @param scm the SCM being polled.
+     * @param job the job being polled.
+     * @param result the polling result.
+     */
+    public void recordPoll(GitSCM scm, Job<?, ?> job, PollingResult result) {
+        AdaptivePollingHistory history = AdaptivePollingHistory.forJob(job);
+        history.polled(job, history.getRemote(scm), result.hasChanges(),
+                TimeUnit.MINUTES.toMillis(minIntervalMinutes), TimeUnit.MINUTES.toMillis(maxIntervalMinutes));
+    }
+
+    /**
+     * Makes the next poll contact the repository, as a push notification was received for it.
+     *
+     * @param scm the notified SCM.
+     * @param job the notified job.
+     */
+    public void reset(GitSCM scm, Job<?, ?> job) {
+        AdaptivePollingHistory history = AdaptivePollingHistory.forJob(job);
+        history.notified(job, history.getRemote(scm), TimeUnit.MINUTES.toMillis(minIntervalMinutes));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        AdaptivePolling that = (AdaptivePolling) o;
+        return minIntervalMinutes == that.minIntervalMinutes && maxIntervalMinutes == that.maxIntervalMinutes;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(minIntervalMinutes, maxIntervalMinutes);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "AdaptivePolling{" +
+                "minIntervalMinutes=" + minIntervalMinutes +
+                ", maxIntervalMinutes=" + maxIntervalMinutes +
+                '}';
+    }
+
+    @Extension
+    @Symbol("adaptivePolling")
+    public static class DescriptorImpl extends GitSCMExtensionDescriptor {
+
+        public FormValidation doCheckMaxIntervalMinutes(@QueryParameter int minIntervalMinutes,
+                                                        @QueryParameter int maxIntervalMinutes) {
+            if (maxIntervalMinutes < minIntervalMinutes) {
+                return FormValidation.error("The maximum interval must not be shorter than the minimum interval");
+            }
+            return FormValidation.ok();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String getDisplayName() {
+            return "Adapt polling interval to repository activity";
+        }
+    }
+}
@@ -10,6 +10,7 @@ import hudson.plugins.git.extensions.GitSCMExtensionDescriptor;
 import hudson.plugins.git.util.BuildData;
 import org.jenkinsci.plugins.gitclient.GitClient;
 import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
 
 import java.util.ArrayList;
 import java.util.Collection;
@@ -27,13 +28,14 @@ import java.util.regex.Pattern;
 public class PathRestriction extends GitSCMExtension {
     private final String includedRegions;
     private final String excludedRegions;
+    private boolean pollOnController;
 
     // compiled cache
     private transient volatile List<Pattern> includedPatterns,excludedPatterns;
 
     @Override
     public boolean requiresWorkspaceForPolling() {
-        return true;
+        return !pollOnController;
     }
 
     @DataBoundConstructor
@@ -50,6 +52,18 @@ public class PathRestriction extends GitSCMExtension {
         return excludedRegions;
     }
 
+    /**
+     * @return {@code true} if commits are evaluated in a cache repository on the controller rather than in a workspace.
+     */
+    public boolean isPollOnController() {
+        return pollOnController;
+    }
+
+    @DataBoundSetter
+    public void setPollOnController(boolean pollOnController) {
+        this.pollOnController = pollOnController;
+    }
+
     public String[] getExcludedRegionsNormalized() {
         return normalize(excludedRegions);
     }
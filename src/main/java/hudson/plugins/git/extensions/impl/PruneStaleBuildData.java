@@ -0,0 +1,185 @@
+package hudson.plugins.git.extensions.impl;
+
+import hudson.Extension;
+import hudson.model.Job;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.plugins.git.Branch;
+import hudson.plugins.git.GitException;
+import hudson.plugins.git.GitSCM;
+import hudson.plugins.git.extensions.GitSCMExtension;
+import hudson.plugins.git.extensions.GitSCMExtensionDescriptor;
+import hudson.plugins.git.util.Build;
+import hudson.plugins.git.util.BuildData;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.lang3.StringUtils;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.transport.RemoteConfig;
+import org.jenkinsci.Symbol;
+import org.jenkinsci.plugins.gitclient.GitClient;
+import org.kohsuke.stapler.DataBoundConstructor;
+
+/**
+ * Drops from the build data the branches that no longer exist in the remotes, so that they are not copied into every
+ * following build.
+ * <p>
+ * Branches are looked up in the remote-tracking branches of the workspace after the fetch, which only drops deleted
+ * branches when they are pruned, see {@link PruneStaleBranch}. The most recently built stale branches, and those built
+ * in the last days, can be kept.
+ */
+public class PruneStaleBuildData extends GitSCMExtension {
+
+    private final int keepMostRecent;
+
+    private final int keepDays;
+
+    /**
+     * @param keepMostRecent number of stale branches to keep, the most recently built first.
+     * @param keepDays number of days during which built stale branches are kept.
+     */
+    @DataBoundConstructor
+    public PruneStaleBuildData(int keepMostRecent, int keepDays) {
+        this.keepMostRecent = Math.max(0, keepMostRecent);
+        this.keepDays = Math.max(0, keepDays);
+    }
+
+    public int getKeepMostRecent() {
+        return keepMostRecent;
+    }
+
+    public int getKeepDays() {
+        return keepDays;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onCheckoutCompleted(GitSCM scm, Run<?, ?> build, GitClient git, TaskListener listener)
+            throws IOException, InterruptedException, GitException {
+        BuildData buildData = scm.getBuildData(build);
+        if (buildData == null) {
+            return;
+        }
+        if (scm.getExtensions().get(PruneStaleBranch.class) == null) {
+            listener.getLogger().println("[prune] Remote-tracking branches are not pruned, deleted branches may be kept in build data");
+        }
+        Set<String> remotes = new HashSet<>();
+        for (RemoteConfig remote : scm.getRepositories()) {
+            remotes.add(remote.getName());
+        }
+        Set<String> existing = new HashSet<>();
+        for (Branch branch : git.getRemoteBranches()) {
+            existing.add(branch.getName());
+        }
+        Map<String, Build> builds = buildData.buildsByBranchName;
+        List<Map.Entry<String, Build>> stale = new ArrayList<>();
+        for (Map.Entry<String, Build> entry : builds.entrySet()) {
+            String name = StringUtils.removeStart(entry.getKey(), Constants.R_REMOTES);
+            int slash = name.indexOf('/');
+            // other entries, such as tags, are not remote-tracking branches
+            if (slash > 0 && remotes.contains(name.substring(0, slash)) && !existing.contains(name)
+                    && entry.getValue() != buildData.lastBuild) {
+                stale.add(entry);
+            }
+        }
+        if (stale.isEmpty()) {
+            return;
+        }
+        stale.sort(Comparator.comparingInt((Map.Entry<String, Build> e) -> e.getValue().getBuildNumber()).reversed());
+        int firstKeptNumber = keepDays > 0 ? firstBuildSince(build.getParent(), keepDays) : Integer.MAX_VALUE;
+        int before = builds.size();
+        for (int i = keepMostRecent; i < stale.size(); i++) {
+            if (stale.get(i).getValue().getBuildNumber() < firstKeptNumber) {
+                builds.remove(stale.get(i).getKey());
+            }
+        }
+        if (builds.size() < before) {
+            listener.getLogger().println("[prune] Pruned " + (before - builds.size()) + " stale branches from build data, "
+                    + before + " -> " + builds.size() + " branches");
+        }
+    }
+
+    /**
+     * Looks for the first build started in the last days with a binary search on the build numbers, as build numbers
+     * and start times grow together, so that only a few builds are loaded.
+     *
+     * @return the number of the first build of the job started in the last days.
+     */
+    private static int firstBuildSince(Job<?, ?> job, int days) {
+        long since = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(days);
+        Run<?, ?> last = job.getLastBuild();
+        if (last == null || last.getTimeInMillis() < since) {
+            return Integer.MAX_VALUE;
+        }
+        Run<?, ?> first = job.getFirstBuild();
+        int low = first == null ? last.getNumber() : first.getNumber();
+        int high = last.getNumber();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            // not null, the last build comes after
+            Run<?, ?> run = job.getNearestBuild(middle);
+            if (run.getTimeInMillis() >= since) {
+                high = middle;
+            } else {
+                low = run.getNumber() + 1;
+            }
+        }
+        Run<?, ?> run = job.getNearestBuild(low);
+        return run == null ? last.getNumber() : run.getNumber();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        PruneStaleBuildData that = (PruneStaleBuildData) o;
+        return keepMostRecent == that.keepMostRecent && keepDays == that.keepDays;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        return Objects.hash(keepMostRecent, keepDays);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return "PruneStaleBuildData{" +
+                "keepMostRecent=" + keepMostRecent +
+                ", keepDays=" + keepDays +
+                '}';
+    }
+
+    @Extension
+    @Symbol("pruneStaleBuildData")
+    public static class DescriptorImpl extends GitSCMExtensionDescriptor {
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String getDisplayName() {
+            return "Prune stale branches from build data";
+        }
+    }
+}
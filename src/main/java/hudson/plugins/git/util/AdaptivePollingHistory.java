@@ -0,0 +1,249 @@
+package hudson.plugins.git.util;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.XmlFile;
+import hudson.model.Job;
+import hudson.plugins.git.GitSCM;
+import hudson.plugins.git.GitStatus;
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.WeakHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.model.Jenkins;
+import org.eclipse.jgit.transport.RemoteConfig;
+import org.eclipse.jgit.transport.URIish;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * Polling history of the remotes of a job, used by {@link hudson.plugins.git.extensions.impl.AdaptivePolling} to
+ * decide when the next poll is due.
+ * <p>
+ * Stored in {@code git-polling-history.xml} in the job directory, so that the intervals survive a restart. The file is
+ * written when a poll contacts the repository or a notification is received; skipped polls are only counted in memory
+ * until then.
+ * <p>
+ * Histories are cached by job without referring to it, so that the history of a deleted job can be collected along
+ * with it.
+ */
+@Restricted(NoExternalUse.class)
+public class AdaptivePollingHistory {
+
+    private static final Logger LOGGER = Logger.getLogger(AdaptivePollingHistory.class.getName());
+
+    private static final String FILE_NAME = "git-polling-history.xml";
+
+    private static final Map<Job<?, ?>, AdaptivePollingHistory> HISTORIES = Collections.synchronizedMap(new WeakHashMap<>());
+
+    /**
+     * Remotes by the sorted {@link GitStatus#looseMatchKey(URIish) loose match keys} of their repositories.
+     */
+    private final Map<String, Remote> remotes = new HashMap<>();
+
+    private AdaptivePollingHistory() {
+    }
+
+    /**
+     * @param job the job.
+     * @return the polling history of the job, loaded from disk the first time.
+     */
+    @NonNull
+    public static AdaptivePollingHistory forJob(@NonNull Job<?, ?> job) {
+        synchronized (HISTORIES) {
+            AdaptivePollingHistory history = HISTORIES.get(job);
+            if (history == null) {
+                history = load(job);
+                HISTORIES.put(job, history);
+            }
+            return history;
+        }
+    }
+
+    private static AdaptivePollingHistory load(Job<?, ?> job) {
+        XmlFile file = getFile(job);
+        AdaptivePollingHistory history = null;
+        if (file.exists()) {
+            try {
+                history = (AdaptivePollingHistory) file.read();
+            } catch (IOException | ClassCastException e) {
+                LOGGER.log(Level.WARNING, "Failed to load polling history of " + job.getFullName() + ", starting afresh", e);
+            }
+        }
+        if (history == null) {
+            history = new AdaptivePollingHistory();
+        }
+        return history;
+    }
+
+    private static XmlFile getFile(Job<?, ?> job) {
+        return new XmlFile(Jenkins.XSTREAM2, new File(job.getRootDir(), FILE_NAME));
+    }
+
+    /**
+     * @param scm the SCM.
+     * @return the history of the remotes of the SCM.
+     */
+    @NonNull
+    public synchronized Remote getRemote(@NonNull GitSCM scm) {
+        TreeSet<String> keys = new TreeSet<>();
+        for (RemoteConfig repository : scm.getRepositories()) {
+            for (URIish uri : repository.getURIs()) {
+                keys.add(GitStatus.looseMatchKey(uri));
+            }
+        }
+        return remotes.computeIfAbsent(String.join(" ", keys), k -> new Remote());
+    }
+
+    /**
+     * @return the history of each remote of the job, by repository.
+     */
+    @NonNull
+    public synchronized Map<String, Remote> getRemotes() {
+        return new HashMap<>(remotes);
+    }
+
+    /**
+     * @return the number of polls that were skipped over all the remotes of the job.
+     */
+    public synchronized long getSkippedCount() {
+        long skipped = 0;
+        for (Remote remote : remotes.values()) {
+            skipped += remote.getSkippedCount();
+        }
+        return skipped;
+    }
+
+    /**
+     * Records a poll answered without contacting the repository. The interval does not change, so the history is not
+     * saved.
+     *
+     * @param remote the polled remote.
+     */
+    public void skipped(@NonNull Remote remote) {
+        remote.skip();
+    }
+
+    /**
+     * Records a poll that contacted the repository and adjusts the interval.
+     *
+     * @param job the polled job.
+     * @param remote the polled remote.
+     * @param hasChanges whether the poll found changes.
+     * @param minIntervalMs the shortest interval between polls.
+     * @param maxIntervalMs the longest interval between polls.
+     */
+    public void polled(@NonNull Job<?, ?> job, @NonNull Remote remote, boolean hasChanges, long minIntervalMs,
+                       long maxIntervalMs) {
+        remote.poll(hasChanges, minIntervalMs, maxIntervalMs);
+        save(job);
+    }
+
+    /**
+     * Makes the next poll of a remote contact the repository.
+     *
+     * @param job the notified job.
+     * @param remote the notified remote.
+     * @param minIntervalMs the shortest interval between polls.
+     */
+    public void notified(@NonNull Job<?, ?> job, @NonNull Remote remote, long minIntervalMs) {
+        remote.reset(minIntervalMs);
+        save(job);
+    }
+
+    /**
+     * Writes the history to the directory of its job.
+     *
+     * @param job the job of this history.
+     */
+    public synchronized void save(@NonNull Job<?, ?> job) {
+        XmlFile file = getFile(job);
+        try {
+            file.write(this);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to save polling history of " + job.getFullName(), e);
+        }
+    }
+
+    /**
+     * Polling history of the remotes of one {@link GitSCM}.
+     */
+    public static final class Remote {
+        private long intervalMs;
+        private long lastPollMs;
+        private long polls;
+        private long changes;
+        private long skipped;
+        private int quietPolls;
+
+        /**
+         * @return when the next poll is due, 0 if it is due now.
+         */
+        public synchronized long getNextPollMs() {
+            return intervalMs == 0 ? 0 : lastPollMs + intervalMs;
+        }
+
+        /**
+         * @return the current interval between polls, in milliseconds.
+         */
+        public synchronized long getIntervalMs() {
+            return intervalMs;
+        }
+
+        /**
+         * @return the number of polls that contacted the repository.
+         */
+        public synchronized long getPollCount() {
+            return polls;
+        }
+
+        /**
+         * @return the number of polls that found changes.
+         */
+        public synchronized long getChangeCount() {
+            return changes;
+        }
+
+        /**
+         * @return the number of polls answered without contacting the repository.
+         */
+        public synchronized long getSkippedCount() {
+            return skipped;
+        }
+
+        /**
+         * @return the number of polls without changes since the last poll that found changes.
+         */
+        public synchronized int getQuietPolls() {
+            return quietPolls;
+        }
+
+        synchronized void skip() {
+            skipped++;
+        }
+
+        synchronized void poll(boolean hasChanges, long minIntervalMs, long maxIntervalMs) {
+            polls++;
+            lastPollMs = System.currentTimeMillis();
+            if (hasChanges) {
+                changes++;
+                quietPolls = 0;
+                intervalMs = minIntervalMs;
+            } else {
+                quietPolls++;
+                intervalMs = Math.min(maxIntervalMs, Math.max(minIntervalMs, intervalMs * 2));
+            }
+        }
+
+        synchronized void reset(long minIntervalMs) {
+            quietPolls = 0;
+            intervalMs = minIntervalMs;
+            // let the poll triggered by the notification through
+            lastPollMs = 0;
+        }
+    }
+}
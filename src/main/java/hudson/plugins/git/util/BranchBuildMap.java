@@ -0,0 +1,377 @@
+package hudson.plugins.git.util;
+
+import com.thoughtworks.xstream.converters.Converter;
+import com.thoughtworks.xstream.converters.MarshallingContext;
+import com.thoughtworks.xstream.converters.UnmarshallingContext;
+import com.thoughtworks.xstream.io.HierarchicalStreamReader;
+import com.thoughtworks.xstream.io.HierarchicalStreamWriter;
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.UnaryOperator;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+import static hudson.Util.fixNull;
+
+/**
+ * Builds by branch name of a {@link BuildData}, held as the branches changed since a {@link BuildDataSnapshots
+ * snapshot} of the job, so that only those are written to {@code build.xml} and the snapshot is shared in memory by the
+ * builds referring to it.
+ * <p>
+ * The snapshot is only referred to by its identifier in {@code build.xml}, {@link BuildData#onLoad} resolves it.
+ */
+@Restricted(NoExternalUse.class)
+public final class BranchBuildMap extends AbstractMap<String, Build> implements Serializable {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Identifier of the snapshot, {@code null} if there is none.
+     */
+    @CheckForNull
+    private final String baseId;
+
+    /**
+     * Branches of the snapshot, never modified, {@code null} until resolved.
+     */
+    @CheckForNull
+    private Map<String, Build> base;
+
+    /**
+     * Branches added or rebuilt since the snapshot.
+     */
+    private final Map<String, Build> changes;
+
+    /**
+     * Branches of the snapshot that were removed since.
+     */
+    private final Set<String> removed;
+
+    private int size;
+
+    /**
+     * Number of changes made to the branches, so that indexes of the builds notice direct changes to the map.
+     */
+    private transient int modCount;
+
+    private transient Set<Entry<String, Build>> entrySet;
+
+    private BranchBuildMap(@CheckForNull String baseId, @CheckForNull Map<String, Build> base,
+                           @NonNull Map<String, Build> changes, @NonNull Set<String> removed) {
+        this.baseId = baseId;
+        this.changes = changes;
+        this.removed = removed;
+        resolve(base);
+    }
+
+    /**
+     * Holds builds by branch name as the branches changed since a snapshot.
+     *
+     * @param baseId the identifier of the snapshot.
+     * @param base the branches of the snapshot.
+     * @param builds the builds by branch name.
+     * @return the builds, sharing the snapshot entries they did not change.
+     */
+    @NonNull
+    public static BranchBuildMap rebase(@NonNull String baseId, @NonNull Map<String, Build> base,
+                                        @NonNull Map<String, Build> builds) {
+        Map<String, Build> changes = new HashMap<>();
+        for (Entry<String, Build> entry : builds.entrySet()) {
+            String branch = fixNull(entry.getKey());
+            if (!Objects.equals(base.get(branch), entry.getValue()) || !base.containsKey(branch)) {
+                changes.put(branch, entry.getValue());
+            }
+        }
+        Set<String> removed = new HashSet<>();
+        for (String branch : base.keySet()) {
+            if (!builds.containsKey(branch)) {
+                removed.add(branch);
+            }
+        }
+        return new BranchBuildMap(baseId, base, changes, removed);
+    }
+
+    /**
+     * @param cloner applied to each build changed since the snapshot, the builds of the snapshot being shared.
+     * @return a copy referring to the same snapshot.
+     */
+    @NonNull
+    BranchBuildMap copy(@NonNull UnaryOperator<Build> cloner) {
+        Map<String, Build> copiedChanges = new HashMap<>();
+        for (Entry<String, Build> entry : changes.entrySet()) {
+            copiedChanges.put(entry.getKey(), cloner.apply(entry.getValue()));
+        }
+        return new BranchBuildMap(baseId, base, copiedChanges, new HashSet<>(removed));
+    }
+
+    /**
+     * Supplies the branches of the snapshot this map was read with.
+     *
+     * @param base the branches of the snapshot, {@code null} if it could not be read.
+     */
+    void resolve(@CheckForNull Map<String, Build> base) {
+        this.base = base;
+        modCount++;
+        int count = changes.size();
+        if (base != null) {
+            for (String branch : base.keySet()) {
+                if (!changes.containsKey(branch) && !removed.contains(branch)) {
+                    count++;
+                }
+            }
+        }
+        this.size = count;
+    }
+
+    /**
+     * @return {@code false} if the snapshot has not been supplied since this map was read.
+     */
+    boolean isResolved() {
+        return baseId == null || base != null;
+    }
+
+    /**
+     * @return the identifier of the snapshot, {@code null} if there is none.
+     */
+    @CheckForNull
+    public String getBaseId() {
+        return baseId;
+    }
+
+    /**
+     * @return the number of branches written to {@code build.xml}, added, rebuilt or removed since the snapshot.
+     */
+    public int getDeltaSize() {
+        return changes.size() + removed.size();
+    }
+
+    /**
+     * @return a number that changes whenever a branch is added, removed or given another build.
+     */
+    int getModCount() {
+        return modCount;
+    }
+
+    private boolean inBase(Object branch) {
+        return base != null && base.containsKey(branch) && !removed.contains(branch);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean containsKey(Object branch) {
+        return changes.containsKey(branch) || inBase(branch);
+    }
+
+    @Override
+    public Build get(Object branch) {
+        Build build = changes.get(branch);
+        if (build != null || changes.containsKey(branch)) {
+            return build;
+        }
+        return inBase(branch) ? base.get(branch) : null;
+    }
+
+    @Override
+    public Build put(String branch, Build build) {
+        boolean present = containsKey(branch);
+        Build previous = get(branch);
+        changes.put(branch, build);
+        removed.remove(branch);
+        if (!present) {
+            size++;
+        }
+        modCount++;
+        return previous;
+    }
+
+    @Override
+    public Build remove(Object branch) {
+        if (!containsKey(branch)) {
+            return null;
+        }
+        Build previous = get(branch);
+        changes.remove(branch);
+        if (base != null && base.containsKey(branch)) {
+            removed.add((String) branch);
+        }
+        size--;
+        modCount++;
+        return previous;
+    }
+
+    @Override
+    public void clear() {
+        changes.clear();
+        if (base != null) {
+            removed.addAll(base.keySet());
+        }
+        size = 0;
+        modCount++;
+    }
+
+    @NonNull
+    @Override
+    public Set<Entry<String, Build>> entrySet() {
+        Set<Entry<String, Build>> entries = entrySet;
+        if (entries == null) {
+            entries = new AbstractSet<>() {
+                @NonNull
+                @Override
+                public Iterator<Entry<String, Build>> iterator() {
+                    return new EntryIterator();
+                }
+
+                @Override
+                public int size() {
+                    return size;
+                }
+            };
+            entrySet = entries;
+        }
+        return entries;
+    }
+
+    /**
+     * Iterates over the changed branches, then over the branches of the snapshot that were neither changed nor removed.
+     */
+    private final class EntryIterator implements Iterator<Entry<String, Build>> {
+        private final Iterator<Entry<String, Build>> changed = changes.entrySet().iterator();
+        private final Iterator<Entry<String, Build>> inherited =
+                base == null ? Collections.emptyIterator() : base.entrySet().iterator();
+        private Entry<String, Build> pending;
+        private Entry<String, Build> current;
+        private boolean currentChanged;
+
+        @Override
+        public boolean hasNext() {
+            return changed.hasNext() || nextInherited();
+        }
+
+        private boolean nextInherited() {
+            while (pending == null && inherited.hasNext()) {
+                Entry<String, Build> entry = inherited.next();
+                if (!changes.containsKey(entry.getKey()) && !removed.contains(entry.getKey())) {
+                    pending = entry;
+                }
+            }
+            return pending != null;
+        }
+
+        @Override
+        public Entry<String, Build> next() {
+            if (changed.hasNext()) {
+                Entry<String, Build> entry = changed.next();
+                current = new SimpleEntry<>(entry) {
+                    @Override
+                    public Build setValue(Build value) {
+                        super.setValue(value);
+                        modCount++;
+                        return entry.setValue(value);
+                    }
+                };
+                currentChanged = true;
+                return current;
+            }
+            if (!nextInherited()) {
+                throw new NoSuchElementException();
+            }
+            // the snapshot is shared, a new value goes to the changes
+            current = new SimpleEntry<>(pending) {
+                @Override
+                public Build setValue(Build value) {
+                    super.setValue(value);
+                    return put(getKey(), value);
+                }
+            };
+            currentChanged = false;
+            pending = null;
+            return current;
+        }
+
+        @Override
+        public void remove() {
+            if (current == null) {
+                throw new IllegalStateException();
+            }
+            if (currentChanged) {
+                changed.remove();
+                if (base != null && base.containsKey(current.getKey())) {
+                    removed.add(current.getKey());
+                }
+            } else {
+                removed.add(current.getKey());
+            }
+            size--;
+            modCount++;
+            current = null;
+        }
+    }
+
+    /**
+     * Writes the snapshot identifier as the {@code base} attribute, then one {@code entry} element per changed branch
+     * and one {@code removed} element per removed branch.
+     */
+    public static final class ConverterImpl implements Converter {
+
+        @Override
+        public boolean canConvert(Class type) {
+            return type == BranchBuildMap.class;
+        }
+
+        @Override
+        public void marshal(Object source, HierarchicalStreamWriter writer, MarshallingContext context) {
+            BranchBuildMap map = (BranchBuildMap) source;
+            if (map.baseId != null) {
+                writer.addAttribute("base", map.baseId);
+            }
+            for (Entry<String, Build> entry : map.changes.entrySet()) {
+                if (entry.getValue() == null) {
+                    continue;
+                }
+                writer.startNode("entry");
+                writer.addAttribute("branch", entry.getKey());
+                context.convertAnother(entry.getValue());
+                writer.endNode();
+            }
+            for (String branch : map.removed) {
+                writer.startNode("removed");
+                writer.setValue(branch);
+                writer.endNode();
+            }
+        }
+
+        @Override
+        public Object unmarshal(HierarchicalStreamReader reader, UnmarshallingContext context) {
+            String baseId = reader.getAttribute("base");
+            Map<String, Build> changes = new HashMap<>();
+            Set<String> removed = new HashSet<>();
+            while (reader.hasMoreChildren()) {
+                reader.moveDown();
+                if ("entry".equals(reader.getNodeName())) {
+                    String branch = fixNull(reader.getAttribute("branch"));
+                    changes.put(branch, (Build) context.convertAnother(changes, Build.class));
+                } else if ("removed".equals(reader.getNodeName())) {
+                    removed.add(reader.getValue());
+                }
+                reader.moveUp();
+            }
+            return new BranchBuildMap(baseId, null, changes, removed);
+        }
+    }
+}
@@ -3,7 +3,6 @@ package hudson.plugins.git.util;
 import edu.umd.cs.findbugs.annotations.CheckForNull;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import hudson.model.AbstractBuild;
-import hudson.model.Action;
 import hudson.model.Api;
 import hudson.model.Run;
 import hudson.plugins.git.Branch;
@@ -19,6 +18,9 @@ import java.util.IdentityHashMap;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import jenkins.model.RunAction2;
+import jenkins.util.SystemProperties;
 import org.eclipse.jgit.lib.ObjectId;
 import org.kohsuke.accmod.Restricted;
 import org.kohsuke.accmod.restrictions.NoExternalUse;
@@ -28,6 +30,7 @@ import org.kohsuke.stapler.export.Exported;
 import org.kohsuke.stapler.export.ExportedBean;
 
 import static hudson.Util.fixNull;
+import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.logging.Level;
@@ -41,16 +44,35 @@ import java.util.logging.Logger;
  * This persists the Git related information of that build.
  */
 @ExportedBean(defaultVisibility = 999)
-public class BuildData implements Action, Serializable, Cloneable {
+public class BuildData implements RunAction2, Serializable, Cloneable {
     @Serial
     private static final long serialVersionUID = 1L;
 
+    /**
+     * Number of branches from which {@link #buildsByBranchName} is written to {@code build.xml} as the branches changed
+     * since a {@link BuildDataSnapshots snapshot} of the job, 0 to always write all the branches.
+     * <p>
+     * Use {@code -Dhudson.plugins.git.util.BuildData.deltaMinBranches=0} on command line to disable.
+     */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL")
+    static /* not final */ int DELTA_MIN_BRANCHES = SystemProperties.getInteger(BuildData.class.getName() + ".deltaMinBranches", 100);
+
+    /**
+     * Number of branches changed since the snapshot from which a build creates a new snapshot.
+     */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL")
+    static /* not final */ int DELTA_MAX_CHANGES = SystemProperties.getInteger(BuildData.class.getName() + ".deltaMaxChanges", 50);
+
     /**
      * Map of branch {@code name -> build} (Branch name to last built SHA1).
      *
      * <p>
      * This map contains all the branches we've built in the past (including the build that this {@link BuildData}
      * is attached to)
+     *
+     * <p>
+     * Once it reaches {@link #DELTA_MIN_BRANCHES} branches, it is a {@link BranchBuildMap} sharing the branches of a
+     * snapshot of the job.
      */
     @SuppressFBWarnings(value = "PA_PUBLIC_PRIMITIVE_ATTRIBUTE",
                         justification = "Preserve API compatibility")
@@ -83,6 +105,26 @@ public class BuildData implements Action, Serializable, Cloneable {
     @CheckForNull
     private Integer index;
 
+    /**
+     * Builds by the SHA1 of their revision and marked revision, so that {@link #getLastBuild(ObjectId)} does not scan
+     * {@link #buildsByBranchName} once it is a {@link BranchBuildMap}, which counts its changes. Not persisted, created
+     * on first use and dropped whenever the builds change.
+     */
+    private transient volatile Sha1Index sha1Index;
+
+    /**
+     * Normalized {@link #remoteUrls}, so that {@link #similarTo(BuildData)} does not normalize them on every call.
+     * Not persisted, created on first use and shared with clones.
+     */
+    private transient volatile NormalizedUrls normalizedUrls;
+
+    /**
+     * Normalized URLs by URL, interned, shared by all the build data.
+     */
+    private static final Map<String, String> NORMALIZED = new ConcurrentHashMap<>();
+
+    private static final int NORMALIZED_MAX_SIZE = 10_000;
+
     public BuildData() {
     }
 
@@ -93,7 +135,7 @@ public class BuildData implements Action, Serializable, Cloneable {
     public BuildData(String scmName, Collection<UserRemoteConfig> remoteConfigs) {
         this.scmName = scmName;
         for(UserRemoteConfig c : remoteConfigs) {
-            remoteUrls.add(c.getUrl());
+            remoteUrls.add(intern(c.getUrl()));
         }
     }
 
@@ -153,22 +195,86 @@ public class BuildData implements Action, Serializable, Cloneable {
     }
 
     public Object readResolve() {
-        Map<String,Build> newBuildsByBranchName = new HashMap<>();
+        if (!(buildsByBranchName instanceof BranchBuildMap)) {
+            Map<String,Build> newBuildsByBranchName = new HashMap<>();
 
-        for (Map.Entry<String, Build> buildByBranchName : buildsByBranchName.entrySet()) {
-            String branchName = fixNull(buildByBranchName.getKey());
-            Build build = buildByBranchName.getValue();
-            newBuildsByBranchName.put(branchName, build);
-        }
+            for (Map.Entry<String, Build> buildByBranchName : buildsByBranchName.entrySet()) {
+                String branchName = fixNull(buildByBranchName.getKey());
+                Build build = buildByBranchName.getValue();
+                newBuildsByBranchName.put(branchName, build);
+            }
 
-        this.buildsByBranchName = newBuildsByBranchName;
+            this.buildsByBranchName = newBuildsByBranchName;
+        }
 
-        if(this.remoteUrls == null)
+        if(this.remoteUrls == null) {
             this.remoteUrls = new HashSet<>();
+        } else {
+            // every build of a job reads the same few URLs
+            Set<String> internedUrls = new HashSet<>(remoteUrls.size());
+            for (String url : remoteUrls) {
+                internedUrls.add(intern(url));
+            }
+            this.remoteUrls = internedUrls;
+        }
+        this.normalizedUrls = null;
+
+        // built on first lookup rather than for every loaded build
+        this.sha1Index = null;
 
         return this;
     }
 
+    /**
+     * Records the build in the {@link BuildDataIndex} of the job. Creates a new snapshot of the job once the branches
+     * changed since the current one reach {@link #DELTA_MAX_CHANGES}, and records that the build refers to the
+     * snapshot.
+     *
+     * @param r the build this is attached to.
+     */
+    @Override
+    public void onAttached(Run<?, ?> r) {
+        BuildDataIndex.forJob(r.getParent()).record(r.getParent(), remoteUrls, r.getNumber());
+        BranchBuildMap map = buildsByBranchName instanceof BranchBuildMap m && m.isResolved() ? m : null;
+        if (map == null && (DELTA_MIN_BRANCHES <= 0 || buildsByBranchName.size() < DELTA_MIN_BRANCHES)) {
+            return;
+        }
+        BuildDataSnapshots snapshots = BuildDataSnapshots.forJob(r.getParent());
+        if (map == null || map.getBaseId() == null || map.getDeltaSize() > DELTA_MAX_CHANGES) {
+            try {
+                String id = snapshots.create(r, buildsByBranchName);
+                Map<String, Build> base = snapshots.get(r.getParent(), id);
+                if (base != null) {
+                    map = BranchBuildMap.rebase(id, base, buildsByBranchName);
+                    buildsByBranchName = map;
+                }
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Failed to create build data snapshot of " + r.getParent().getFullName(), e);
+            }
+        }
+        if (map != null && map.getBaseId() != null) {
+            snapshots.addReference(r.getParent(), map.getBaseId(), r.getNumber());
+        }
+    }
+
+    /**
+     * Supplies the snapshot {@link #buildsByBranchName} was written against. Build data written with all the branches
+     * are kept as loaded, so that {@code build.xml} is not rewritten in a format older versions cannot read.
+     *
+     * @param r the build this was loaded with.
+     */
+    @Override
+    public void onLoad(Run<?, ?> r) {
+        if (buildsByBranchName instanceof BranchBuildMap map && !map.isResolved()) {
+            Map<String, Build> base = BuildDataSnapshots.forJob(r.getParent()).get(r.getParent(), map.getBaseId());
+            if (base == null) {
+                LOGGER.log(Level.WARNING, "Build data snapshot {0} of {1} is missing, {2} only has the branches it changed",
+                        new Object[]{map.getBaseId(), r.getParent().getFullName(), r});
+            }
+            map.resolve(base == null ? Map.of() : base);
+        }
+    }
+
     /**
      * Return true if the history shows this SHA1 has been built.
      * False otherwise.
@@ -222,23 +328,34 @@ public class BuildData implements Action, Serializable, Cloneable {
             LOGGER.log(Level.FINEST, "lastBuild is null");
         }
 
+        Build b = findBuild(sha1);
+        if (b != null) {
+            LOGGER.log(Level.FINEST, "b.lastBuildRevisionSha1 or b.lastBuildMarkedSha1 matches sha1:{0}, returning b", sha1.getName());
+            return b;
+        }
+        LOGGER.log(Level.FINEST, "No match found in getLastBuild for sha1:{0}, returning null", sha1.getName());
+        return null;
+    }
+
+    @CheckForNull
+    private Build findBuild(ObjectId sha1) {
+        if (buildsByBranchName instanceof BranchBuildMap map) {
+            Sha1Index index = sha1Index;
+            if (index == null || !index.isFor(map)) {
+                index = new Sha1Index(map);
+                sha1Index = index;
+            }
+            return index.builds.get(sha1);
+        }
+        // a plain map does not tell when one of its builds is replaced, so it is scanned
         for (Build b : buildsByBranchName.values()) {
             if (b == null || b.revision == null || b.revision.getSha1() == null) {
                 continue;
             }
-            if (b.revision.getSha1().equals(sha1)) {
-                LOGGER.log(Level.FINEST, "b.lastBuildRevisionSha1 matches sha1:" + sha1.getName() + ", returning b");
-                return b;
-            }
-            if (b.marked == null || b.marked.getSha1() == null) {
-                continue;
-            }
-            if (b.marked.getSha1().equals(sha1)) {
-                LOGGER.log(Level.FINEST, "b.lastBuildMarkedSha1 matches sha1:" + sha1.getName() + ", returning b");
+            if (b.revision.getSha1().equals(sha1) || (b.marked != null && sha1.equals(b.marked.getSha1()))) {
                 return b;
             }
         }
-        LOGGER.log(Level.FINEST, "No match found in getLastBuild for sha1:" + sha1.getName() + ", returning null");
         return null;
     }
 
@@ -250,6 +367,8 @@ public class BuildData implements Action, Serializable, Cloneable {
         for(Branch branch : build.revision.getBranches()) {
             buildsByBranchName.put(fixNull(branch.getName()), build);
         }
+        // the builds the new one replaced may no longer be referenced, rebuild on next lookup
+        sha1Index = null;
     }
 
     public Build getLastBuildOfBranch(String branch) {
@@ -285,7 +404,7 @@ public class BuildData implements Action, Serializable, Cloneable {
     }
 
     public void addRemoteUrl(String remoteUrl) {
-        remoteUrls.add(remoteUrl);
+        remoteUrls.add(intern(remoteUrl));
     }
 
     @Exported
@@ -309,21 +428,27 @@ public class BuildData implements Action, Serializable, Cloneable {
 
         IdentityHashMap<Build, Build> clonedBuilds = new IdentityHashMap<>();
 
-        clone.buildsByBranchName = new HashMap<>();
-        clone.remoteUrls = new HashSet<>();
+        clone.sha1Index = null;
+        clone.remoteUrls = new HashSet<>(remoteUrls);
 
-        for (Map.Entry<String, Build> buildByBranchName : buildsByBranchName.entrySet()) {
-            String branchName = buildByBranchName.getKey();
-            if (branchName == null) {
-                branchName = "";
-            }
-            Build build = buildByBranchName.getValue();
-            Build clonedBuild = clonedBuilds.get(build);
-            if (clonedBuild == null) {
-                clonedBuild = build.clone();
-                clonedBuilds.put(build, clonedBuild);
+        if (buildsByBranchName instanceof BranchBuildMap map) {
+            // the builds of the snapshot are shared, they are never modified
+            clone.buildsByBranchName = map.copy(build -> clonedBuilds.computeIfAbsent(build, Build::clone));
+        } else {
+            clone.buildsByBranchName = new HashMap<>();
+            for (Map.Entry<String, Build> buildByBranchName : buildsByBranchName.entrySet()) {
+                String branchName = buildByBranchName.getKey();
+                if (branchName == null) {
+                    branchName = "";
+                }
+                Build build = buildByBranchName.getValue();
+                Build clonedBuild = clonedBuilds.get(build);
+                if (clonedBuild == null) {
+                    clonedBuild = build.clone();
+                    clonedBuilds.put(build, clonedBuild);
+                }
+                clone.buildsByBranchName.put(branchName, clonedBuild);
             }
-            clone.buildsByBranchName.put(branchName, clonedBuild);
         }
 
         if (lastBuild != null) {
@@ -334,11 +459,6 @@ public class BuildData implements Action, Serializable, Cloneable {
             }
         }
 
-        for(String remoteUrl : getRemoteUrls())
-        {
-            clone.addRemoteUrl(remoteUrl);
-        }
-
         return clone;
     }
 
@@ -366,10 +486,22 @@ public class BuildData implements Action, Serializable, Cloneable {
      * @param url repository URL to be normalized
      * @return normalized URL as a string
      */
-    private String normalize(String url) {
+    private static String normalize(String url) {
         if (url == null) {
             return null;
         }
+        String normalized = NORMALIZED.get(url);
+        if (normalized == null) {
+            if (NORMALIZED.size() >= NORMALIZED_MAX_SIZE) {
+                NORMALIZED.clear();
+            }
+            normalized = computeNormalized(url).intern();
+            NORMALIZED.put(url, normalized);
+        }
+        return normalized;
+    }
+
+    private static String computeNormalized(String url) {
         /* Remove trailing slashes and .git suffix from URL */
         String normalized = url.replaceAll("/+$", "").replaceAll("[.]git$", "");
         if (url.contains("://")) {
@@ -404,15 +536,20 @@ public class BuildData implements Action, Serializable, Cloneable {
         if (!Objects.equals(this.lastBuild, that.lastBuild)) {
             return false;
         }
-        Set<String> thisUrls = new HashSet<>(this.remoteUrls.size());
-        for (String url: this.remoteUrls) {
-            thisUrls.add(normalize(url));
-        }
-        Set<String> thatUrls = new HashSet<>(that.remoteUrls.size());
-        for (String url: that.remoteUrls) {
-            thatUrls.add(normalize(url));
+        return this.getNormalizedUrls().equals(that.getNormalizedUrls());
+    }
+
+    private Set<String> getNormalizedUrls() {
+        NormalizedUrls urls = normalizedUrls;
+        if (urls == null || !urls.isFor(remoteUrls)) {
+            urls = new NormalizedUrls(remoteUrls);
+            normalizedUrls = urls;
         }
-        return thisUrls.equals(thatUrls);
+        return urls.normalized;
+    }
+
+    private static String intern(String url) {
+        return url == null ? null : url.intern();
     }
 
     @Override
@@ -436,6 +573,61 @@ public class BuildData implements Action, Serializable, Cloneable {
         return Objects.hash(remoteUrls, buildsByBranchName, lastBuild);
     }
 
+    /**
+     * Index of the builds of {@link #buildsByBranchName} by SHA1, with the map it was built from and the number of
+     * changes made to it then, so that direct changes to the public map are noticed.
+     */
+    private static final class Sha1Index {
+        private final BranchBuildMap source;
+        private final int modCount;
+        private final Map<ObjectId, Build> builds;
+
+        Sha1Index(BranchBuildMap buildsByBranchName) {
+            this.source = buildsByBranchName;
+            this.modCount = buildsByBranchName.getModCount();
+            this.builds = new HashMap<>(buildsByBranchName.size() * 2);
+            // the first build holding a SHA1 wins, as it did when the builds were scanned in turn
+            for (Build b : buildsByBranchName.values()) {
+                if (b == null || b.revision == null || b.revision.getSha1() == null) {
+                    continue;
+                }
+                builds.putIfAbsent(b.revision.getSha1(), b);
+                if (b.marked != null && b.marked.getSha1() != null) {
+                    builds.putIfAbsent(b.marked.getSha1(), b);
+                }
+            }
+        }
+
+        boolean isFor(BranchBuildMap buildsByBranchName) {
+            return source == buildsByBranchName && modCount == buildsByBranchName.getModCount();
+        }
+    }
+
+    /**
+     * Normalized URLs, with a copy of the URLs they were computed from, so that direct changes to the public set are
+     * noticed. The few URLs of a build are compared rather than normalized again.
+     */
+    private static final class NormalizedUrls {
+        @CheckForNull
+        private final Set<String> urls;
+        private final Set<String> normalized;
+
+        NormalizedUrls(@CheckForNull Set<String> remoteUrls) {
+            this.urls = remoteUrls == null ? null : new HashSet<>(remoteUrls);
+            Set<String> normalizedUrls = new HashSet<>();
+            if (remoteUrls != null) {
+                for (String url : remoteUrls) {
+                    normalizedUrls.add(normalize(url));
+                }
+            }
+            this.normalized = normalizedUrls;
+        }
+
+        boolean isFor(@CheckForNull Set<String> remoteUrls) {
+            return Objects.equals(urls, remoteUrls);
+        }
+    }
+
     /* Package protected for easier testing */
     static final Logger LOGGER = Logger.getLogger(BuildData.class.getName());
 }
@@ -0,0 +1,153 @@
+package hudson.plugins.git.util;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.XmlFile;
+import hudson.model.Job;
+import hudson.model.Run;
+import hudson.model.listeners.RunListener;
+import java.io.File;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.model.Jenkins;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * Number of the latest build of a job holding a {@link BuildData} that references each remote URL, so that
+ * {@link hudson.plugins.git.GitSCM#getBuildData(Run)} loads a single build rather than walking back the build history.
+ * <p>
+ * Updated whenever a {@link BuildData} is attached to a build and stored in {@code git-build-data/latest-builds.xml}
+ * in the job directory.
+ */
+@Restricted(NoExternalUse.class)
+public final class BuildDataIndex {
+
+    private static final Logger LOGGER = Logger.getLogger(BuildDataIndex.class.getName());
+
+    private static final String FILE_NAME = "git-build-data/latest-builds.xml";
+
+    private static final Map<Job<?, ?>, BuildDataIndex> INDEXES = Collections.synchronizedMap(new WeakHashMap<>());
+
+    /**
+     * Numbers of the latest builds by remote URL.
+     */
+    private final Map<String, Integer> latestByUrl = new HashMap<>();
+
+    private BuildDataIndex() {
+    }
+
+    /**
+     * @param job the job.
+     * @return the index of the job, loaded from disk the first time.
+     */
+    @NonNull
+    public static BuildDataIndex forJob(@NonNull Job<?, ?> job) {
+        synchronized (INDEXES) {
+            BuildDataIndex index = INDEXES.get(job);
+            if (index == null) {
+                index = load(job);
+                INDEXES.put(job, index);
+            }
+            return index;
+        }
+    }
+
+    private static BuildDataIndex load(Job<?, ?> job) {
+        XmlFile file = getFile(job);
+        BuildDataIndex index = null;
+        if (file.exists()) {
+            try {
+                index = (BuildDataIndex) file.read();
+            } catch (IOException | ClassCastException e) {
+                LOGGER.log(Level.WARNING, "Failed to load build data index of " + job.getFullName() + ", rebuilding it", e);
+            }
+        }
+        return index == null ? new BuildDataIndex() : index;
+    }
+
+    private static XmlFile getFile(Job<?, ?> job) {
+        return new XmlFile(Jenkins.XSTREAM2, new File(job.getRootDir(), FILE_NAME));
+    }
+
+    /**
+     * @param urls the remote URLs.
+     * @return the number of the latest build holding a {@link BuildData} that references any of the URLs,
+     * {@code null} if none is known.
+     */
+    @CheckForNull
+    public synchronized Integer getLatest(@NonNull Collection<String> urls) {
+        Integer latest = null;
+        for (String url : urls) {
+            Integer number = latestByUrl.get(url);
+            if (number != null && (latest == null || number > latest)) {
+                latest = number;
+            }
+        }
+        return latest;
+    }
+
+    /**
+     * Records a build holding a {@link BuildData}, unless a later build was recorded for the same URLs.
+     *
+     * @param job the job.
+     * @param urls the remote URLs referenced by the {@link BuildData}.
+     * @param number the number of the build.
+     */
+    public synchronized void record(@NonNull Job<?, ?> job, @NonNull Collection<String> urls, int number) {
+        boolean changed = false;
+        for (String url : urls) {
+            if (url == null) {
+                continue;
+            }
+            Integer previous = latestByUrl.get(url);
+            if (previous == null || previous < number) {
+                latestByUrl.put(url, number);
+                changed = true;
+            }
+        }
+        if (changed) {
+            save(job);
+        }
+    }
+
+    /**
+     * Forgets a deleted build, the next lookup of its URLs walking back the build history.
+     *
+     * @param job the job.
+     * @param number the number of the build.
+     */
+    public synchronized void forget(@NonNull Job<?, ?> job, int number) {
+        if (latestByUrl.values().removeIf(n -> n == number)) {
+            save(job);
+        }
+    }
+
+    private void save(Job<?, ?> job) {
+        try {
+            getFile(job).write(this);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to save build data index of " + job.getFullName(), e);
+        }
+    }
+
+    /**
+     * Forgets deleted builds.
+     */
+    @Extension
+    public static class RunListenerImpl extends RunListener<Run<?, ?>> {
+        @Override
+        public void onDeleted(Run<?, ?> run) {
+            if (!run.getActions(BuildData.class).isEmpty()) {
+                forJob(run.getParent()).forget(run.getParent(), run.getNumber());
+            }
+        }
+    }
+}
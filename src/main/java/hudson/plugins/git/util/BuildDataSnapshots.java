@@ -0,0 +1,240 @@
+package hudson.plugins.git.util;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.XmlFile;
+import hudson.model.Job;
+import hudson.model.Run;
+import hudson.model.listeners.RunListener;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.WeakHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.model.Jenkins;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * Compacted snapshots of the builds by branch name of the {@link BuildData} of a job, which the {@link BuildData} of
+ * each build extends with the branches it changed, so that {@code build.xml} does not repeat every branch ever built.
+ * <p>
+ * Snapshots are stored in the {@code git-build-data} directory of the job, where {@code snapshots.xml} records the
+ * builds referring to each of them. A snapshot is deleted with the last build referring to it, unless it is the latest.
+ *
+ * @see BranchBuildMap
+ */
+@Restricted(NoExternalUse.class)
+public final class BuildDataSnapshots {
+
+    private static final Logger LOGGER = Logger.getLogger(BuildDataSnapshots.class.getName());
+
+    private static final String DIRECTORY = "git-build-data";
+
+    private static final String INDEX_FILE_NAME = "snapshots.xml";
+
+    private static final Map<Job<?, ?>, BuildDataSnapshots> SNAPSHOTS = Collections.synchronizedMap(new WeakHashMap<>());
+
+    /**
+     * Identifier of the latest snapshot, which build data read in the former format are compared with.
+     */
+    @CheckForNull
+    private String latest;
+
+    /**
+     * Numbers of the builds referring to each snapshot.
+     */
+    private final Map<String, TreeSet<Integer>> references = new HashMap<>();
+
+    /**
+     * Snapshots read or created since startup.
+     */
+    private transient Map<String, Map<String, Build>> loaded;
+
+    private BuildDataSnapshots() {
+    }
+
+    /**
+     * @param job the job.
+     * @return the snapshots of the job, their index being loaded from disk the first time.
+     */
+    @NonNull
+    public static BuildDataSnapshots forJob(@NonNull Job<?, ?> job) {
+        synchronized (SNAPSHOTS) {
+            BuildDataSnapshots snapshots = SNAPSHOTS.get(job);
+            if (snapshots == null) {
+                snapshots = load(job);
+                SNAPSHOTS.put(job, snapshots);
+            }
+            return snapshots;
+        }
+    }
+
+    private static BuildDataSnapshots load(Job<?, ?> job) {
+        XmlFile file = getIndexFile(job);
+        BuildDataSnapshots snapshots = null;
+        if (file.exists()) {
+            try {
+                snapshots = (BuildDataSnapshots) file.read();
+            } catch (IOException | ClassCastException e) {
+                LOGGER.log(Level.WARNING, "Failed to load build data snapshots index of " + job.getFullName(), e);
+            }
+        }
+        return snapshots == null ? new BuildDataSnapshots() : snapshots;
+    }
+
+    private static XmlFile getIndexFile(Job<?, ?> job) {
+        return new XmlFile(Jenkins.XSTREAM2, new File(new File(job.getRootDir(), DIRECTORY), INDEX_FILE_NAME));
+    }
+
+    private static XmlFile getSnapshotFile(Job<?, ?> job, String id) {
+        // builds hold revisions, written with the converters of build.xml
+        return new XmlFile(Run.XSTREAM, new File(new File(job.getRootDir(), DIRECTORY), id + ".xml"));
+    }
+
+    private Map<String, Map<String, Build>> getLoaded() {
+        if (loaded == null) {
+            loaded = new HashMap<>();
+        }
+        return loaded;
+    }
+
+    /**
+     * @return the identifier of the latest snapshot, {@code null} if there is none.
+     */
+    @CheckForNull
+    public synchronized String getLatest() {
+        return latest;
+    }
+
+    /**
+     * @param id the identifier of a snapshot.
+     * @return the numbers of the builds referring to the snapshot.
+     */
+    @NonNull
+    public synchronized TreeSet<Integer> getReferences(@NonNull String id) {
+        TreeSet<Integer> numbers = references.get(id);
+        return numbers == null ? new TreeSet<>() : new TreeSet<>(numbers);
+    }
+
+    /**
+     * @param job the job.
+     * @param id the identifier of a snapshot.
+     * @return the unmodifiable builds by branch name of the snapshot, {@code null} if it could not be read.
+     */
+    @CheckForNull
+    public synchronized Map<String, Build> get(@NonNull Job<?, ?> job, @NonNull String id) {
+        Map<String, Build> builds = getLoaded().get(id);
+        if (builds == null) {
+            XmlFile file = getSnapshotFile(job, id);
+            if (!file.exists()) {
+                return null;
+            }
+            try {
+                @SuppressWarnings("unchecked")
+                Map<String, Build> read = (Map<String, Build>) file.read();
+                builds = Collections.unmodifiableMap(read);
+            } catch (IOException | ClassCastException e) {
+                LOGGER.log(Level.WARNING, "Failed to load build data snapshot " + id + " of " + job.getFullName(), e);
+                return null;
+            }
+            getLoaded().put(id, builds);
+        }
+        return builds;
+    }
+
+    /**
+     * Writes a new snapshot, which becomes the latest.
+     *
+     * @param run the build creating the snapshot.
+     * @param builds the builds by branch name.
+     * @return the identifier of the snapshot.
+     * @throws IOException if the snapshot could not be written.
+     */
+    @NonNull
+    public synchronized String create(@NonNull Run<?, ?> run, @NonNull Map<String, Build> builds) throws IOException {
+        Job<?, ?> job = run.getParent();
+        String id = String.valueOf(run.getNumber());
+        for (int i = 2; getSnapshotFile(job, id).exists(); i++) {
+            // another build data of the same build
+            id = run.getNumber() + "-" + i;
+        }
+        Map<String, Build> snapshot = new HashMap<>(builds);
+        getSnapshotFile(job, id).write(snapshot);
+        getLoaded().put(id, Collections.unmodifiableMap(snapshot));
+        references.put(id, new TreeSet<>());
+        latest = id;
+        save(job);
+        LOGGER.log(Level.FINE, "Created build data snapshot {0} of {1} with {2} branches",
+                new Object[]{id, job.getFullName(), snapshot.size()});
+        return id;
+    }
+
+    /**
+     * Records that a build refers to a snapshot.
+     *
+     * @param job the job.
+     * @param id the identifier of the snapshot.
+     * @param number the number of the build.
+     */
+    public synchronized void addReference(@NonNull Job<?, ?> job, @NonNull String id, int number) {
+        if (references.computeIfAbsent(id, k -> new TreeSet<>()).add(number)) {
+            save(job);
+        }
+    }
+
+    /**
+     * Records that a build no longer refers to a snapshot, deleting the snapshot if no build refers to it and it is not
+     * the latest.
+     *
+     * @param job the job.
+     * @param id the identifier of the snapshot.
+     * @param number the number of the build.
+     */
+    public synchronized void removeReference(@NonNull Job<?, ?> job, @NonNull String id, int number) {
+        TreeSet<Integer> numbers = references.get(id);
+        if (numbers == null || !numbers.remove(number)) {
+            return;
+        }
+        if (numbers.isEmpty() && !id.equals(latest)) {
+            references.remove(id);
+            getLoaded().remove(id);
+            try {
+                Files.deleteIfExists(getSnapshotFile(job, id).getFile().toPath());
+                LOGGER.log(Level.FINE, "Deleted build data snapshot {0} of {1}", new Object[]{id, job.getFullName()});
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Failed to delete build data snapshot " + id + " of " + job.getFullName(), e);
+            }
+        }
+        save(job);
+    }
+
+    private void save(Job<?, ?> job) {
+        try {
+            getIndexFile(job).write(this);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to save build data snapshots index of " + job.getFullName(), e);
+        }
+    }
+
+    /**
+     * Releases the snapshots referred to by deleted builds.
+     */
+    @Extension
+    public static class RunListenerImpl extends RunListener<Run<?, ?>> {
+        @Override
+        public void onDeleted(Run<?, ?> run) {
+            for (BuildData buildData : run.getActions(BuildData.class)) {
+                if (buildData.buildsByBranchName instanceof BranchBuildMap map && map.getBaseId() != null) {
+                    forJob(run.getParent()).removeReference(run.getParent(), map.getBaseId(), run.getNumber());
+                }
+            }
+        }
+    }
+}
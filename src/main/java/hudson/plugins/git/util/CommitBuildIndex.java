@@ -0,0 +1,366 @@
+package hudson.plugins.git.util;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import hudson.Extension;
+import hudson.model.Job;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.model.listeners.RunListener;
+import hudson.plugins.git.GitChangeSet;
+import hudson.plugins.git.GitChangeSetList;
+import hudson.scm.ChangeLogSet;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.WeakHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.scm.RunWithSCM;
+import jenkins.util.SystemProperties;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * Index of the builds of a job by the commits they built or listed in their changelog, so that the builds containing
+ * a commit are found without reading every build.
+ * <p>
+ * Each record is the 20 bytes of a commit followed by the 4 bytes of a build number. The records of completed builds
+ * are appended to {@code git-build-data/commits.log}, which is merged into the sorted
+ * {@code git-build-data/commits.idx} once it holds {@link #MERGE_THRESHOLD} records. A lookup is a binary search of
+ * the sorted file and a scan of the log.
+ * <p>
+ * Builds completed before the index was introduced are only indexed by {@link #rebuild(Job)}, which records that it
+ * ran in {@code git-build-data/commits.complete}: until then, the index may miss builds of the job.
+ */
+@Restricted(NoExternalUse.class)
+public final class CommitBuildIndex {
+
+    private static final Logger LOGGER = Logger.getLogger(CommitBuildIndex.class.getName());
+
+    /**
+     * Number of records appended to the log before it is merged into the sorted file.
+     */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL")
+    static /* not final */ int MERGE_THRESHOLD = SystemProperties.getInteger(CommitBuildIndex.class.getName() + ".mergeThreshold", 4096);
+
+    private static final int RECORD_SIZE = Constants.OBJECT_ID_LENGTH + Integer.BYTES;
+
+    private static final String SORTED_FILE_NAME = "git-build-data/commits.idx";
+
+    private static final String LOG_FILE_NAME = "git-build-data/commits.log";
+
+    private static final String COMPLETE_FILE_NAME = "git-build-data/commits.complete";
+
+    private static final Map<Job<?, ?>, CommitBuildIndex> INDEXES = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private CommitBuildIndex() {
+    }
+
+    /**
+     * @param job the job.
+     * @return the index of the job.
+     */
+    @NonNull
+    public static CommitBuildIndex forJob(@NonNull Job<?, ?> job) {
+        synchronized (INDEXES) {
+            return INDEXES.computeIfAbsent(job, k -> new CommitBuildIndex());
+        }
+    }
+
+    private static File getSortedFile(Job<?, ?> job) {
+        return new File(job.getRootDir(), SORTED_FILE_NAME);
+    }
+
+    private static File getLogFile(Job<?, ?> job) {
+        return new File(job.getRootDir(), LOG_FILE_NAME);
+    }
+
+    private static File getCompleteFile(Job<?, ?> job) {
+        return new File(job.getRootDir(), COMPLETE_FILE_NAME);
+    }
+
+    /**
+     * @param job the job.
+     * @return {@code true} if the index holds every build of the job, that is if {@link #rebuild(Job)} ran once. The
+     * builds completed since are recorded as they complete.
+     */
+    public synchronized boolean isComplete(@NonNull Job<?, ?> job) {
+        return getCompleteFile(job).exists();
+    }
+
+    /**
+     * @param job the job.
+     * @param commit the commit.
+     * @return the numbers of the builds that built the commit or listed it in their changelog, including builds that
+     * were deleted since.
+     * @throws IOException if the index could not be read.
+     */
+    @NonNull
+    public synchronized SortedSet<Integer> getBuilds(@NonNull Job<?, ?> job, @NonNull ObjectId commit) throws IOException {
+        SortedSet<Integer> builds = new TreeSet<>();
+        byte[] key = toRecord(commit, 0);
+        File sorted = getSortedFile(job);
+        if (sorted.exists()) {
+            try (RandomAccessFile file = new RandomAccessFile(sorted, "r")) {
+                long low = 0;
+                long high = file.length() / RECORD_SIZE;
+                byte[] record = new byte[RECORD_SIZE];
+                // first record not before the commit with build 0
+                while (low < high) {
+                    long middle = (low + high) >>> 1;
+                    file.seek(middle * RECORD_SIZE);
+                    file.readFully(record);
+                    if (compare(record, key) < 0) {
+                        low = middle + 1;
+                    } else {
+                        high = middle;
+                    }
+                }
+                file.seek(low * RECORD_SIZE);
+                while (file.getFilePointer() + RECORD_SIZE <= file.length()) {
+                    file.readFully(record);
+                    if (!sameCommit(record, key)) {
+                        break;
+                    }
+                    builds.add(buildNumber(record));
+                }
+            }
+        }
+        File log = getLogFile(job);
+        if (log.exists()) {
+            try (DataInputStream in = open(log)) {
+                byte[] record = new byte[RECORD_SIZE];
+                while (readRecord(in, record)) {
+                    if (sameCommit(record, key)) {
+                        builds.add(buildNumber(record));
+                    }
+                }
+            }
+        }
+        return builds;
+    }
+
+    /**
+     * Records the commits of a completed build.
+     *
+     * @param job the job.
+     * @param number the number of the build.
+     * @param commits the commits built or listed in the changelog of the build.
+     * @throws IOException if the index could not be written.
+     */
+    public synchronized void add(@NonNull Job<?, ?> job, int number, @NonNull Collection<ObjectId> commits) throws IOException {
+        if (commits.isEmpty()) {
+            return;
+        }
+        File log = getLogFile(job);
+        Files.createDirectories(log.getParentFile().toPath());
+        try (FileChannel channel = FileChannel.open(log.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            long length = channel.size();
+            if (length % RECORD_SIZE != 0) {
+                // drop a record truncated by a crash, so that the records appended after it stay aligned
+                LOGGER.log(Level.FINE, "Dropping a truncated record from the commit index log of {0}", job.getFullName());
+                channel.truncate(length - length % RECORD_SIZE);
+            }
+            channel.position(channel.size());
+            OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel));
+            for (ObjectId commit : commits) {
+                out.write(toRecord(commit, number));
+            }
+            out.flush();
+        }
+        if (log.length() / RECORD_SIZE >= MERGE_THRESHOLD) {
+            merge(job);
+        }
+    }
+
+    /**
+     * Writes the index again from the builds of the job, and records that it is complete.
+     *
+     * @param job the job.
+     * @return the number of records written.
+     * @throws IOException if the index could not be written.
+     */
+    public synchronized int rebuild(@NonNull Job<?, ?> job) throws IOException {
+        List<byte[]> records = new ArrayList<>();
+        for (Run<?, ?> run : job.getBuilds()) {
+            for (ObjectId commit : getCommits(run)) {
+                records.add(toRecord(commit, run.getNumber()));
+            }
+        }
+        records.sort(CommitBuildIndex::compare);
+        File sorted = getSortedFile(job);
+        Files.createDirectories(sorted.getParentFile().toPath());
+        File tmp = new File(sorted.getPath() + ".tmp");
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tmp.toPath()))) {
+            for (byte[] record : records) {
+                out.write(record);
+            }
+        }
+        Files.move(tmp.toPath(), sorted.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        Files.deleteIfExists(getLogFile(job).toPath());
+        Files.writeString(getCompleteFile(job).toPath(), Integer.toString(records.size()));
+        LOGGER.log(Level.FINE, "Rebuilt commit index of {0} with {1} records", new Object[]{job.getFullName(), records.size()});
+        return records.size();
+    }
+
+    /**
+     * Merges the log, sorted in memory, into the sorted file, streaming the sorted file.
+     */
+    private void merge(Job<?, ?> job) throws IOException {
+        File log = getLogFile(job);
+        List<byte[]> appended = new ArrayList<>();
+        try (DataInputStream in = open(log)) {
+            byte[] record = new byte[RECORD_SIZE];
+            while (readRecord(in, record)) {
+                appended.add(record.clone());
+            }
+        }
+        appended.sort(CommitBuildIndex::compare);
+        File sorted = getSortedFile(job);
+        File tmp = new File(sorted.getPath() + ".tmp");
+        int written = 0;
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tmp.toPath()));
+             DataInputStream in = sorted.exists() ? open(sorted) : new DataInputStream(InputStream.nullInputStream())) {
+            byte[] current = new byte[RECORD_SIZE];
+            boolean hasCurrent = readRecord(in, current);
+            byte[] last = null;
+            int i = 0;
+            while (hasCurrent || i < appended.size()) {
+                byte[] next;
+                if (!hasCurrent || i < appended.size() && compare(appended.get(i), current) < 0) {
+                    next = appended.get(i++);
+                } else {
+                    next = current.clone();
+                    hasCurrent = readRecord(in, current);
+                }
+                if (last == null || compare(last, next) != 0) {
+                    out.write(next);
+                    written++;
+                    last = next;
+                }
+            }
+        }
+        Files.move(tmp.toPath(), sorted.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        Files.delete(log.toPath());
+        LOGGER.log(Level.FINE, "Merged {0} records into the commit index of {1}, {2} records",
+                new Object[]{appended.size(), job.getFullName(), written});
+    }
+
+    /**
+     * @param run a build.
+     * @return the commits the build built, and those listed in its changelog.
+     */
+    @NonNull
+    static Set<ObjectId> getCommits(@NonNull Run<?, ?> run) {
+        Set<ObjectId> commits = new LinkedHashSet<>();
+        for (BuildData buildData : run.getActions(BuildData.class)) {
+            Build build = buildData.lastBuild;
+            if (build == null || build.getBuildNumber() != run.getNumber()) {
+                // copied from a previous build
+                continue;
+            }
+            if (build.getRevision() != null && build.getRevision().getSha1() != null) {
+                commits.add(build.getRevision().getSha1());
+            }
+            if (build.getMarked() != null && build.getMarked().getSha1() != null) {
+                commits.add(build.getMarked().getSha1());
+            }
+        }
+        if (run instanceof RunWithSCM<?, ?> withScm) {
+            for (ChangeLogSet<?> changeSet : withScm.getChangeSets()) {
+                if (changeSet instanceof GitChangeSetList gitChangeSet) {
+                    for (GitChangeSet change : gitChangeSet) {
+                        String id = change.getId();
+                        if (id != null && ObjectId.isId(id)) {
+                            commits.add(ObjectId.fromString(id));
+                        }
+                    }
+                }
+            }
+        }
+        return commits;
+    }
+
+    private static DataInputStream open(File file) throws IOException {
+        return new DataInputStream(new BufferedInputStream(Files.newInputStream(file.toPath())));
+    }
+
+    private static boolean readRecord(DataInputStream in, byte[] record) throws IOException {
+        try {
+            in.readFully(record);
+            return true;
+        } catch (EOFException e) {
+            // a record truncated by a crash is dropped
+            return false;
+        }
+    }
+
+    private static byte[] toRecord(ObjectId commit, int number) {
+        byte[] record = new byte[RECORD_SIZE];
+        commit.copyRawTo(record, 0);
+        record[Constants.OBJECT_ID_LENGTH] = (byte) (number >>> 24);
+        record[Constants.OBJECT_ID_LENGTH + 1] = (byte) (number >>> 16);
+        record[Constants.OBJECT_ID_LENGTH + 2] = (byte) (number >>> 8);
+        record[Constants.OBJECT_ID_LENGTH + 3] = (byte) number;
+        return record;
+    }
+
+    private static int buildNumber(byte[] record) {
+        return (record[Constants.OBJECT_ID_LENGTH] & 0xff) << 24
+                | (record[Constants.OBJECT_ID_LENGTH + 1] & 0xff) << 16
+                | (record[Constants.OBJECT_ID_LENGTH + 2] & 0xff) << 8
+                | record[Constants.OBJECT_ID_LENGTH + 3] & 0xff;
+    }
+
+    private static boolean sameCommit(byte[] record, byte[] key) {
+        return Arrays.equals(record, 0, Constants.OBJECT_ID_LENGTH, key, 0, Constants.OBJECT_ID_LENGTH);
+    }
+
+    private static int compare(byte[] a, byte[] b) {
+        // build numbers are positive, so unsigned order is numeric order
+        return Arrays.compareUnsigned(a, b);
+    }
+
+    /**
+     * Records the commits of completed builds.
+     */
+    @Extension
+    public static class RunListenerImpl extends RunListener<Run<?, ?>> {
+        @Override
+        public void onCompleted(Run<?, ?> run, @NonNull TaskListener listener) {
+            Set<ObjectId> commits = getCommits(run);
+            if (commits.isEmpty()) {
+                return;
+            }
+            try {
+                forJob(run.getParent()).add(run.getParent(), run.getNumber(), commits);
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Failed to index the commits of " + run, e);
+            }
+        }
+    }
+}
@@ -175,21 +175,14 @@ public class DefaultBuildChooser extends BuildChooser {
 
         // 2. Filter out any revisions that don't contain any branches that we
         // actually care about (spec)
+        BranchSpecSet branchSpecs = new BranchSpecSet(gitSCM.getBranches(), env);
         for (Iterator<Revision> i = revs.iterator(); i.hasNext();) {
             Revision r = i.next();
 
             // filter out uninteresting branches
             for (Iterator<Branch> j = r.getBranches().iterator(); j.hasNext();) {
                 Branch b = j.next();
-                boolean keep = false;
-                for (BranchSpec bspec : gitSCM.getBranches()) {
-                    if (bspec.matches(b.getName(), env)) {
-                        keep = true;
-                        break;
-                    }
-                }
-
-                if (!keep) {
+                if (!branchSpecs.matches(b.getName())) {
                     verbose(listener, "Ignoring {0} because it doesn''t match branch specifier", b);
                     j.remove();
                 }
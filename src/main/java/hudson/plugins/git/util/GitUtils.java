@@ -6,6 +6,7 @@ import hudson.Launcher;
 import hudson.model.*;
 import hudson.plugins.git.Branch;
 import hudson.plugins.git.BranchSpec;
+import hudson.plugins.git.BranchSpecSet;
 import hudson.plugins.git.GitException;
 import hudson.plugins.git.GitObject;
 import hudson.plugins.git.GitTool;
@@ -172,20 +173,13 @@ public class GitUtils implements Serializable {
     }
 
     public Revision sortBranchesForRevision(Revision revision, List<BranchSpec> branchOrder, EnvVars env) {
-        ArrayList<Branch> orderedBranches = new ArrayList<>(revision.getBranches().size());
-        ArrayList<Branch> revisionBranches = new ArrayList<>(revision.getBranches());
-
-        for(BranchSpec branchSpec : branchOrder) {
-            for (Iterator<Branch> i = revisionBranches.iterator(); i.hasNext();) {
-                Branch b = i.next();
-                if (branchSpec.matches(b.getName(), env)) {
-                    i.remove();
-                    orderedBranches.add(b);
-                }
-            }
-        }
-
-        orderedBranches.addAll(revisionBranches);
+        BranchSpecSet branchSpecs = new BranchSpecSet(branchOrder, env);
+        ArrayList<Branch> orderedBranches = new ArrayList<>(revision.getBranches());
+        // stable sort by first matching spec, unmatched branches last
+        orderedBranches.sort(Comparator.comparingInt(b -> {
+            int index = branchSpecs.indexOf(b.getName());
+            return index < 0 ? Integer.MAX_VALUE : index;
+        }));
         return new Revision(revision.getSha1(), orderedBranches);
     }
 
@@ -0,0 +1,163 @@
+package hudson.plugins.git.util;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.plugins.git.GitChangeSet;
+import hudson.plugins.git.GitException;
+import hudson.remoting.VirtualChannel;
+import java.io.IOException;
+import java.io.Serial;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.jgit.errors.MissingObjectException;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.revwalk.filter.AndRevFilter;
+import org.eclipse.jgit.revwalk.filter.MaxCountRevFilter;
+import org.eclipse.jgit.revwalk.filter.RevFilter;
+import org.eclipse.jgit.revwalk.filter.SkipRevFilter;
+import org.eclipse.jgit.treewalk.EmptyTreeIterator;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+import org.jenkinsci.plugins.gitclient.RepositoryCallback;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * Formats a batch of the commits {@code from..to} the way {@code git log --format=raw -m --raw} does, for
+ * {@link GitChangeSet} to parse, so that the commits can be evaluated a batch at a time.
+ */
+@Restricted(NoExternalUse.class)
+public final class RawLogRepositoryCallback implements RepositoryCallback<List<List<String>>> {
+    @Serial
+    private static final long serialVersionUID = 1L;
+    private final ObjectId from;
+    private final ObjectId to;
+    private final int skip;
+    private final int limit;
+    private final boolean rawOutput;
+
+    /**
+     * @param from the last built commit, or {@code null} to only format {@code to}.
+     * @param to the head commit.
+     * @param skip the number of commits formatted by the previous batches.
+     * @param limit the maximum number of commits to format.
+     * @param rawOutput whether the paths changed by each commit are listed.
+     */
+    public RawLogRepositoryCallback(@CheckForNull ObjectId from, @NonNull ObjectId to, int skip, int limit, boolean rawOutput) {
+        this.from = from == null ? null : from.copy();
+        this.to = to.copy();
+        this.skip = skip;
+        this.limit = limit;
+        this.rawOutput = rawOutput;
+    }
+
+    /**
+     * @return the lines of each commit, a merge commit repeated for each of its parents, fewer than the limit once
+     * there are no more commits.
+     * @throws GitException if the last built commit is not in the repository.
+     */
+    @Override
+    public List<List<String>> invoke(Repository repository, VirtualChannel channel) throws IOException, InterruptedException {
+        List<List<String>> commits = new ArrayList<>();
+        try (RevWalk walk = new RevWalk(repository)) {
+            walk.markStart(walk.parseCommit(to));
+            if (from == null) {
+                walk.setRevFilter(MaxCountRevFilter.create(1));
+            } else {
+                try {
+                    walk.markUninteresting(walk.parseCommit(from));
+                } catch (MissingObjectException e) {
+                    // the branch was rewritten or the history pruned, as with git log from..to
+                    throw new GitException("Last built revision " + from.name() + " is not in the repository", e);
+                }
+                RevFilter batch = MaxCountRevFilter.create(limit);
+                walk.setRevFilter(skip > 0 ? AndRevFilter.create(SkipRevFilter.create(skip), batch) : batch);
+            }
+            for (RevCommit commit : walk) {
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+                List<String> lines = new ArrayList<>();
+                for (List<String> diff : format(repository, commit, rawOutput)) {
+                    lines.addAll(diff);
+                }
+                commits.add(lines);
+            }
+        }
+        return commits;
+    }
+
+    /**
+     * Formats a commit the way {@code git log --format=raw -m --raw} does.
+     *
+     * @param repository the repository.
+     * @param commit the commit, with its parents parsed.
+     * @param rawOutput whether the paths changed by the commit are listed.
+     * @return the commit compared with each of its parents, or with an empty tree if it has none, or the commit alone
+     * if the paths are not listed.
+     * @throws IOException if the trees could not be read.
+     */
+    @NonNull
+    public static List<List<String>> format(@NonNull Repository repository, @NonNull RevCommit commit, boolean rawOutput)
+            throws IOException {
+        List<List<String>> diffs = new ArrayList<>();
+        if (!rawOutput || commit.getParentCount() == 0) {
+            diffs.add(format(repository, commit, null, rawOutput));
+        } else {
+            for (RevCommit parent : commit.getParents()) {
+                diffs.add(format(repository, commit, parent, true));
+            }
+        }
+        return diffs;
+    }
+
+    private static List<String> format(Repository repository, RevCommit commit, @CheckForNull RevCommit parent,
+                                       boolean rawOutput) throws IOException {
+        List<String> lines = new ArrayList<>();
+        lines.add("commit " + commit.name());
+        lines.add("tree " + commit.getTree().name());
+        for (RevCommit p : commit.getParents()) {
+            lines.add("parent " + p.name());
+        }
+        lines.add("author " + identity(commit.getAuthorIdent()));
+        lines.add("committer " + identity(commit.getCommitterIdent()));
+        lines.add("");
+        for (String line : commit.getFullMessage().split("\n", -1)) {
+            lines.add("    " + line);
+        }
+        lines.add("");
+        if (!rawOutput) {
+            return lines;
+        }
+        try (TreeWalk tree = new TreeWalk(repository)) {
+            tree.setRecursive(true);
+            if (parent != null) {
+                tree.addTree(parent.getTree());
+            } else {
+                tree.addTree(new EmptyTreeIterator());
+            }
+            tree.addTree(commit.getTree());
+            tree.setFilter(TreeFilter.ANY_DIFF);
+            while (tree.next()) {
+                int oldMode = tree.getRawMode(0);
+                int newMode = tree.getRawMode(1);
+                char type = oldMode == 0 ? 'A' : newMode == 0 ? 'D' : 'M';
+                lines.add(String.format(":%06o %06o %s %s %c\t%s", oldMode, newMode,
+                        tree.getObjectId(0).name(), tree.getObjectId(1).name(), type, tree.getPathString()));
+            }
+        }
+        return lines;
+    }
+
+    private static String identity(PersonIdent ident) {
+        StringBuilder identity = new StringBuilder(ident.getName()).append(" <").append(ident.getEmailAddress())
+                .append("> ").append(ident.getWhenAsInstant().getEpochSecond()).append(' ');
+        PersonIdent.appendTimezone(identity, ident.getTimeZoneOffset());
+        return identity.toString();
+    }
+}
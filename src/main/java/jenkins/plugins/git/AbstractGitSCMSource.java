@@ -28,6 +28,7 @@ import com.cloudbees.plugins.credentials.CredentialsProvider;
 import com.cloudbees.plugins.credentials.common.StandardCredentials;
 import com.cloudbees.plugins.credentials.common.StandardUsernameCredentials;
 import com.cloudbees.plugins.credentials.domains.URIRequirementBuilder;
+import com.google.common.collect.MapMaker;
 import edu.umd.cs.findbugs.annotations.CheckForNull;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import edu.umd.cs.findbugs.annotations.Nullable;
@@ -60,18 +61,19 @@ import java.net.URISyntaxException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.regex.Pattern;
@@ -103,14 +105,17 @@ import jenkins.scm.impl.trait.WildcardSCMSourceFilterTrait;
 import jenkins.security.FIPS140;
 import jenkins.util.SystemProperties;
 import net.jcip.annotations.GuardedBy;
+import net.sf.json.JSONObject;
 import org.apache.commons.lang3.StringUtils;
 import org.eclipse.jgit.lib.Constants;
 import org.eclipse.jgit.lib.FileMode;
 import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Ref;
 import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.revwalk.RevCommit;
 import org.eclipse.jgit.revwalk.RevTree;
 import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
 import org.eclipse.jgit.transport.RefSpec;
 import org.eclipse.jgit.transport.URIish;
 import org.eclipse.jgit.treewalk.TreeWalk;
@@ -161,9 +166,26 @@ public abstract class AbstractGitSCMSource extends SCMSource {
             "+refs/heads/*:refs/remotes/" + REF_SPEC_REMOTE_NAME_PLACEHOLDER_STR + "/*";
 
     /**
-     * Keep one lock per cache directory. Lazy populated, but never purge, except on restart.
+     * Keep one lock per cache directory. Lazy populated, an entry is dropped once nobody holds its lock.
      */
-    private static final ConcurrentMap<String, Lock> cacheLocks = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, CacheLock> cacheLocks = new MapMaker().weakValues().makeMap();
+
+    /**
+     * Statistics of each cache directory used since startup, dropped when the cache directory is evicted.
+     */
+    private static final ConcurrentMap<String, CacheStatistics> cacheStatistics = new ConcurrentHashMap<>();
+
+    /**
+     * The last access to a cache directory is recorded as its modification time, at most this often.
+     */
+    private static final long ACCESS_RESOLUTION_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
+    /**
+     * Whether a fetch into a cache directory is skipped when the remote refs already match the refs of the cache
+     * directory.
+     */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL")
+    static /* not final */ boolean SKIP_UNCHANGED_FETCH = SystemProperties.getBoolean(AbstractGitSCMSource.class.getName() + ".skipUnchangedFetch", true);
 
     private static final Logger LOGGER = Logger.getLogger(AbstractGitSCMSource.class.getName());
 
@@ -319,7 +341,21 @@ public abstract class AbstractGitSCMSource extends SCMSource {
     }
 
     private interface Retriever2<T> extends Retriever<T> {
-        T run(GitClient client, String remoteName, FetchCommand fetch) throws GitException, IOException, InterruptedException;
+        T run(GitClient client, String remoteName, CacheFetch fetch) throws GitException, IOException, InterruptedException;
+    }
+
+    /**
+     * A fetch into a cache repository, skipped when the remote references match the references of the cache
+     * repository.
+     */
+    private interface CacheFetch {
+        /**
+         * @param remoteReferences the remote references already listed by the caller, or null to list them.
+         * @param headsOnly whether only the branches were listed.
+         * @param tagsOnly whether only the tags were listed, or only the branches and the tags with {@code headsOnly}.
+         */
+        void execute(@CheckForNull Map<String, ObjectId> remoteReferences, boolean headsOnly, boolean tagsOnly)
+                throws GitException, InterruptedException;
     }
 
     @NonNull
@@ -377,7 +413,14 @@ public abstract class AbstractGitSCMSource extends SCMSource {
         }
 
         String cacheEntry = getCacheEntry();
-        Lock cacheLock = getCacheLock(cacheEntry);
+        CacheLock cacheReadWriteLock = getCacheReadWriteLock(cacheEntry);
+        FetchCoordinator fetchCoordinator = cacheReadWriteLock.getFetchCoordinator();
+        String remoteName = context.remoteName();
+        List<RefSpec> refSpecs = context.asRefSpecs();
+        boolean tags = GitSCMSource.IGNORE_TAG_DISCOVERY_TRAIT || context.wantTags();
+        FetchCoordinator.Fetch cacheFetchRefs = new FetchCoordinator.Fetch(getRemote(), remoteName, refSpecs, tags, prune);
+        FetchCoordinator.Fetch joined = fetchCoordinator.join(cacheFetchRefs);
+        Lock cacheLock = cacheReadWriteLock.writeLock();
         cacheLock.lock();
         try {
             File cacheDir = getCacheDir(cacheEntry);
@@ -394,7 +437,6 @@ public abstract class AbstractGitSCMSource extends SCMSource {
             }
             GitHooksConfiguration.configure(client, GitHooksConfiguration.get().isAllowedOnController());
 
-            String remoteName = context.remoteName();
             listener.getLogger().println("Setting " + remoteName + " to " + getRemote());
             client.setRemoteUrl(remoteName, getRemote());
             listener.getLogger().println((prune ? "Fetching & pruning " : "Fetching ") + remoteName + "...");
@@ -410,20 +452,144 @@ public abstract class AbstractGitSCMSource extends SCMSource {
             } catch (URISyntaxException ex) {
                 listener.getLogger().println("URI syntax exception for '" + remoteName + "' " + ex);
             }
-            final FetchCommand fetchCommand = fetch.from(remoteURI, context.asRefSpecs());
+            final FetchCommand fetchCommand = fetch.from(remoteURI, refSpecs);
+            CacheStatistics statistics = getCacheEntryStatistics(cacheEntry);
+            CacheFetch cacheFetch = (remoteReferences, headsOnly, tagsOnly) -> {
+                // the joined fetch started after this call, but maybe before the caller listed the remote references
+                boolean reusable = fetchCoordinator.reusable(joined);
+                if (reusable && remoteReferences == null) {
+                    listener.getLogger().println("Reusing a concurrent fetch of " + remoteName);
+                    statistics.fetchCoalesced.increment();
+                    return;
+                }
+                fetchCoordinator.start(cacheFetchRefs);
+                boolean succeeded = false;
+                try {
+                    if ((SKIP_UNCHANGED_FETCH || reusable) && remoteRefsUnchanged(client, cacheDir, refSpecs, tags, prune,
+                            remoteReferences, headsOnly, tagsOnly)) {
+                        if (reusable) {
+                            listener.getLogger().println("Reusing a concurrent fetch of " + remoteName);
+                            statistics.fetchCoalesced.increment();
+                        } else {
+                            listener.getLogger().println("Remote references of " + remoteName + " unchanged, skipping fetch");
+                            statistics.fetchSkipped.increment();
+                        }
+                    } else {
+                        fetchCommand.execute();
+                        statistics.fetched.increment();
+                    }
+                    succeeded = true;
+                } finally {
+                    fetchCoordinator.finish(cacheFetchRefs, succeeded);
+                }
+            };
             if (!delayFetch) {
-                fetchCommand.execute();
+                cacheFetch.execute(null, false, false);
             } else if (retriever instanceof Retriever2) {
-                return ((Retriever2<T>)retriever).run(client, remoteName, fetchCommand);
+                return ((Retriever2<T>)retriever).run(client, remoteName, cacheFetch);
             }
             return retriever.run(client, remoteName);
         } catch (GitException x) {
             throw new IOException(x);
         } finally {
             cacheLock.unlock();
+            fetchCoordinator.leave(cacheFetchRefs);
         }
     }
 
+    /**
+     * Compares the remote refs with the refs of the cache repository they are fetched to. When each of them already
+     * points to the same object, and no ref would be pruned, a fetch would not change the cache repository.
+     *
+     * @param client the client of the cache repository.
+     * @param cacheDir the cache directory.
+     * @param refSpecs the refspecs of the fetch.
+     * @param tags whether the fetch also fetches the tags.
+     * @param prune whether the fetch prunes the refs deleted from the remote.
+     * @param remoteReferences the remote references already listed, or null to list them.
+     * @param headsOnly whether only the branches were listed.
+     * @param tagsOnly whether only the tags were listed, or only the branches and the tags with {@code headsOnly}.
+     * @return {@code true} if a fetch would not change the cache repository, {@code false} if it would or if the refs
+     * could not be compared.
+     */
+    private boolean remoteRefsUnchanged(GitClient client, File cacheDir, List<RefSpec> refSpecs, boolean tags, boolean prune,
+                                        @CheckForNull Map<String, ObjectId> remoteReferences, boolean headsOnly, boolean tagsOnly)
+            throws InterruptedException {
+        File gitDir = new File(cacheDir, ".git");
+        if (!gitDir.isDirectory()) {
+            return false;
+        }
+        List<RefSpec> specs = new ArrayList<>(refSpecs);
+        if (tags) {
+            specs.add(new RefSpec("+" + Constants.R_TAGS + "*:" + Constants.R_TAGS + "*"));
+        }
+        boolean anyHeads = false;
+        boolean anyTags = false;
+        boolean anyOther = false;
+        boolean listed = true;
+        for (RefSpec spec : specs) {
+            if (spec.isNegative() || spec.isMatching() || spec.getSource() == null || spec.getDestination() == null) {
+                return false;
+            }
+            String source = refSpecPrefix(spec.getSource(), spec.isWildcard());
+            boolean head = source.startsWith(Constants.R_HEADS);
+            boolean tag = source.startsWith(Constants.R_TAGS);
+            anyHeads |= head;
+            anyTags |= tag;
+            anyOther |= !head && !tag;
+            // the references listed by the caller must include those the fetch would update
+            if ((headsOnly || tagsOnly) && !(headsOnly && head) && !(tagsOnly && tag)) {
+                listed = false;
+            }
+        }
+        if (remoteReferences == null || !listed) {
+            try {
+                remoteReferences = client.getRemoteReferences(getRemote(), null, anyHeads && !anyOther, anyTags && !anyOther);
+            } catch (GitException e) {
+                LOGGER.log(Level.FINE, "Failed to list the remote references of " + getRemote(), e);
+                return false;
+            }
+        }
+        Map<String, ObjectId> expected = new HashMap<>();
+        for (Map.Entry<String, ObjectId> reference : remoteReferences.entrySet()) {
+            String name = reference.getKey();
+            if (name.endsWith("^{}")) {
+                continue;
+            }
+            for (RefSpec spec : specs) {
+                if (spec.matchSource(name)) {
+                    expected.put(spec.expandFromSource(name).getDestination(), reference.getValue());
+                }
+            }
+        }
+        try (Repository repository = new FileRepositoryBuilder().setGitDir(gitDir).setMustExist(true).build()) {
+            for (Map.Entry<String, ObjectId> reference : expected.entrySet()) {
+                Ref ref = repository.exactRef(reference.getKey());
+                if (ref == null || !reference.getValue().equals(ref.getObjectId())) {
+                    return false;
+                }
+            }
+            if (prune) {
+                for (RefSpec spec : specs) {
+                    String prefix = refSpecPrefix(spec.getDestination(), spec.isWildcard());
+                    for (Ref ref : repository.getRefDatabase().getRefsByPrefix(prefix)) {
+                        if (spec.matchDestination(ref.getName()) && !expected.containsKey(ref.getName())) {
+                            return false;
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Failed to read the references of " + cacheDir, e);
+            return false;
+        }
+        return true;
+    }
+
+    private static String refSpecPrefix(String ref, boolean wildcard) {
+        return wildcard ? ref.substring(0, ref.indexOf('*')) : ref;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -612,19 +778,22 @@ public abstract class AbstractGitSCMSource extends SCMSource {
         }
         doRetrieve(new Retriever2<Void>() {
             @Override
-            public Void run(GitClient client, String remoteName, FetchCommand fetch) throws GitException, IOException, InterruptedException {
-                final Map<String, ObjectId> remoteReferences;
+            public Void run(GitClient client, String remoteName, CacheFetch fetch) throws GitException, IOException, InterruptedException {
+                Map<String, ObjectId> remoteReferences;
+                boolean headsOnly = !context.wantOtherRefs() && context.wantBranches();
+                boolean tagsOnly = !context.wantOtherRefs() && context.wantTags();
                 if (context.wantBranches() || context.wantTags() || context.wantOtherRefs()) {
                     listener.getLogger().println("Listing remote references...");
-                    boolean headsOnly = !context.wantOtherRefs() && context.wantBranches();
-                    boolean tagsOnly = !context.wantOtherRefs() && context.wantTags();
                     remoteReferences = client.getRemoteReferences(
                             client.getRemoteUrl(remoteName), null, headsOnly, tagsOnly
                     );
                 } else {
+                    remoteReferences = null;
+                }
+                fetch.execute(remoteReferences, headsOnly, tagsOnly);
+                if (remoteReferences == null) {
                     remoteReferences = Collections.emptyMap();
                 }
-                fetch.execute();
                 try (@SuppressWarnings("deprecation") // Local repository reference
                      Repository repository = client.getRepository();
                      RevWalk walk = new RevWalk(repository);
@@ -1291,12 +1460,11 @@ public abstract class AbstractGitSCMSource extends SCMSource {
     }
 
     protected static File getCacheDir(String cacheEntry, boolean createDirectory) {
-        Jenkins jenkins = Jenkins.getInstanceOrNull();
-        if (jenkins == null) {
+        File cacheRootDir = getCacheRootDir();
+        if (cacheRootDir == null) {
             return null;
         }
-        String cacheRootDir = SystemProperties.getString(AbstractGitSCMSource.class.getName() + ".cacheRootDir");
-        File cacheDir = new File(cacheRootDir != null ? new File(cacheRootDir) : new File(jenkins.getRootDir(), "caches"), cacheEntry);
+        File cacheDir = new File(cacheRootDir, cacheEntry);
         if (!cacheDir.isDirectory()) {
             if (createDirectory) {
                 boolean ok = cacheDir.mkdirs();
@@ -1307,15 +1475,72 @@ public abstract class AbstractGitSCMSource extends SCMSource {
                 cacheDir = null;
             }
         }
+        long now = System.currentTimeMillis();
+        if (cacheDir != null && getCacheEntryStatistics(cacheEntry).accessed(now, ACCESS_RESOLUTION_MILLIS)) {
+            // read by GitCacheMaintenance to evict the least recently used cache directories
+            if (!cacheDir.setLastModified(now)) {
+                LOGGER.log(Level.FINE, "Failed to record the last access to {0}", cacheDir);
+            }
+        }
         return cacheDir;
     }
 
+    /**
+     * @return the directory of the cache directories, or null if Jenkins is not running.
+     */
+    @CheckForNull
+    static File getCacheRootDir() {
+        Jenkins jenkins = Jenkins.getInstanceOrNull();
+        if (jenkins == null) {
+            return null;
+        }
+        String cacheRootDir = SystemProperties.getString(AbstractGitSCMSource.class.getName() + ".cacheRootDir");
+        return cacheRootDir != null ? new File(cacheRootDir) : new File(jenkins.getRootDir(), "caches");
+    }
+
+    /**
+     * Exclusive lock of a cache directory, as required to fetch into it.
+     *
+     * @param cacheEntry the cache entry.
+     * @return the write lock of the cache entry.
+     */
     protected static Lock getCacheLock(String cacheEntry) {
-        Lock cacheLock;
-        while (null == (cacheLock = cacheLocks.get(cacheEntry))) {
-            cacheLocks.putIfAbsent(cacheEntry, new ReentrantLock());
+        return getCacheReadWriteLock(cacheEntry).writeLock();
+    }
+
+    /**
+     * Lock of a cache directory, shared by readers of its object database and exclusive to fetches.
+     *
+     * @param cacheEntry the cache entry.
+     * @return the lock of the cache entry.
+     */
+    static CacheLock getCacheReadWriteLock(String cacheEntry) {
+        return cacheLocks.computeIfAbsent(cacheEntry, k -> new CacheLock(getCacheEntryStatistics(k)));
+    }
+
+    static CacheStatistics getCacheEntryStatistics(String cacheEntry) {
+        return cacheStatistics.computeIfAbsent(cacheEntry, k -> new CacheStatistics());
+    }
+
+    /**
+     * Drops the statistics of a cache directory that was deleted.
+     *
+     * @param cacheEntry the cache entry.
+     */
+    static void forgetCacheEntry(String cacheEntry) {
+        cacheStatistics.remove(cacheEntry);
+    }
+
+    /**
+     * @return the statistics of each cache entry used since startup.
+     */
+    @Restricted(NoExternalUse.class)
+    public static JSONObject getCacheStatistics() {
+        JSONObject statistics = new JSONObject();
+        for (Map.Entry<String, CacheStatistics> entry : new TreeMap<>(cacheStatistics).entrySet()) {
+            statistics.put(entry.getKey(), entry.getValue().toJSON());
         }
-        return cacheLock;
+        return statistics;
     }
 
     @CheckForNull
@@ -1457,8 +1682,15 @@ public abstract class AbstractGitSCMSource extends SCMSource {
       return quotedBranches.toString();
     }
 
+    /**
+     * Name of the cache directory of a remote, shared by the spellings of the URL of a repository so that one fetch
+     * serves them all. Cache directories named after a former spelling are merged by {@link GitCacheMaintenance}.
+     *
+     * @param remote the remote URL.
+     * @return the cache entry of the repository.
+     */
     /*package*/ static String getCacheEntry(String remote) {
-        return "git-" + Util.getDigestOf(remote);
+        return "git-" + Util.getDigestOf(GitToolChooser.canonicalRepository(remote));
     }
 
     /**
@@ -0,0 +1,139 @@
+package jenkins.plugins.git;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * Lock of a cache repository of the controller.
+ * <p>
+ * Reading the object database of the cache repository, as {@link GitSCMFileSystem} does to load a file or compute a
+ * changelog, takes the read lock and runs alongside other readers. Fetching or pruning, which rewrites refs and packs,
+ * takes the write lock and waits for readers to finish. The time spent waiting for each lock is recorded in the
+ * {@link CacheStatistics} of the cache repository.
+ */
+@Restricted(NoExternalUse.class)
+public final class CacheLock implements ReadWriteLock {
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Lock readLock;
+
+    private final Lock writeLock;
+
+    private final FetchCoordinator fetchCoordinator;
+
+    /**
+     * @param statistics the statistics of the cache repository.
+     */
+    CacheLock(@NonNull CacheStatistics statistics) {
+        readLock = new TimedLock(this, lock.readLock(), statistics.read);
+        writeLock = new TimedLock(this, lock.writeLock(), statistics.write);
+        fetchCoordinator = new FetchCoordinator();
+    }
+
+    /**
+     * Shared access, to read the cache repository.
+     *
+     * @return the read lock.
+     */
+    @NonNull
+    @Override
+    public Lock readLock() {
+        return readLock;
+    }
+
+    /**
+     * Exclusive access, to fetch into or prune the cache repository.
+     *
+     * @return the write lock.
+     */
+    @NonNull
+    @Override
+    public Lock writeLock() {
+        return writeLock;
+    }
+
+    /**
+     * The fetches waiting for the write lock, which lives as long as the lock is held or waited for.
+     *
+     * @return the fetch coordinator of the cache repository.
+     */
+    @NonNull
+    FetchCoordinator getFetchCoordinator() {
+        return fetchCoordinator;
+    }
+
+    /**
+     * Records the time spent waiting for the lock. The lock is not tried first: a read lock acquired by
+     * {@link Lock#tryLock()} would barge ahead of a queued fetch and could starve it while readers keep coming.
+     */
+    private static final class TimedLock implements Lock {
+
+        /**
+         * Whoever holds the lock keeps its {@link CacheLock} reachable, and thus mapped to its cache entry.
+         */
+        @SuppressFBWarnings(value = "URF_UNREAD_FIELD", justification = "Only referenced to be kept reachable")
+        private final CacheLock owner;
+
+        private final Lock delegate;
+
+        private final CacheStatistics.LockStatistics statistics;
+
+        TimedLock(CacheLock owner, Lock delegate, CacheStatistics.LockStatistics statistics) {
+            this.owner = owner;
+            this.delegate = delegate;
+            this.statistics = statistics;
+        }
+
+        @Override
+        public void lock() {
+            long start = System.nanoTime();
+            delegate.lock();
+            statistics.record(System.nanoTime() - start);
+        }
+
+        @Override
+        public void lockInterruptibly() throws InterruptedException {
+            long start = System.nanoTime();
+            delegate.lockInterruptibly();
+            statistics.record(System.nanoTime() - start);
+        }
+
+        @Override
+        public boolean tryLock() {
+            if (delegate.tryLock()) {
+                statistics.record(0);
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public boolean tryLock(long time, @NonNull TimeUnit unit) throws InterruptedException {
+            long start = System.nanoTime();
+            if (delegate.tryLock(time, unit)) {
+                statistics.record(System.nanoTime() - start);
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void unlock() {
+            delegate.unlock();
+        }
+
+        @NonNull
+        @Override
+        public Condition newCondition() {
+            return delegate.newCondition();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package jenkins.plugins.git;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import net.sf.json.JSONObject;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * Statistics of a cache repository of the controller since startup.
+ */
+@Restricted(NoExternalUse.class)
+public final class CacheStatistics {
+
+    final LockStatistics read = new LockStatistics();
+
+    final LockStatistics write = new LockStatistics();
+
+    /**
+     * Fetches run into the cache repository.
+     */
+    final LongAdder fetched = new LongAdder();
+
+    /**
+     * Fetches skipped because the remote refs matched those of the cache repository.
+     */
+    final LongAdder fetchSkipped = new LongAdder();
+
+    /**
+     * Fetches not run because a concurrent fetch of the same refs succeeded, see {@link FetchCoordinator}.
+     */
+    final LongAdder fetchCoalesced = new LongAdder();
+
+    private volatile long lastAccess;
+
+    /**
+     * Notes an access to the cache repository.
+     *
+     * @param now the current time.
+     * @param resolution the minimal time between two recorded accesses.
+     * @return {@code true} if the access was recorded, {@code false} if an access was recorded less than
+     * {@code resolution} milliseconds ago.
+     */
+    boolean accessed(long now, long resolution) {
+        if (now - lastAccess < resolution) {
+            return false;
+        }
+        lastAccess = now;
+        return true;
+    }
+
+    /**
+     * @return the statistics, as JSON.
+     */
+    @NonNull
+    public JSONObject toJSON() {
+        JSONObject lock = new JSONObject();
+        lock.put("read", read.toJSON());
+        lock.put("write", write.toJSON());
+        JSONObject fetch = new JSONObject();
+        fetch.put("executed", fetched.sum());
+        fetch.put("skipped", fetchSkipped.sum());
+        fetch.put("coalesced", fetchCoalesced.sum());
+        JSONObject json = new JSONObject();
+        json.put("lock", lock);
+        json.put("fetch", fetch);
+        json.put("lastAccess", lastAccess);
+        return json;
+    }
+
+    /**
+     * Acquisitions and wait times of one of the locks of the cache repository.
+     */
+    static final class LockStatistics {
+
+        private final LongAdder acquired = new LongAdder();
+
+        private final LongAdder waitNanos = new LongAdder();
+
+        private final LongAccumulator maxWaitNanos = new LongAccumulator(Math::max, 0);
+
+        void record(long nanos) {
+            acquired.increment();
+            waitNanos.add(nanos);
+            maxWaitNanos.accumulate(nanos);
+        }
+
+        JSONObject toJSON() {
+            JSONObject json = new JSONObject();
+            json.put("acquired", acquired.sum());
+            json.put("waitMillis", TimeUnit.NANOSECONDS.toMillis(waitNanos.sum()));
+            json.put("maxWaitMillis", TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get()));
+            return json;
+        }
+    }
+}
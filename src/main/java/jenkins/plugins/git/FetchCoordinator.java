@@ -0,0 +1,172 @@
+package jenkins.plugins.git;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.plugins.git.GitException;
+import java.util.ArrayList;
+import java.util.List;
+import net.jcip.annotations.GuardedBy;
+import org.eclipse.jgit.transport.RefSpec;
+import org.jenkinsci.plugins.gitclient.FetchCommand;
+
+/**
+ * Fetches waiting for a cache repository of the controller, so that concurrent callers fetching the same refs share
+ * one fetch.
+ * <p>
+ * A fetch runs under the write lock of the {@link CacheLock} of the cache repository. Before it waits for the write
+ * lock, a caller looks with {@link #join(Fetch)} for a fetch that covers its own and has not started yet, or else
+ * queues its own fetch for others to join. Once it holds the write lock, {@link #reusable(Fetch)} tells whether the
+ * joined fetch ran and succeeded, in which case the caller does not fetch again. As the joined fetch contacted the
+ * remote after the caller asked for the refs, the cache repository holds refs at least as recent as a fetch of the
+ * caller would have brought.
+ */
+final class FetchCoordinator {
+
+    /**
+     * Fetches waiting for the write lock, that have not contacted the remote yet.
+     */
+    @GuardedBy("this")
+    private final List<Fetch> queued = new ArrayList<>();
+
+    /**
+     * Looks for a queued fetch that fetches at least the refs of a fetch, or queues the fetch. Called before waiting
+     * for the write lock, to be followed by {@link #leave(Fetch)} once the write lock is released.
+     *
+     * @param fetch the fetch of the caller.
+     * @return the queued fetch to reuse if it succeeds, or null if there is none and the fetch of the caller was
+     * queued.
+     */
+    @CheckForNull
+    synchronized Fetch join(@NonNull Fetch fetch) {
+        for (Fetch other : queued) {
+            if (other.covers(fetch)) {
+                return other;
+            }
+        }
+        queued.add(fetch);
+        return null;
+    }
+
+    /**
+     * Tells whether a joined fetch can be reused. Called with the write lock held.
+     *
+     * @param joined the fetch returned by {@link #join(Fetch)}, may be null.
+     * @return {@code true} if the joined fetch ran and succeeded, {@code false} if the caller has to fetch.
+     */
+    boolean reusable(@CheckForNull Fetch joined) {
+        return joined != null && joined.succeeded;
+    }
+
+    /**
+     * Dequeues a fetch that is about to contact the remote, so that callers arriving from now on do not join it.
+     * Called with the write lock held.
+     *
+     * @param fetch the starting fetch.
+     */
+    synchronized void start(@NonNull Fetch fetch) {
+        queued.remove(fetch);
+    }
+
+    /**
+     * Records the outcome of a fetch for the callers that joined it. Called with the write lock held.
+     *
+     * @param fetch the fetch.
+     * @param succeeded whether the cache repository now holds the refs of the fetch.
+     */
+    void finish(@NonNull Fetch fetch, boolean succeeded) {
+        fetch.succeeded = succeeded;
+    }
+
+    /**
+     * Dequeues a fetch that did not run, so that nobody joins it anymore. Called once the caller is done with the
+     * cache repository.
+     *
+     * @param fetch the fetch of the caller.
+     */
+    synchronized void leave(@NonNull Fetch fetch) {
+        queued.remove(fetch);
+    }
+
+    /**
+     * Runs a fetch, dequeued before it starts. Called with the write lock held.
+     *
+     * @param fetch the fetch of the caller.
+     * @param command the command running the fetch.
+     * @throws GitException if the fetch failed.
+     * @throws InterruptedException if interrupted.
+     */
+    void fetch(@NonNull Fetch fetch, @NonNull FetchCommand command) throws GitException, InterruptedException {
+        start(fetch);
+        boolean succeeded = false;
+        try {
+            command.execute();
+            succeeded = true;
+        } finally {
+            finish(fetch, succeeded);
+        }
+    }
+
+    /**
+     * The refs a fetch updates in the cache repository.
+     */
+    static final class Fetch {
+        private final String url;
+        private final String remoteName;
+        private final List<RefSpec> refSpecs;
+        private final boolean tags;
+        private final boolean prune;
+        private volatile boolean succeeded;
+
+        /**
+         * @param url the remote URL.
+         * @param remoteName the name of the remote in the cache repository.
+         * @param refSpecs the refspecs.
+         * @param tags whether the tags are fetched.
+         * @param prune whether the refs deleted from the remote are pruned.
+         */
+        Fetch(@NonNull String url, @NonNull String remoteName, @NonNull List<RefSpec> refSpecs, boolean tags, boolean prune) {
+            this.url = url;
+            this.remoteName = remoteName;
+            this.refSpecs = new ArrayList<>(refSpecs);
+            this.tags = tags;
+            this.prune = prune;
+        }
+
+        /**
+         * @param other another fetch.
+         * @return {@code true} if this fetch updates every ref the other fetch updates, as the other fetch would.
+         */
+        boolean covers(@NonNull Fetch other) {
+            if (!url.equals(other.url) || !remoteName.equals(other.remoteName)
+                    || (other.tags && !tags) || (other.prune && !prune)) {
+                return false;
+            }
+            for (RefSpec refSpec : refSpecs) {
+                if (refSpec.isNegative()) {
+                    return false;
+                }
+            }
+            for (RefSpec spec : other.refSpecs) {
+                if (!covers(spec)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean covers(RefSpec spec) {
+            for (RefSpec refSpec : refSpecs) {
+                if (refSpec.equals(spec)) {
+                    return true;
+                }
+                if (!spec.isWildcard() && spec.getSource() != null && spec.getDestination() != null
+                        && refSpec.isForceUpdate() == spec.isForceUpdate() && refSpec.getDestination() != null
+                        && refSpec.matchSource(spec.getSource())
+                        && spec.getDestination().equals(refSpec.expandFromSource(spec.getSource()).getDestination())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
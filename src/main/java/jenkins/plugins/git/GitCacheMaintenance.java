@@ -0,0 +1,377 @@
+package jenkins.plugins.git;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import hudson.Extension;
+import hudson.Util;
+import hudson.init.InitMilestone;
+import hudson.init.Initializer;
+import hudson.model.AsyncPeriodicWork;
+import hudson.model.TaskListener;
+import hudson.util.LogTaskListener;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jenkins.util.SystemProperties;
+import org.apache.commons.io.FileUtils;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.errors.ConfigInvalidException;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.lib.StoredConfig;
+import org.eclipse.jgit.storage.file.FileBasedConfig;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import org.eclipse.jgit.util.FS;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * Keeps the cache repositories of the controller within a disk budget and in good shape.
+ * <p>
+ * The last access to a cache directory is recorded as its modification time by
+ * {@link AbstractGitSCMSource#getCacheDir(String, boolean)}. When the cache directories use more than
+ * {@link #MAX_SIZE_MB}, the least recently used ones are deleted until they fit, and fetched again if they are needed.
+ * The cache directories used in the last {@link #HOT_DAYS} days and fetched into since they were last garbage collected
+ * are garbage collected: loose objects are packed or pruned, refs are packed and a commit graph with changed paths is
+ * written, which speeds up the history walks of {@link GitCachePolling} and {@link GitSCMFileSystem}. The garbage
+ * collection holds the read lock of the cache directory, so that it only waits for and delays fetches, not readers.
+ * <p>
+ * A cache directory in use is skipped, and looked at again the next time.
+ * <p>
+ * Cache directories named after another spelling of the URL of their repository than
+ * {@link AbstractGitSCMSource#getCacheEntry(String)} expects, such as those created before cache entries were shared
+ * by the spellings of a URL, are renamed at startup when their repository has no cache directory yet, and merged into
+ * the cache directory of their repository before each run.
+ */
+@Extension
+@Restricted(NoExternalUse.class)
+public class GitCacheMaintenance extends AsyncPeriodicWork {
+
+    private static final Logger LOGGER = Logger.getLogger(GitCacheMaintenance.class.getName());
+
+    /**
+     * Hours between two runs.
+     */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL")
+    static /* not final */ int RECURRENCE_HOURS = SystemProperties.getInteger(GitCacheMaintenance.class.getName() + ".recurrenceHours", 24);
+
+    /**
+     * Disk budget of the cache directories, in megabytes. No cache directory is evicted if zero or less.
+     */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL")
+    static /* not final */ long MAX_SIZE_MB = SystemProperties.getLong(GitCacheMaintenance.class.getName() + ".maxSizeMB", 0L);
+
+    /**
+     * Cache directories used in the last days that are garbage collected. None if zero or less.
+     */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL")
+    static /* not final */ int HOT_DAYS = SystemProperties.getInteger(GitCacheMaintenance.class.getName() + ".hotDays", 7);
+
+    /**
+     * File of the git directory touched after each garbage collection.
+     */
+    private static final String GC_STAMP = "jenkins-gc";
+
+    public GitCacheMaintenance() {
+        super("Git cache maintenance");
+    }
+
+    @Override
+    public long getRecurrencePeriod() {
+        return TimeUnit.HOURS.toMillis(Math.max(1, RECURRENCE_HOURS));
+    }
+
+    /**
+     * Renames the cache directories before any job fetches into them, so that a job does not fetch again what its
+     * former cache directory holds. Copying objects between cache directories could take long, it is left to the next
+     * run.
+     *
+     * @throws InterruptedException if interrupted.
+     */
+    @Initializer(after = InitMilestone.EXTENSIONS_AUGMENTED, before = InitMilestone.JOB_LOADED)
+    public static void mergeDuplicateCaches() throws InterruptedException {
+        File root = AbstractGitSCMSource.getCacheRootDir();
+        if (root != null) {
+            mergeDuplicates(root, false, new LogTaskListener(LOGGER, Level.INFO));
+        }
+    }
+
+    @Override
+    protected void execute(TaskListener listener) throws IOException, InterruptedException {
+        File root = AbstractGitSCMSource.getCacheRootDir();
+        if (root == null) {
+            return;
+        }
+        maintain(root, listener);
+    }
+
+    /**
+     * Evicts and garbage collects the cache directories of a root directory.
+     *
+     * @param root the directory of the cache directories.
+     * @param listener the log.
+     * @throws InterruptedException if interrupted.
+     */
+    static void maintain(@NonNull File root, @NonNull TaskListener listener) throws InterruptedException {
+        mergeDuplicates(root, true, listener);
+        PrintStream logger = listener.getLogger();
+        List<CacheDir> caches = new ArrayList<>();
+        File[] dirs = root.listFiles((dir, name) -> name.startsWith("git-"));
+        if (dirs == null) {
+            return;
+        }
+        long total = 0;
+        for (File dir : dirs) {
+            if (dir.isDirectory()) {
+                CacheDir cache = new CacheDir(dir);
+                caches.add(cache);
+                total += cache.size;
+            }
+        }
+        caches.sort(Comparator.comparingLong(cache -> cache.lastAccess));
+        long budget = MAX_SIZE_MB * FileUtils.ONE_MB;
+        logger.printf("%d cache directories using %d MB%n", caches.size(), total / FileUtils.ONE_MB);
+
+        List<CacheDir> kept = new ArrayList<>();
+        for (CacheDir cache : caches) {
+            if (budget > 0 && total > budget && evict(cache, logger)) {
+                total -= cache.size;
+            } else {
+                kept.add(cache);
+            }
+        }
+
+        long hotSince = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(HOT_DAYS);
+        for (CacheDir cache : kept) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            if (cache.lastAccess >= hotSince) {
+                garbageCollect(cache, logger);
+            }
+        }
+    }
+
+    /**
+     * Moves each cache directory that is not named after the cache entry of its remote URL to that cache entry. When
+     * the cache entry already exists, the objects of the duplicate cache directory are copied into it and the
+     * duplicate is deleted. Its refs are not copied, the next fetch finds their objects and only updates them.
+     *
+     * @param root the directory of the cache directories.
+     * @param copy whether to copy objects into existing cache entries, or only to rename cache directories.
+     * @param listener the log.
+     * @throws InterruptedException if interrupted.
+     */
+    static void mergeDuplicates(@NonNull File root, boolean copy, @NonNull TaskListener listener) throws InterruptedException {
+        PrintStream logger = listener.getLogger();
+        File[] dirs = root.listFiles((dir, name) -> name.startsWith("git-"));
+        if (dirs == null) {
+            return;
+        }
+        // the most recently used duplicate becomes the cache directory if there is none yet
+        Arrays.sort(dirs, Comparator.comparingLong(File::lastModified).reversed());
+        for (File dir : dirs) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            String remote = remoteUrl(dir);
+            if (remote == null) {
+                continue;
+            }
+            String entry = AbstractGitSCMSource.getCacheEntry(remote);
+            if (!entry.equals(dir.getName())) {
+                merge(dir, new File(root, entry), copy, logger);
+            }
+        }
+    }
+
+    /**
+     * @param dir a cache directory.
+     * @return the URL of the first remote of the cache directory, or null if it has none.
+     */
+    @CheckForNull
+    private static String remoteUrl(File dir) {
+        File configFile = new File(dir, ".git/config");
+        if (!configFile.isFile()) {
+            return null;
+        }
+        FileBasedConfig config = new FileBasedConfig(configFile, FS.DETECTED);
+        try {
+            config.load();
+        } catch (IOException | ConfigInvalidException e) {
+            LOGGER.log(Level.FINE, "Failed to read " + configFile, e);
+            return null;
+        }
+        for (String remoteName : config.getSubsections("remote")) {
+            String url = config.getString("remote", remoteName, "url");
+            if (url != null) {
+                return url;
+            }
+        }
+        return null;
+    }
+
+    private static void merge(File duplicate, File target, boolean copy, PrintStream logger) {
+        String entry = duplicate.getName();
+        Lock duplicateLock = AbstractGitSCMSource.getCacheLock(entry);
+        if (!duplicateLock.tryLock()) {
+            logger.println("Not merging " + entry + ", in use");
+            return;
+        }
+        try {
+            Lock targetLock = AbstractGitSCMSource.getCacheLock(target.getName());
+            if (!targetLock.tryLock()) {
+                logger.println("Not merging " + entry + " into " + target.getName() + ", in use");
+                return;
+            }
+            try {
+                if (!new File(target, ".git").isDirectory()) {
+                    if (target.exists()) {
+                        Util.deleteRecursive(target);
+                    }
+                    Files.move(duplicate.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE);
+                    logger.println("Moved " + entry + " to " + target.getName());
+                } else if (!copy) {
+                    logger.println("Not merging " + entry + " into " + target.getName() + " yet");
+                    return;
+                } else {
+                    copyObjects(new File(duplicate, ".git/objects"), new File(target, ".git/objects"));
+                    Util.deleteRecursive(duplicate);
+                    logger.println("Merged " + entry + " into " + target.getName());
+                }
+                AbstractGitSCMSource.forgetCacheEntry(entry);
+            } finally {
+                targetLock.unlock();
+            }
+        } catch (IOException e) {
+            logger.println("Failed to merge " + entry + " into " + target.getName() + ": " + e);
+        } finally {
+            duplicateLock.unlock();
+        }
+    }
+
+    /**
+     * Copies the packs and loose objects missing from an object database. A pack is copied before its index, which is
+     * what makes it visible. Bitmaps are not copied, as only one of them is used by a repository.
+     */
+    private static void copyObjects(File from, File to) throws IOException {
+        File[] packs = new File(from, "pack").listFiles((dir, name) -> name.endsWith(".pack"));
+        if (packs != null) {
+            File packDir = new File(to, "pack");
+            Files.createDirectories(packDir.toPath());
+            for (File pack : packs) {
+                String name = pack.getName().substring(0, pack.getName().length() - ".pack".length());
+                File index = new File(pack.getParentFile(), name + ".idx");
+                if (index.isFile() && !new File(packDir, name + ".idx").exists()) {
+                    Files.copy(pack.toPath(), new File(packDir, pack.getName()).toPath(), StandardCopyOption.REPLACE_EXISTING);
+                    Files.copy(index.toPath(), new File(packDir, index.getName()).toPath());
+                }
+            }
+        }
+        File[] fanouts = from.listFiles((dir, name) -> name.length() == 2);
+        if (fanouts != null) {
+            for (File fanout : fanouts) {
+                File[] objects = fanout.listFiles();
+                if (objects == null) {
+                    continue;
+                }
+                File targetFanout = new File(to, fanout.getName());
+                Files.createDirectories(targetFanout.toPath());
+                for (File object : objects) {
+                    File targetObject = new File(targetFanout, object.getName());
+                    if (!targetObject.exists()) {
+                        Files.copy(object.toPath(), targetObject.toPath());
+                    }
+                }
+            }
+        }
+    }
+
+    private static boolean evict(CacheDir cache, PrintStream logger) {
+        Lock lock = AbstractGitSCMSource.getCacheLock(cache.entry);
+        if (!lock.tryLock()) {
+            logger.println("Not evicting " + cache.entry + ", in use");
+            return false;
+        }
+        try {
+            Util.deleteRecursive(cache.dir);
+            AbstractGitSCMSource.forgetCacheEntry(cache.entry);
+            logger.printf("Evicted %s, %d MB, last used %tF%n", cache.entry, cache.size / FileUtils.ONE_MB, cache.lastAccess);
+            return true;
+        } catch (IOException e) {
+            logger.println("Failed to evict " + cache.entry + ": " + e);
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static void garbageCollect(CacheDir cache, PrintStream logger) {
+        File gitDir = new File(cache.dir, ".git");
+        if (!gitDir.isDirectory()) {
+            return;
+        }
+        File stamp = new File(gitDir, GC_STAMP);
+        if (stamp.isFile() && new File(gitDir, "FETCH_HEAD").lastModified() <= stamp.lastModified()) {
+            logger.println("Not garbage collecting " + cache.entry + ", nothing fetched since the last time");
+            return;
+        }
+        // readers can use the old and the new packs alike, fetches wait
+        Lock lock = AbstractGitSCMSource.getCacheReadWriteLock(cache.entry).readLock();
+        if (!lock.tryLock()) {
+            logger.println("Not garbage collecting " + cache.entry + ", being fetched");
+            return;
+        }
+        try (Repository repository = new FileRepositoryBuilder().setGitDir(gitDir).setMustExist(true).build()) {
+            StoredConfig config = repository.getConfig();
+            config.setBoolean("core", null, "commitGraph", true);
+            config.setBoolean("gc", null, "writeCommitGraph", true);
+            config.setBoolean("gc", null, "writeChangedPaths", true);
+            // keeps the commit graph up to date between two runs when fetching with command line git
+            config.setBoolean("fetch", null, "writeCommitGraph", true);
+            config.save();
+            org.eclipse.jgit.api.Git.wrap(repository).gc().call();
+            FileUtils.touch(stamp);
+            logger.printf("Garbage collected %s, %d MB before%n", cache.entry, cache.size / FileUtils.ONE_MB);
+        } catch (IOException | GitAPIException e) {
+            logger.println("Failed to garbage collect " + cache.entry + ": " + e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * A cache directory with its size and last access, read once when the maintenance starts.
+     */
+    private static final class CacheDir {
+        final File dir;
+        final String entry;
+        final long size;
+        final long lastAccess;
+
+        CacheDir(File dir) {
+            this.dir = dir;
+            this.entry = dir.getName();
+            long size;
+            try {
+                size = FileUtils.sizeOfDirectory(dir);
+            } catch (UncheckedIOException | IllegalArgumentException e) {
+                // files removed by a concurrent fetch
+                size = 0;
+            }
+            this.size = size;
+            this.lastAccess = dir.lastModified();
+        }
+    }
+}
@@ -0,0 +1,277 @@
+package jenkins.plugins.git;
+
+import com.cloudbees.plugins.credentials.CredentialsProvider;
+import com.cloudbees.plugins.credentials.common.StandardCredentials;
+import com.cloudbees.plugins.credentials.common.StandardUsernameCredentials;
+import com.cloudbees.plugins.credentials.domains.URIRequirementBuilder;
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.EnvVars;
+import hudson.Util;
+import hudson.model.Item;
+import hudson.model.TaskListener;
+import hudson.plugins.git.GitChangeSet;
+import hudson.plugins.git.GitException;
+import hudson.plugins.git.GitSCM;
+import hudson.plugins.git.GitTool;
+import hudson.plugins.git.UserRemoteConfig;
+import hudson.plugins.git.extensions.GitSCMExtension;
+import hudson.plugins.git.extensions.impl.AuthorInChangelog;
+import hudson.plugins.git.extensions.impl.MessageExclusion;
+import hudson.plugins.git.extensions.impl.PathRestriction;
+import hudson.plugins.git.extensions.impl.UserExclusion;
+import hudson.plugins.git.util.BuildData;
+import hudson.plugins.git.util.RawLogRepositoryCallback;
+import hudson.security.ACL;
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import org.apache.commons.lang3.StringUtils;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.transport.RefSpec;
+import org.eclipse.jgit.transport.URIish;
+import org.eclipse.jgit.treewalk.filter.ChangedPathTreeFilter;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+import org.jenkinsci.plugins.gitclient.CliGitAPIImpl;
+import org.jenkinsci.plugins.gitclient.FetchCommand;
+import org.jenkinsci.plugins.gitclient.Git;
+import org.jenkinsci.plugins.gitclient.GitClient;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * Evaluates the commits of a polled branch against the exclusion rules of a {@link GitSCM} in the controller's cache
+ * repository of its remote, so that {@link PathRestriction}, along with {@link UserExclusion} and
+ * {@link MessageExclusion}, does not need a workspace to poll.
+ * <p>
+ * The branch is fetched into the cache repository shared with {@link AbstractGitSCMSource}, through its
+ * {@link FetchCoordinator}, and the commits between the last built revision and the head are walked in process,
+ * computing the paths each one changes against each of its parents, as workspace polling does. When the cache
+ * repository has a commit-graph with changed-path Bloom filters and every included region starts with a literal
+ * directory, commits that changed paths but cannot have changed an included directory are excluded without reading
+ * their trees, provided no extension evaluated before {@link PathRestriction} can include them.
+ */
+@Restricted(NoExternalUse.class)
+public final class GitCachePolling {
+
+    private GitCachePolling() {
+    }
+
+    /**
+     * Tells whether a branch has commits since the last build that are not excluded.
+     *
+     * @param owner the polled job.
+     * @param scm the polled SCM.
+     * @param config the configuration of the polled remote.
+     * @param remote the url of the polled remote, with parameters expanded.
+     * @param head the polled ref, such as {@code refs/heads/main}.
+     * @param from the last built revision.
+     * @param to the head of the branch.
+     * @param buildData the build data of the last build.
+     * @param listener the polling log.
+     * @return {@code true} if at least one commit is not excluded.
+     * @throws IOException if the cache repository could not be updated or read.
+     * @throws InterruptedException if interrupted.
+     */
+    public static boolean hasIncludedCommits(@NonNull Item owner, @NonNull GitSCM scm, @NonNull UserRemoteConfig config,
+                                             @NonNull String remote, @NonNull String head, @NonNull ObjectId from,
+                                             @NonNull ObjectId to, @NonNull BuildData buildData,
+                                             @NonNull TaskListener listener) throws IOException, InterruptedException {
+        String cacheEntry = AbstractGitSCMSource.getCacheEntry(remote);
+        String remoteName = StringUtils.defaultIfBlank(config.getName(), Constants.DEFAULT_REMOTE_NAME);
+        RefSpec refSpec = new RefSpec("+" + head + ":" + Constants.R_REMOTES + remoteName + "/"
+                + StringUtils.removeStart(head, Constants.R_HEADS));
+        // fetch_() fetches the tags unless told otherwise
+        FetchCoordinator.Fetch cacheFetch = new FetchCoordinator.Fetch(remote, remoteName, Collections.singletonList(refSpec), true, false);
+        CacheLock cacheReadWriteLock = AbstractGitSCMSource.getCacheReadWriteLock(cacheEntry);
+        FetchCoordinator fetchCoordinator = cacheReadWriteLock.getFetchCoordinator();
+        FetchCoordinator.Fetch joined = fetchCoordinator.join(cacheFetch);
+        Lock cacheLock = cacheReadWriteLock.writeLock();
+        cacheLock.lock();
+        try {
+            File cacheDir = AbstractGitSCMSource.getCacheDir(cacheEntry);
+            if (cacheDir == null) {
+                return true;
+            }
+            Git git = Git.with(listener, new EnvVars(EnvVars.masterEnvVars)).in(cacheDir);
+            GitTool tool = scm.resolveGitTool(listener);
+            if (tool != null) {
+                git.using(tool.getGitExe());
+            }
+            GitClient client = git.getClient();
+            String credentialsId = config.getCredentialsId();
+            if (credentialsId != null) {
+                var credential = CredentialsProvider.findCredentialByIdInItem(
+                        credentialsId,
+                        StandardUsernameCredentials.class,
+                        owner,
+                        ACL.SYSTEM2,
+                        URIRequirementBuilder.fromUri(remote).build());
+                StandardCredentials matchedCredential = credential != null && GitClient.CREDENTIALS_MATCHER.matches(credential)
+                        ? credential
+                        : null;
+                client.addDefaultCredentials(matchedCredential);
+                CredentialsProvider.track(owner, matchedCredential);
+            }
+            if (!client.hasGitRepo(false)) {
+                listener.getLogger().println("Creating git repository in " + cacheDir);
+                client.init();
+            }
+            GitHooksConfiguration.configure(client, GitHooksConfiguration.get().isAllowedOnController());
+            CacheStatistics statistics = AbstractGitSCMSource.getCacheEntryStatistics(cacheEntry);
+            boolean reusable = fetchCoordinator.reusable(joined);
+            // the head was listed from the remote by the caller, a fetch would not bring anything polling needs
+            if ((AbstractGitSCMSource.SKIP_UNCHANGED_FETCH || reusable) && client.isCommitInRepo(to)) {
+                if (reusable) {
+                    listener.getLogger().println("[poll] Reusing a concurrent fetch of " + head + " into the cache repository");
+                    statistics.fetchCoalesced.increment();
+                } else {
+                    statistics.fetchSkipped.increment();
+                }
+            } else {
+                client.setRemoteUrl(remoteName, remote);
+                URIish remoteURI;
+                try {
+                    remoteURI = new URIish(remoteName);
+                } catch (URISyntaxException ex) {
+                    throw new IOException(ex);
+                }
+                listener.getLogger().println("[poll] Fetching " + head + " into the cache repository");
+                FetchCommand fetch = client.fetch_().from(remoteURI, Collections.singletonList(refSpec));
+                fetchCoordinator.fetch(cacheFetch, fetch);
+                statistics.fetched.increment();
+            }
+            if (!client.isCommitInRepo(from)) {
+                listener.getLogger().println("[poll] Last built revision " + from.name() + " is not in the cache repository");
+                return true;
+            }
+            try (@SuppressWarnings("deprecation") // Local repository reference
+                 Repository repository = client.getRepository()) {
+                return hasIncludedCommits(repository, client, scm, from, to, buildData, listener);
+            }
+        } catch (GitException x) {
+            throw new IOException(x);
+        } finally {
+            cacheLock.unlock();
+            fetchCoordinator.leave(cacheFetch);
+        }
+    }
+
+    private static boolean hasIncludedCommits(Repository repository, GitClient client, GitSCM scm, ObjectId from,
+                                              ObjectId to, BuildData buildData, TaskListener listener)
+            throws IOException, InterruptedException {
+        PathRestriction pathRestriction = scm.getExtensions().get(PathRestriction.class);
+        List<String> directories = pathRestriction == null ? null : literalDirectories(pathRestriction.getIncludedRegionsNormalized());
+        ChangedPathTreeFilter changedPaths = directories == null || !pathRestrictionDecidesFirst(scm) ? null
+                : ChangedPathTreeFilter.create(directories.toArray(new String[0]));
+        boolean showEntireCommitSummary = GitChangeSet.isShowEntireCommitSummaryInChanges() || !(client instanceof CliGitAPIImpl);
+        boolean authorOrCommitter = scm.getExtensions().get(AuthorInChangelog.class) != null;
+        int walked = 0;
+        int skipped = 0;
+        try (RevWalk walk = new RevWalk(repository)) {
+            walk.markStart(walk.parseCommit(to));
+            walk.markUninteresting(walk.parseCommit(from));
+            TreeFilter.MutableBoolean usedBloomFilter = new TreeFilter.MutableBoolean();
+            for (RevCommit commit : walk) {
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+                walked++;
+                // the filters only hold the paths changed since the first parent, and a commit changing no path is
+                // not excluded by PathRestriction
+                if (changedPaths != null && commit.getParentCount() == 1 && changesPaths(walk, commit)) {
+                    usedBloomFilter.reset();
+                    if (!changedPaths.shouldTreeWalk(commit, walk, usedBloomFilter) && usedBloomFilter.get()) {
+                        // the commit did not change any included directory
+                        skipped++;
+                        continue;
+                    }
+                }
+                // a merge is evaluated against each of its parents, as with a workspace
+                for (List<String> rawLog : RawLogRepositoryCallback.format(repository, commit, true)) {
+                    GitChangeSet change = new GitChangeSet(rawLog, authorOrCommitter, showEntireCommitSummary);
+                    if (!scm.isCommitExcluded(client, change, listener, buildData)) {
+                        listener.getLogger().println("[poll] Commit " + commit.name() + " is not excluded, "
+                                + walked + " commits read in the cache repository");
+                        return true;
+                    }
+                }
+            }
+        }
+        listener.getLogger().println("[poll] All " + walked + " commits are excluded"
+                + (skipped > 0 ? ", " + skipped + " of them by changed-path filters" : ""));
+        return false;
+    }
+
+    /**
+     * Tells whether the extensions evaluated before {@link PathRestriction} never include a commit, so that a commit
+     * excluded by {@link PathRestriction} is excluded by {@link GitSCM#isCommitExcluded}.
+     *
+     * @param scm the polled SCM.
+     * @return {@code true} if every extension before {@link PathRestriction} only ever excludes commits.
+     */
+    static boolean pathRestrictionDecidesFirst(@NonNull GitSCM scm) {
+        for (GitSCMExtension extension : scm.getExtensions()) {
+            if (extension instanceof PathRestriction) {
+                return true;
+            }
+            if (!(extension instanceof UserExclusion) && !(extension instanceof MessageExclusion)
+                    && Util.isOverridden(GitSCMExtension.class, extension.getClass(), "isRevExcluded",
+                    GitSCM.class, GitClient.class, GitChangeSet.class, TaskListener.class, BuildData.class)) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    private static boolean changesPaths(RevWalk walk, RevCommit commit) throws IOException {
+        RevCommit parent = walk.parseHeaders(commit.getParent(0));
+        return !parent.getTree().equals(commit.getTree());
+    }
+
+    /**
+     * Finds the directory every path matched by each region must be in.
+     *
+     * @param regions the included regions.
+     * @return the directories, or {@code null} if there are no regions or a region can match paths in any directory.
+     */
+    @CheckForNull
+    static List<String> literalDirectories(@CheckForNull String[] regions) {
+        if (regions == null || regions.length == 0) {
+            return null;
+        }
+        List<String> directories = new ArrayList<>(regions.length);
+        for (String region : regions) {
+            if (region.indexOf('|') >= 0) {
+                // an alternation may match paths outside the leading directory
+                return null;
+            }
+            int slash = -1;
+            for (int i = 0; i < region.length(); i++) {
+                char c = region.charAt(i);
+                if (c == '/') {
+                    slash = i;
+                } else if (!Character.isLetterOrDigit(c) && c != '-' && c != '_') {
+                    if (i == slash + 1 && (c == '?' || c == '*' || c == '{')) {
+                        // the slash itself is optional
+                        slash = -1;
+                    }
+                    break;
+                }
+            }
+            if (slash <= 0) {
+                return null;
+            }
+            directories.add(region.substring(0, slash));
+        }
+        return directories;
+    }
+}
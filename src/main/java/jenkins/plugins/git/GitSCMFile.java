@@ -68,7 +68,7 @@ public class GitSCMFile extends SCMFile {
     @NonNull
     @Override
     public Iterable<SCMFile> children() throws IOException, InterruptedException {
-        return fs.invoke((Repository repository) -> {
+        return fs.read((Repository repository) -> {
             try (RevWalk walk = new RevWalk(repository)) {
                 RevCommit commit = walk.parseCommit(fs.getCommitId());
                 RevTree tree = commit.getTree();
@@ -115,7 +115,7 @@ public class GitSCMFile extends SCMFile {
     @NonNull
     @Override
     protected Type type() throws IOException, InterruptedException {
-        return fs.invoke((Repository repository) -> {
+        return fs.read((Repository repository) -> {
             try (RevWalk walk = new RevWalk(repository)) {
                 RevCommit commit = walk.parseCommit(fs.getCommitId());
                 RevTree tree = commit.getTree();
@@ -148,7 +148,7 @@ public class GitSCMFile extends SCMFile {
     @NonNull
     @Override
     public InputStream content() throws IOException, InterruptedException {
-        return fs.invoke((Repository repository) -> {
+        return fs.read((Repository repository) -> {
             try (RevWalk walk = new RevWalk(repository)) {
                 RevCommit commit = walk.parseCommit(fs.getCommitId());
                 RevTree tree = commit.getTree();
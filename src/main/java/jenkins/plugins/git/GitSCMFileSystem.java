@@ -55,6 +55,7 @@ import java.io.Writer;
 import java.net.URISyntaxException;
 import java.nio.charset.StandardCharsets;
 import java.util.Collections;
+import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
@@ -75,6 +76,7 @@ import org.eclipse.jgit.revwalk.RevWalk;
 import org.eclipse.jgit.transport.RefSpec;
 import org.eclipse.jgit.transport.URIish;
 import org.jenkinsci.plugins.gitclient.ChangelogCommand;
+import org.jenkinsci.plugins.gitclient.FetchCommand;
 import org.jenkinsci.plugins.gitclient.Git;
 import org.jenkinsci.plugins.gitclient.GitClient;
 
@@ -175,7 +177,24 @@ public class GitSCMFileSystem extends SCMFileSystem {
      * @throws InterruptedException if interrupted
      */
     public <V> V invoke(final FSFunction<V> function) throws IOException, InterruptedException {
-        Lock cacheLock = AbstractGitSCMSource.getCacheLock(cacheEntry);
+        return invoke(function, AbstractGitSCMSource.getCacheLock(cacheEntry));
+    }
+
+    /**
+     * Called with an {@link FSFunction} callback that only reads the objects of the repository, with a read lock of
+     * the repository cache shared with other readers.
+     *
+     * @param <V> return type
+     * @param function callback that does not modify the repository
+     * @return whatever you return from the provided function
+     * @throws IOException if there is an I/O error
+     * @throws InterruptedException if interrupted
+     */
+    /*package*/ <V> V read(final FSFunction<V> function) throws IOException, InterruptedException {
+        return invoke(function, AbstractGitSCMSource.getCacheReadWriteLock(cacheEntry).readLock());
+    }
+
+    private <V> V invoke(final FSFunction<V> function, Lock cacheLock) throws IOException, InterruptedException {
         cacheLock.lock();
         try {
             File cacheDir = AbstractGitSCMSource.getCacheDir(cacheEntry);
@@ -200,7 +219,7 @@ public class GitSCMFileSystem extends SCMFileSystem {
             // 2. what has changed between the current revision and the current revision
             return false;
         }
-        Lock cacheLock = AbstractGitSCMSource.getCacheLock(cacheEntry);
+        Lock cacheLock = AbstractGitSCMSource.getCacheReadWriteLock(cacheEntry).readLock();
         cacheLock.lock();
         try {
             File cacheDir = AbstractGitSCMSource.getCacheDir(cacheEntry);
@@ -360,8 +379,16 @@ public class GitSCMFileSystem extends SCMFileSystem {
                 env = _build.getEnvironment(listener);
             }
 
+            String remoteName = StringUtils.defaultIfBlank(config.getName(), Constants.DEFAULT_REMOTE_NAME);
+            HeadNameResult headNameResult = HeadNameResult.calculate(branchSpec, rev, env);
+            RefSpec refSpec = new RefSpec("+" + headNameResult.prefix + headNameResult.headName + ":" + Constants.R_REMOTES
+                    + remoteName + "/" + headNameResult.headName);
+            // fetch_() fetches the tags unless told otherwise
+            FetchCoordinator.Fetch cacheFetch = new FetchCoordinator.Fetch(remote, remoteName, Collections.singletonList(refSpec), true, true);
             String cacheEntry = AbstractGitSCMSource.getCacheEntry(remote);
-            Lock cacheLock = AbstractGitSCMSource.getCacheLock(cacheEntry);
+            CacheLock cacheReadWriteLock = AbstractGitSCMSource.getCacheReadWriteLock(cacheEntry);
+            FetchCoordinator.Fetch joined = cacheReadWriteLock.getFetchCoordinator().join(cacheFetch);
+            Lock cacheLock = cacheReadWriteLock.writeLock();
             cacheLock.lock();
             try {
                 File cacheDir = AbstractGitSCMSource.getCacheDir(cacheEntry);
@@ -391,7 +418,6 @@ public class GitSCMFileSystem extends SCMFileSystem {
                     client.init();
                 }
                 GitHooksConfiguration.configure(client, GitHooksConfiguration.get().isAllowedOnController());
-                String remoteName = StringUtils.defaultIfBlank(config.getName(), Constants.DEFAULT_REMOTE_NAME);
                 listener.getLogger().println("Setting " + remoteName + " to " + remote);
                 client.setRemoteUrl(remoteName, remote);
                 listener.getLogger().println("Fetching & pruning " + remoteName + "...");
@@ -402,11 +428,9 @@ public class GitSCMFileSystem extends SCMFileSystem {
                     listener.getLogger().println("URI syntax exception for '" + remoteName + "' " + ex);
                 }
 
-                HeadNameResult headNameResult = HeadNameResult.calculate(branchSpec, rev, env);
-
-                client.fetch_().prune(true).from(remoteURI, Collections.singletonList(new RefSpec(
-                        "+" + headNameResult.prefix + headNameResult.headName + ":" + Constants.R_REMOTES + remoteName + "/"
-                                + headNameResult.headName))).execute();
+                fetch(cacheReadWriteLock, cacheEntry, joined, cacheFetch,
+                        client.fetch_().prune(true).from(remoteURI, Collections.singletonList(refSpec)), client,
+                        (AbstractGitSCMSource.SCMRevisionImpl) rev, listener);
 
                 listener.getLogger().println("Done.");
                 return new GitSCMFileSystem(client, remote, Constants.R_REMOTES + remoteName + "/" + headNameResult.headName, (AbstractGitSCMSource.SCMRevisionImpl) rev);
@@ -414,6 +438,7 @@ public class GitSCMFileSystem extends SCMFileSystem {
                 throw new IOException(x);
             } finally {
                 cacheLock.unlock();
+                cacheReadWriteLock.getFetchCoordinator().leave(cacheFetch);
             }
         }
 
@@ -426,8 +451,14 @@ public class GitSCMFileSystem extends SCMFileSystem {
             TaskListener listener = new LogTaskListener(LOGGER, Level.FINE);
             AbstractGitSCMSource gitSCMSource = (AbstractGitSCMSource) source;
             GitSCMBuilder<?> builder = gitSCMSource.newBuilder(head, rev);
+            String remoteName = builder.remoteName();
+            List<RefSpec> refSpecs = builder.asRefSpecs();
+            // fetch_() fetches the tags unless told otherwise
+            FetchCoordinator.Fetch cacheFetch = new FetchCoordinator.Fetch(gitSCMSource.getRemote(), remoteName, refSpecs, true, true);
             String cacheEntry = gitSCMSource.getCacheEntry();
-            Lock cacheLock = AbstractGitSCMSource.getCacheLock(cacheEntry);
+            CacheLock cacheReadWriteLock = AbstractGitSCMSource.getCacheReadWriteLock(cacheEntry);
+            FetchCoordinator.Fetch joined = cacheReadWriteLock.getFetchCoordinator().join(cacheFetch);
+            Lock cacheLock = cacheReadWriteLock.writeLock();
             cacheLock.lock();
             try {
                 File cacheDir = AbstractGitSCMSource.getCacheDir(cacheEntry);
@@ -443,7 +474,6 @@ public class GitSCMFileSystem extends SCMFileSystem {
                     client.init();
                 }
                 GitHooksConfiguration.configure(client, GitHooksConfiguration.get().isAllowedOnController());
-                String remoteName = builder.remoteName();
                 listener.getLogger().println("Setting " + remoteName + " to " + gitSCMSource.getRemote());
                 client.setRemoteUrl(remoteName, gitSCMSource.getRemote());
                 listener.getLogger().println("Fetching & pruning " + remoteName + "...");
@@ -453,7 +483,8 @@ public class GitSCMFileSystem extends SCMFileSystem {
                 } catch (URISyntaxException ex) {
                     listener.getLogger().println("URI syntax exception for '" + remoteName + "' " + ex);
                 }
-                client.fetch_().prune(true).from(remoteURI, builder.asRefSpecs()).execute();
+                fetch(cacheReadWriteLock, cacheEntry, joined, cacheFetch, client.fetch_().prune(true).from(remoteURI, refSpecs),
+                        client, (AbstractGitSCMSource.SCMRevisionImpl) rev, listener);
                 listener.getLogger().println("Done.");
                 return new GitSCMFileSystem(client, gitSCMSource.getRemote(), Constants.R_REMOTES+remoteName+"/"+head.getName(),
                         (AbstractGitSCMSource.SCMRevisionImpl) rev);
@@ -461,7 +492,27 @@ public class GitSCMFileSystem extends SCMFileSystem {
                 throw new IOException(x);
             } finally {
                 cacheLock.unlock();
+                cacheReadWriteLock.getFetchCoordinator().leave(cacheFetch);
+            }
+        }
+
+        /**
+         * Fetches into the cache repository, unless a concurrent fetch of the same refs, started since the caller
+         * asked for them, succeeded and brought the requested revision.
+         */
+        private static void fetch(CacheLock cacheLock, String cacheEntry, @CheckForNull FetchCoordinator.Fetch joined,
+                                  FetchCoordinator.Fetch fetch, FetchCommand command, GitClient client,
+                                  @CheckForNull AbstractGitSCMSource.SCMRevisionImpl rev, TaskListener listener)
+                throws GitException, InterruptedException {
+            FetchCoordinator fetchCoordinator = cacheLock.getFetchCoordinator();
+            CacheStatistics statistics = AbstractGitSCMSource.getCacheEntryStatistics(cacheEntry);
+            if (fetchCoordinator.reusable(joined) && (rev == null || client.isCommitInRepo(ObjectId.fromString(rev.getHash())))) {
+                listener.getLogger().println("Reusing a concurrent fetch");
+                statistics.fetchCoalesced.increment();
+                return;
             }
+            fetchCoordinator.fetch(fetch, command);
+            statistics.fetched.increment();
         }
     }
 }
@@ -54,10 +54,10 @@ import hudson.util.ListBoxModel;
 import java.io.IOException;
 import java.io.ObjectStreamException;
 import java.io.PrintWriter;
-import java.net.URISyntaxException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -84,8 +84,6 @@ import jenkins.scm.api.SCMRevision;
 import jenkins.scm.api.SCMSource;
 import jenkins.scm.api.SCMSourceDescriptor;
 import jenkins.scm.api.SCMSourceOwner;
-import jenkins.scm.api.SCMSourceOwners;
-import jenkins.scm.api.trait.SCMHeadPrefilter;
 import jenkins.scm.api.trait.SCMSourceTrait;
 import jenkins.scm.api.trait.SCMSourceTraitDescriptor;
 import jenkins.scm.api.trait.SCMTrait;
@@ -588,8 +586,13 @@ public class GitSCMSource extends AbstractGitSCMSource {
             // this is safe because when we actually schedule a build, it's a build that can
             // happen at some random time anyway.
             try (ACLContext context = ACL.as(ACL.SYSTEM)) {
+                List<GitSCMSourceRegistry.Match> matches = GitSCMSourceRegistry.get().findMatches(uri);
                 if (branches.length > 0) {
                     final URIish u = uri;
+                    final Map<SCMSource, GitSCMSourceRegistry.Match> matchesBySource = new IdentityHashMap<>();
+                    for (GitSCMSourceRegistry.Match match : matches) {
+                        matchesBySource.put(match.getSource(), match);
+                    }
                     for (final String branch: branches) {
                         SCMHeadEvent.fireNow(new SCMHeadEvent<String>(SCMEvent.Type.UPDATED, branch, origin){
                             @Override
@@ -606,25 +609,9 @@ public class GitSCMSource extends AbstractGitSCMSource {
 
                             @Override
                             public boolean isMatch(SCMSource source) {
-                                if (source instanceof GitSCMSource git) {
-                                    GitSCMSourceContext ctx =
-                                            new GitSCMSourceContext<>(null, SCMHeadObserver.none())
-                                                    .withTraits(git.getTraits());
-                                    if (ctx.ignoreOnPushNotifications()) {
-                                        return false;
-                                    }
-                                    URIish remote;
-                                    try {
-                                        remote = new URIish(git.getRemote());
-                                    } catch (URISyntaxException e) {
-                                        // ignore
-                                        return false;
-                                    }
-                                    if (GitStatus.looselyMatches(u, remote)) {
-                                        notified[0] = true;
-                                        return true;
-                                    }
-                                    return false;
+                                if (matchesBySource.containsKey(source)) {
+                                    notified[0] = true;
+                                    return true;
                                 }
                                 return false;
                             }
@@ -632,30 +619,14 @@ public class GitSCMSource extends AbstractGitSCMSource {
                             @NonNull
                             @Override
                             public Map<SCMHead, SCMRevision> heads(@NonNull SCMSource source) {
-                                if (source instanceof GitSCMSource git) {
-                                    GitSCMSourceContext<?,?> ctx =
-                                            new GitSCMSourceContext<>(null, SCMHeadObserver.none())
-                                                    .withTraits(git.getTraits());
-                                    if (ctx.ignoreOnPushNotifications()) {
+                                GitSCMSourceRegistry.Match match = matchesBySource.get(source);
+                                if (match != null) {
+                                    GitBranchSCMHead head = new GitBranchSCMHead(branch);
+                                    if (match.isExcluded(head)) {
                                         return Collections.emptyMap();
                                     }
-                                    URIish remote;
-                                    try {
-                                        remote = new URIish(git.getRemote());
-                                    } catch (URISyntaxException e) {
-                                        // ignore
-                                        return Collections.emptyMap();
-                                    }
-                                    if (GitStatus.looselyMatches(u, remote)) {
-                                        GitBranchSCMHead head = new GitBranchSCMHead(branch);
-                                        for (SCMHeadPrefilter filter: ctx.prefilters()) {
-                                            if (filter.isExcluded(git, head)) {
-                                                return Collections.emptyMap();
-                                            }
-                                        }
-                                        return Collections.singletonMap(head,
-                                                sha1 != null ? new GitBranchSCMRevision(head, sha1) : null);
-                                    }
+                                    return Collections.singletonMap(head,
+                                            sha1 != null ? new GitBranchSCMRevision(head, sha1) : null);
                                 }
                                 return Collections.emptyMap();
                             }
@@ -667,44 +638,26 @@ public class GitSCMSource extends AbstractGitSCMSource {
                         });
                     }
                 } else {
-                    for (final SCMSourceOwner owner : SCMSourceOwners.all()) {
-                        for (SCMSource source : owner.getSCMSources()) {
-                            if (source instanceof GitSCMSource git) {
-                                GitSCMSourceContext<?, ?> ctx =
-                                        new GitSCMSourceContext<>(null, SCMHeadObserver.none())
-                                                .withTraits(git.getTraits());
-                                if (ctx.ignoreOnPushNotifications()) {
-                                    continue;
-                                }
-                                URIish remote;
-                                try {
-                                    remote = new URIish(git.getRemote());
-                                } catch (URISyntaxException e) {
-                                    // ignore
-                                    continue;
-                                }
-                                if (GitStatus.looselyMatches(uri, remote)) {
-                                    LOGGER.fine("Triggering the indexing of " + owner.getFullDisplayName()
-                                            + " as a result of event from " + origin);
-                                    triggerIndexing(owner, source);
-                                    result.add(new GitStatus.ResponseContributor() {
-                                        @Override
-                                        @SuppressWarnings("deprecation")
-                                        public void addHeaders(StaplerRequest2 req, StaplerResponse2 rsp) {
-                                            // Calls a deprecated getAbsoluteUrl() method because this is a remote API case
-                                            // as described in the Javadoc of the deprecated getAbsoluteUrl() method.
-                                            rsp.addHeader("Triggered", owner.getAbsoluteUrl());
-                                        }
-
-                                        @Override
-                                        public void writeBody(PrintWriter w) {
-                                            w.println("Scheduled indexing of " + owner.getFullDisplayName());
-                                        }
-                                    });
-                                    notified[0] = true;
-                                }
+                    for (GitSCMSourceRegistry.Match match : matches) {
+                        final SCMSourceOwner owner = match.getOwner();
+                        LOGGER.fine("Triggering the indexing of " + owner.getFullDisplayName()
+                                + " as a result of event from " + origin);
+                        triggerIndexing(owner, match.getSource());
+                        result.add(new GitStatus.ResponseContributor() {
+                            @Override
+                            @SuppressWarnings("deprecation")
+                            public void addHeaders(StaplerRequest2 req, StaplerResponse2 rsp) {
+                                // Calls a deprecated getAbsoluteUrl() method because this is a remote API case
+                                // as described in the Javadoc of the deprecated getAbsoluteUrl() method.
+                                rsp.addHeader("Triggered", owner.getAbsoluteUrl());
                             }
-                        }
+
+                            @Override
+                            public void writeBody(PrintWriter w) {
+                                w.println("Scheduled indexing of " + owner.getFullDisplayName());
+                            }
+                        });
+                        notified[0] = true;
                     }
                 }
             }
@@ -0,0 +1,178 @@
+package jenkins.plugins.git;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.ExtensionList;
+import hudson.model.Item;
+import hudson.plugins.git.GitRemoteIndex;
+import hudson.plugins.git.GitStatus;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.WeakHashMap;
+import jenkins.scm.api.SCMHead;
+import jenkins.scm.api.SCMHeadObserver;
+import jenkins.scm.api.SCMSource;
+import jenkins.scm.api.SCMSourceOwner;
+import jenkins.scm.api.trait.SCMHeadPrefilter;
+import jenkins.scm.api.trait.SCMSourceTrait;
+import net.jcip.annotations.GuardedBy;
+import org.eclipse.jgit.transport.URIish;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+/**
+ * Indexes {@link SCMSourceOwner}s by the remotes of their {@link GitSCMSource}s and caches, per source, the parsed
+ * remote and the trait-derived settings that push notifications need, so that {@link GitSCMSource.ListenerImpl}
+ * neither visits every owner nor re-applies every source's traits on each notification.
+ * <p>
+ * A cached entry is recomputed whenever the source's remote or trait list no longer matches the one it was
+ * computed from.
+ */
+@Extension
+@Restricted(NoExternalUse.class)
+public class GitSCMSourceRegistry extends GitRemoteIndex {
+
+    @GuardedBy("entries")
+    private final Map<GitSCMSource, SourceEntry> entries = new WeakHashMap<>();
+
+    @NonNull
+    public static GitSCMSourceRegistry get() {
+        return ExtensionList.lookupSingleton(GitSCMSourceRegistry.class);
+    }
+
+    @Override
+    protected Collection<URIish> remotesOf(@NonNull Item item) {
+        if (!(item instanceof SCMSourceOwner owner)) {
+            return null;
+        }
+        List<URIish> remotes = null;
+        for (SCMSource source : owner.getSCMSources()) {
+            if (source instanceof GitSCMSource git) {
+                if (remotes == null) {
+                    remotes = new ArrayList<>();
+                }
+                URIish remote = entryFor(git).remote;
+                if (remote != null) {
+                    remotes.add(remote);
+                }
+            }
+        }
+        return remotes;
+    }
+
+    /**
+     * Finds the sources with a remote that loosely matches the notified uri and that do not ignore push
+     * notifications.
+     *
+     * @param uri the notified repository uri.
+     * @return the matching sources together with their owners.
+     */
+    @NonNull
+    public List<Match> findMatches(@NonNull URIish uri) {
+        List<Match> result = new ArrayList<>();
+        for (Item item : getCandidates(uri)) {
+            if (!(item instanceof SCMSourceOwner owner)) {
+                continue;
+            }
+            for (SCMSource source : owner.getSCMSources()) {
+                if (!(source instanceof GitSCMSource git)) {
+                    continue;
+                }
+                SourceEntry entry = entryFor(git);
+                if (entry.ignoreOnPushNotifications || entry.remote == null) {
+                    continue;
+                }
+                if (GitStatus.looselyMatches(uri, entry.remote)) {
+                    result.add(new Match(owner, git, entry));
+                }
+            }
+        }
+        return result;
+    }
+
+    @NonNull
+    SourceEntry entryFor(@NonNull GitSCMSource source) {
+        List<SCMSourceTrait> traits = source.getTraits();
+        String remote = source.getRemote();
+        synchronized (entries) {
+            SourceEntry entry = entries.get(source);
+            if (entry == null || entry.traits != traits || !Objects.equals(entry.rawRemote, remote)) {
+                entry = new SourceEntry(traits, remote);
+                entries.put(source, entry);
+            }
+            return entry;
+        }
+    }
+
+    /**
+     * A {@link GitSCMSource} matching a notification.
+     */
+    public static final class Match {
+        private final SCMSourceOwner owner;
+        private final GitSCMSource source;
+        private final SourceEntry entry;
+
+        Match(SCMSourceOwner owner, GitSCMSource source, SourceEntry entry) {
+            this.owner = owner;
+            this.source = source;
+            this.entry = entry;
+        }
+
+        @NonNull
+        public SCMSourceOwner getOwner() {
+            return owner;
+        }
+
+        @NonNull
+        public GitSCMSource getSource() {
+            return source;
+        }
+
+        /**
+         * @param head the head to check.
+         * @return {@code true} if one of the source's prefilters excludes the head.
+         */
+        public boolean isExcluded(@NonNull SCMHead head) {
+            for (SCMHeadPrefilter filter : entry.prefilters) {
+                if (filter.isExcluded(source, head)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * The settings of a {@link GitSCMSource} that push notifications need, derived from its remote and traits.
+     */
+    static final class SourceEntry {
+        private final List<SCMSourceTrait> traits;
+        private final String rawRemote;
+        @CheckForNull
+        final URIish remote;
+        final boolean ignoreOnPushNotifications;
+        final List<SCMHeadPrefilter> prefilters;
+
+        SourceEntry(List<SCMSourceTrait> traits, String rawRemote) {
+            this.traits = traits;
+            this.rawRemote = rawRemote;
+            URIish uri;
+            try {
+                uri = rawRemote == null ? null : new URIish(rawRemote);
+            } catch (URISyntaxException e) {
+                // ignore
+                uri = null;
+            }
+            this.remote = uri;
+            GitSCMSourceContext<?, ?> ctx =
+                    new GitSCMSourceContext<>(null, SCMHeadObserver.none()).withTraits(traits);
+            this.ignoreOnPushNotifications = ctx.ignoreOnPushNotifications();
+            this.prefilters = new ArrayList<>(ctx.prefilters());
+        }
+    }
+}
@@ -97,40 +97,34 @@ public class GitToolChooser {
             useCache = true;
             return useCache;
         }
-        for (String repoUrl : remoteAlternatives(remoteName)) {
-            String cacheEntry = AbstractGitSCMSource.getCacheEntry(repoUrl);
-            File cacheDir = AbstractGitSCMSource.getCacheDir(cacheEntry, false);
-            if (cacheDir != null) {
-                Git git = Git.with(TaskListener.NULL, new EnvVars(EnvVars.masterEnvVars)).in(cacheDir).using("git");
-                GitClient client = git.getClient();
-                boolean hasGitRepo;
-                try {
-                    hasGitRepo = client.hasGitRepo(false);
-                } catch (GitException x) {
-                    throw new IOException(x);
-                }
-                if (hasGitRepo) {
-                    long clientRepoSize = FileUtils.sizeOfDirectory(cacheDir) / 1024; // Conversion from Bytes to Kilo Bytes
-                    if (clientRepoSize > sizeOfRepo) {
-                        if (sizeOfRepo > 0) {
-                            LOGGER.log(Level.FINE, "Replacing prior size estimate {0} with new size estimate {1} for remote {2} from cache {3}",
-                                    new Object[]{sizeOfRepo, clientRepoSize, remoteName, cacheDir});
-                        }
-                        sizeOfRepo = clientRepoSize;
-                        assignSizeToInternalCache(remoteName, sizeOfRepo);
-                    }
-                    useCache = true;
-                    if (remoteName.equals(repoUrl)) {
-                        LOGGER.log(Level.FINE, "Remote URL {0} found cache {1} with size {2}",
-                                new Object[]{remoteName, cacheDir, sizeOfRepo});
-                    } else {
-                        LOGGER.log(Level.FINE, "Remote URL {0} found cache {1} with size {2}, alternative URL {3}",
-                                new Object[]{remoteName, cacheDir, sizeOfRepo, repoUrl});
+        // every alternative spelling of the remote URL shares the same cache entry
+        String cacheEntry = AbstractGitSCMSource.getCacheEntry(remoteName);
+        File cacheDir = AbstractGitSCMSource.getCacheDir(cacheEntry, false);
+        if (cacheDir != null) {
+            Git git = Git.with(TaskListener.NULL, new EnvVars(EnvVars.masterEnvVars)).in(cacheDir).using("git");
+            GitClient client = git.getClient();
+            boolean hasGitRepo;
+            try {
+                hasGitRepo = client.hasGitRepo(false);
+            } catch (GitException x) {
+                throw new IOException(x);
+            }
+            if (hasGitRepo) {
+                long clientRepoSize = FileUtils.sizeOfDirectory(cacheDir) / 1024; // Conversion from Bytes to Kilo Bytes
+                if (clientRepoSize > sizeOfRepo) {
+                    if (sizeOfRepo > 0) {
+                        LOGGER.log(Level.FINE, "Replacing prior size estimate {0} with new size estimate {1} for remote {2} from cache {3}",
+                                new Object[]{sizeOfRepo, clientRepoSize, remoteName, cacheDir});
                     }
-                } else {
-                    // Log the surprise but continue looking for a cache
-                    LOGGER.log(Level.FINE, "Remote URL {0} cache {1} has no git dir", new Object[]{remoteName, cacheDir});
+                    sizeOfRepo = clientRepoSize;
+                    assignSizeToInternalCache(remoteName, sizeOfRepo);
                 }
+                useCache = true;
+                LOGGER.log(Level.FINE, "Remote URL {0} found cache {1} with size {2}",
+                        new Object[]{remoteName, cacheDir, sizeOfRepo});
+            } else {
+                // Log the surprise
+                LOGGER.log(Level.FINE, "Remote URL {0} cache {1} has no git dir", new Object[]{remoteName, cacheDir});
             }
         }
         if (!useCache) {
@@ -180,6 +174,36 @@ public class GitToolChooser {
     private static Pattern sshAltProtocolPattern = Pattern.compile("^[\\w]+@(.+):(.+?)/*$");
     private static Pattern sshProtocolPattern = Pattern.compile("^ssh://[\\w]+@([^/]+)/(.+?)/*$");
 
+    /**
+     * Identity of the repository of a remote URL, shared by the spellings of {@link #remoteAlternatives(String)}: the
+     * https, git and ssh protocols, with or without user, trailing slashes and ".git" suffix, all map to
+     * {@code https://host/path.git} with a lower case host. Other URLs, such as local paths, are their own identity.
+     *
+     * @param remoteURL the remote URL.
+     * @return the identity of the repository.
+     */
+    /* package */ static @NonNull String canonicalRepository(@NonNull String remoteURL) {
+        Pattern [] protocolPatterns = {
+                httpProtocolPattern,
+                sshProtocolPattern,
+                gitProtocolPattern,
+                sshAltProtocolPattern,
+        };
+        for (Pattern protocolPattern : protocolPatterns) {
+            Matcher protocolMatcher = protocolPattern.matcher(remoteURL);
+            if (protocolMatcher.matches()) {
+                String host = protocolMatcher.group(1);
+                host = host.substring(host.lastIndexOf('@') + 1).toLowerCase(Locale.ROOT);
+                String path = protocolMatcher.group(2);
+                while (path.startsWith("/")) {
+                    path = path.substring(1);
+                }
+                return "https://" + host + "/" + (path.endsWith(".git") ? path : path + ".git");
+            }
+        }
+        return remoteURL;
+    }
+
     /* Return a list of alternate remote URL's based on permutations of remoteURL.
      * Varies the protocol (https, git, ssh) and the suffix of the repository URL.
      * Package protected for testing
@@ -0,0 +1,10 @@
+package hudson.plugins.git.extensions.impl.AdaptivePolling
+
+def f = namespace(lib.FormTagLib)
+
+f.entry(title:_("Minimum interval (in minutes)"), field:"minIntervalMinutes") {
+    f.number(clazz:"number", min:1, step:1, default:1)
+}
+f.entry(title:_("Maximum interval (in minutes)"), field:"maxIntervalMinutes") {
+    f.number(clazz:"number", min:1, step:1, default:60)
+}
@@ -8,3 +8,6 @@ f.entry(title:_("Included Regions"), field:"includedRegions") {
 f.entry(title:_("Excluded Regions"), field:"excludedRegions") {
     f.textarea()
 }
+f.entry(field:"pollOnController") {
+    f.checkbox(title:_("Poll without a workspace"))
+}
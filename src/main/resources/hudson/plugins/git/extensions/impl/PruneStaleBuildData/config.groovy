@@ -0,0 +1,10 @@
+package hudson.plugins.git.extensions.impl.PruneStaleBuildData
+
+def f = namespace(lib.FormTagLib)
+
+f.entry(title:_("Stale branches to keep"), field:"keepMostRecent") {
+    f.number(clazz:"number", min:0, step:1, default:0)
+}
+f.entry(title:_("Keep stale branches built in the last days"), field:"keepDays") {
+    f.number(clazz:"number", min:0, step:1, default:0)
+}
@@ -0,0 +1,53 @@
+package hudson.plugins.git;
+
+import hudson.EnvVars;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BranchSpecSetTest {
+
+    private static int naiveIndexOf(List<BranchSpec> specs, String ref, EnvVars env) {
+        for (int i = 0; i < specs.size(); i++) {
+            if (specs.get(i).matches(ref, env)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Test
+    void testFirstMatchAgreesWithSpecBySpec() {
+        List<BranchSpec> specs = new ArrayList<>();
+        for (String name : new String[] {
+                "feature/*", "master", "origin/release-*", ":refs/heads/(hot)fix-\\d+", "develop",
+                "refs/heads/master", "**/team/*", "${BRANCH}", "*/HEAD", "refs/tags/v*"}) {
+            specs.add(new BranchSpec(name));
+        }
+        EnvVars env = new EnvVars();
+        env.put("BRANCH", "integration");
+        BranchSpecSet set = new BranchSpecSet(specs, env);
+
+        String[] refs = {
+            "master", "refs/heads/master", "origin/master", "refs/remotes/origin/master", "remotes/origin/master",
+            "feature/x", "refs/heads/feature/x", "origin/feature/x", "origin/release-1", "refs/heads/hotfix-12",
+            "refs/heads/fix-12", "develop", "origin/develop", "origin/team/a", "a/b/team/c", "origin/integration",
+            "integration", "origin/HEAD", "refs/tags/v1.0", "refs/tags/x", "unrelated/branch/name", ""
+        };
+        for (String ref : refs) {
+            int expected = naiveIndexOf(specs, ref, env);
+            assertEquals(expected, set.indexOf(ref), ref);
+            assertEquals(expected >= 0, set.matches(ref), ref);
+            assertSame(expected < 0 ? null : specs.get(expected), set.firstMatch(ref), ref);
+        }
+    }
+
+    @Test
+    void testEmptySet() {
+        BranchSpecSet set = new BranchSpecSet(List.of(), new EnvVars());
+        assertEquals(-1, set.indexOf("master"));
+        assertFalse(set.matches("origin/master"));
+    }
+}
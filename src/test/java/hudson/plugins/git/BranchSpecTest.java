@@ -238,4 +238,38 @@ class BranchSpecTest {
         assertFalse(withTokenFalse.matches("origin/master", env));
         assertFalse(withTokenFalse.matches("master", env));
     }
+
+    @Test
+    void testLiteralSpecMatchesLikeEquivalentRegex() {
+        String[] refs = {
+            "master", "refs/heads/master", "origin/master", "remotes/origin/master", "refs/remotes/origin/master",
+            "refs/remotes/master", "remotes/master", "refs/tags/master", "origin/feature/master", "xmaster",
+            "feature/x", "refs/heads/feature/x", "origin/feature/x", "refs/remotes/feature/x", "remotes/feature/x",
+            "refs/remotes/origin/feature/x"
+        };
+        BranchSpec unqualified = new BranchSpec("master");
+        BranchSpec unqualifiedRegex = new BranchSpec(":(refs/heads/|refs/remotes/[^/]+/|remotes/[^/]+/|[^/]+/)?master");
+        BranchSpec qualified = new BranchSpec("feature/x");
+        BranchSpec qualifiedRegex = new BranchSpec(":(refs/heads/|refs/remotes/|remotes/)?feature/x");
+        for (String ref : refs) {
+            assertEquals(unqualifiedRegex.matches(ref), unqualified.matches(ref), ref);
+            assertEquals(qualifiedRegex.matches(ref), qualified.matches(ref), ref);
+        }
+    }
+
+    @Test
+    void testCompiledSpecFollowsEnvAndName() {
+        BranchSpec spec = new BranchSpec("${BRANCH}");
+        assertTrue(spec.matches("origin/master", createEnvMap("BRANCH", "master")));
+        assertFalse(spec.matches("origin/master", createEnvMap("BRANCH", "develop")));
+        assertTrue(spec.matches("origin/develop", createEnvMap("BRANCH", "develop")));
+
+        spec.setName("release-*");
+        assertTrue(spec.matches("origin/release-1"));
+        assertFalse(spec.matches("origin/master"));
+        assertTrue(spec.matchesRepositoryBranch("origin", "release-1"));
+        spec.setName("master");
+        assertTrue(spec.matchesRepositoryBranch("origin", "refs/heads/master"));
+        assertFalse(spec.matchesRepositoryBranch("origin", "release-1"));
+    }
 }
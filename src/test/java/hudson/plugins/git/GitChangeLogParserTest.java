@@ -8,7 +8,9 @@ import org.jenkinsci.plugins.gitclient.GitClient;
 import org.jenkinsci.plugins.gitclient.JGitAPIImpl;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileWriter;
+import java.util.List;
 import static org.hamcrest.MatcherAssert.*;
 import static org.hamcrest.Matchers.*;
 import static org.junit.jupiter.api.Assertions.*;
@@ -64,4 +66,43 @@ class GitChangeLogParserTest {
         assertThat(first.getMsg(), is(expectedMessage));
         assertTrue(log.delete(), "Temp file delete failed for " + log);
     }
+
+    @Test
+    void testIndexedChangelogMatchesParsedChangelog() throws Exception {
+        GitChangeLogParser parser = new GitChangeLogParser(null, true);
+        File log = File.createTempFile("junit", null, tmpFolder);
+        try (FileWriter writer = new FileWriter(log)) {
+            for (int i = 1; i <= 3; i++) {
+                writer.write("commit 123abc456de" + i + "\n");
+                writer.write("author Author " + i + " <author" + i + "@example.com> 1234568 -0600\n");
+                writer.write("committer Committer <committer@example.com> 1234568 -0600\n");
+                writer.write("\n");
+                writer.write("    Message " + i + "\n");
+                writer.write("\n");
+                writer.write(":100644 100644 123abc456def789abc012def345abc678def901a bc234def567abc890def123abc456def789abc01 M\tsrc/file" + i + "\n");
+                writer.write(":000000 100644 0000000000000000000000000000000000000000 bc234def567abc890def123abc456def789abc01 A\tsrc/added" + i + "\n");
+            }
+        }
+        List<GitChangeSet> parsed;
+        try (FileInputStream in = new FileInputStream(log)) {
+            parsed = parser.parse(in);
+        }
+
+        GitChangeSetList list = parser.parse(null, null, log);
+        assertTrue(new File(log.getPath() + ChangelogIndex.SUFFIX).isFile());
+        assertThat(list.getLogs().size(), is(3));
+        for (int i = 0; i < 3; i++) {
+            GitChangeSet indexed = list.getLogs().get(i);
+            GitChangeSet expected = parsed.get(2 - i);
+            assertThat(indexed.getId(), is(expected.getId()));
+            assertThat(indexed.getAuthorName(), is(expected.getAuthorName()));
+            assertThat(indexed.getMsg(), is(expected.getMsg()));
+            assertThat(indexed.getAffectedPaths(), is(expected.getAffectedPaths()));
+            assertThat(indexed.getParent(), sameInstance(list));
+        }
+
+        // read again from the index written by the first parse
+        list = parser.parse(null, null, log);
+        assertThat(list.getLogs().get(2).getAffectedPaths(), containsInAnyOrder("src/file1", "src/added1"));
+    }
 }
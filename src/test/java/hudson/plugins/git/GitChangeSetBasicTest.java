@@ -253,4 +253,30 @@ class GitChangeSetBasicTest {
     void splitingNullString(){
         assertThat(GitChangeSet.splitString(null, 25), is(""));
     }
+
+    @Test
+    void identityWithBracketsInEmail() {
+        ArrayList<String> lines = new ArrayList<>();
+        lines.add("commit 123abc456def");
+        lines.add("author Jane <Doe> <jane@example.com> 1234568 -0600");
+        lines.add("committer No email 1234566 -0600");
+        GitChangeSet changeSet = new GitChangeSet(lines, true);
+        assertThat(changeSet.getAuthorName(), is("Jane"));
+        assertThat(changeSet.getAuthorEmail(), is("Doe> <jane@example.com"));
+        assertThat(changeSet.getDate(), is("1970-01-15T06:56:08-0600"));
+        assertNull(new GitChangeSet(lines, false).getAuthorEmail());
+    }
+
+    @Test
+    void rawEntriesNotMatchingTheFormatAreIgnored() {
+        ArrayList<String> lines = new ArrayList<>();
+        lines.add("commit 123abc456def");
+        lines.add(":100644 100644 123abc456def789abc012def345abc678def901a bc234def567abc890def123abc456def789abc01 M\tsrc/kept.file");
+        lines.add(":100644 100644 123ABC456DEF789ABC012DEF345ABC678DEF901A bc234def567abc890def123abc456def789abc01 M\tsrc/upper.file");
+        lines.add(":100644 100644 123abc456def789abc012def345abc678def901a bc234def567abc890def123abc456def789abc01 Z\tsrc/status.file");
+        lines.add(":100644 100644 123abc456def789abc012def345abc678def901a bc234def567abc890def123abc456def789abc01 R050 src/no-tab.file");
+        lines.add(":100644 100644 123abc456def789abc012def345abc678def901a bc234def567abc890def123abc456def789abc01 R050\tsrc/no-rename.file");
+        GitChangeSet changeSet = new GitChangeSet(lines, true);
+        assertThat(changeSet.getAffectedPaths(), contains("src/kept.file"));
+    }
 }
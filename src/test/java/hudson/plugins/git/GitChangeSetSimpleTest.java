@@ -169,6 +169,17 @@ class GitChangeSetSimpleTest {
         assertNotEquals(new GitChangeSet(new ArrayList<>(), false), changeSet);
     }
 
+    @Test
+    void testIdentitiesAndPathsAreShared() {
+        GitChangeSet other = GitChangeSetUtil.genChangeSet(useAuthorName, useLegacyFormat);
+        assertSame(changeSet.getAuthorName(), other.getAuthorName());
+        assertSame(changeSet.getAuthorEmail(), other.getAuthorEmail());
+        Collection<String> paths = changeSet.getAffectedPaths();
+        for (String path : other.getAffectedPaths()) {
+            assertThat(paths, hasItem(sameInstance(path)));
+        }
+    }
+
     @Test
     void testChangeSetExceptionMessage() {
         final String expectedLineContent = "commit ";
@@ -0,0 +1,68 @@
+package hudson.plugins.git;
+
+import hudson.model.FreeStyleProject;
+import hudson.model.Item;
+import java.util.Collections;
+import java.util.List;
+import org.eclipse.jgit.transport.URIish;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@WithJenkins
+class GitRemoteIndexTest {
+
+    private JenkinsRule r;
+    private GitRemoteIndex index;
+
+    @BeforeEach
+    void beforeEach(JenkinsRule rule) {
+        r = rule;
+        index = GitRemoteIndex.forJobs();
+    }
+
+    private FreeStyleProject createProject(String name, String url) throws Exception {
+        FreeStyleProject project = r.createFreeStyleProject(name);
+        project.setScm(new GitSCM(
+                Collections.singletonList(new UserRemoteConfig(url, null, null, null)),
+                Collections.singletonList(new BranchSpec("master")),
+                null, null,
+                Collections.emptyList()));
+        return project;
+    }
+
+    @Test
+    void candidatesOnlyIncludeMatchingJobs() throws Exception {
+        FreeStyleProject a = createProject("a", "https://example.com/org/a.git");
+        createProject("b", "https://example.com/org/b.git");
+        r.createFreeStyleProject("no-scm");
+
+        List<Item> candidates = index.getCandidates(new URIish("git@example.com:org/a"));
+        assertEquals(List.of(a), candidates);
+        assertTrue(index.hasGitItems());
+        assertTrue(index.getCandidates(new URIish("https://example.com/org/c")).isEmpty());
+    }
+
+    @Test
+    void indexFollowsConfigurationChanges() throws Exception {
+        FreeStyleProject a = createProject("a", "https://example.com/org/a.git");
+        assertEquals(List.of(a), index.getCandidates(new URIish("https://example.com/org/a")));
+
+        a.setScm(new GitSCM("https://example.com/org/c.git"));
+        assertTrue(index.getCandidates(new URIish("https://example.com/org/a")).isEmpty());
+        assertEquals(List.of(a), index.getCandidates(new URIish("https://example.com/org/c")));
+
+        a.renameTo("renamed");
+        assertEquals(List.of(a), index.getCandidates(new URIish("https://example.com/org/c")));
+        assertEquals("renamed", index.getCandidates(new URIish("https://example.com/org/c")).get(0).getFullName());
+
+        a.delete();
+        assertTrue(index.getCandidates(new URIish("https://example.com/org/c")).isEmpty());
+        assertFalse(index.hasGitItems());
+    }
+}
@@ -39,6 +39,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import org.eclipse.jgit.lib.Config;
+import org.eclipse.jgit.transport.RefSpec;
 import org.eclipse.jgit.transport.RemoteConfig;
 import org.eclipse.jgit.transport.URIish;
 import static org.junit.jupiter.api.Assertions.*;
@@ -345,4 +346,16 @@ class GitSCMUnitTest {
                 null, null, Collections.emptyList());
         assertDoesNotThrow(gitSCM::abortIfSourceIsLocal, "https remote URLs should always be valid");
     }
+
+    @Test
+    void testCanMatchHeads() {
+        assertTrue(GitSCM.canMatchHeads(List.of(new RefSpec("+refs/heads/*:refs/remotes/origin/*"))));
+        assertTrue(GitSCM.canMatchHeads(List.of(new RefSpec("+refs/heads/master:refs/remotes/origin/master"))));
+        assertTrue(GitSCM.canMatchHeads(List.of(new RefSpec("+refs/*:refs/remotes/origin/*"))));
+        assertTrue(GitSCM.canMatchHeads(List.of(new RefSpec("+refs/pull/*:refs/remotes/origin/pr/*"),
+                new RefSpec("+refs/heads/release-*:refs/remotes/origin/release-*"))));
+        assertFalse(GitSCM.canMatchHeads(List.of(new RefSpec("+refs/pull/*:refs/remotes/origin/pr/*"))));
+        assertFalse(GitSCM.canMatchHeads(List.of(new RefSpec("+refs/tags/*:refs/remotes/origin/tags/*"))));
+        assertFalse(GitSCM.canMatchHeads(List.of()));
+    }
 }
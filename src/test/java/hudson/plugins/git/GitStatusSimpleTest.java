@@ -84,4 +84,22 @@ class GitStatusSimpleTest {
             }
         }
     }
+
+    @Test
+    void testLooseMatchKey() throws Exception {
+        String[] equivalentRepoURLs = new String[] {
+            "https://example.com/jenkinsci/git-plugin",
+            "https://someone@example.com/jenkinsci/git-plugin.git/",
+            "ssh://git@ssh.example.com/jenkinsci/git-plugin.git",
+            "git@example.com:jenkinsci/git-plugin.git",
+            "https://example.com/v3/jenkinsci/_git/git-plugin"
+        };
+        String key = GitStatus.looseMatchKey(new URIish(equivalentRepoURLs[0]));
+        for (String testURL : equivalentRepoURLs) {
+            URIish uri = new URIish(testURL);
+            assertEquals(key, GitStatus.looseMatchKey(uri), testURL);
+        }
+        assertNotEquals(key, GitStatus.looseMatchKey(new URIish("https://bitbucket.org/jenkinsci/git-plugin")));
+        assertNotEquals(key, GitStatus.looseMatchKey(new URIish("https://example.com/jenkinsci/git-client-plugin")));
+    }
 }
@@ -17,8 +17,10 @@ import hudson.triggers.SCMTrigger;
 import hudson.util.RunList;
 import org.junit.jupiter.api.AfterEach;
 
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.PrintWriter;
+import java.io.StringReader;
 import java.util.*;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -134,6 +136,35 @@ public class GitStatusTest extends AbstractGitProject {
         assertEquals("URL: nonexistent Branches: ", this.gitStatus.toString());
     }
 
+    @Test
+    void testDoNotifyCommitsMergesNotificationsOfSameRepository() throws Exception {
+        SCMTrigger aMasterTrigger = setupProjectWithTrigger("a", "master", false);
+        SCMTrigger aTopicTrigger = setupProjectWithTrigger("a", "topic", false);
+        SCMTrigger bMasterTrigger = setupProjectWithTrigger("b", "master", false);
+
+        StaplerRequest2 request = mock(StaplerRequest2.class);
+        when(request.getReader()).thenReturn(new BufferedReader(new StringReader(
+                "[{\"url\": \"a\", \"branches\": \"master\"},"
+                        + " {\"url\": \"a\", \"branches\": [\"master\", \"topic\"]},"
+                        + " {\"url\": \"nonexistent\"}]")));
+        this.gitStatus.doNotifyCommits(request, notifyCommitApiToken);
+        Mockito.verify(aMasterTrigger, Mockito.times(1)).run();
+        Mockito.verify(aTopicTrigger, Mockito.times(1)).run();
+        Mockito.verify(bMasterTrigger, Mockito.never()).run();
+    }
+
+    @Test
+    void testDoNotifyCommitsWithoutApiToken() throws Exception {
+        SCMTrigger aMasterTrigger = setupProjectWithTrigger("a", "master", false);
+
+        StaplerRequest2 request = mock(StaplerRequest2.class);
+        when(request.getReader()).thenReturn(new BufferedReader(new StringReader("[{\"url\": \"a\"}]")));
+        this.gitStatus.doNotifyCommits(request, null);
+        Mockito.verify(aMasterTrigger, Mockito.never()).run();
+        // denied before the body is read
+        Mockito.verify(request, Mockito.never()).getReader();
+    }
+
     @Test
     void testDoNotifyCommitWithOneBranch() throws Exception {
         SCMTrigger aMasterTrigger = setupProjectWithTrigger("a", "master", false);
@@ -0,0 +1,119 @@
+package hudson.plugins.git;
+
+import hudson.model.ParameterValue;
+import hudson.model.StringParameterValue;
+import java.util.ArrayList;
+import java.util.List;
+import net.sf.json.JSONObject;
+import org.eclipse.jgit.transport.URIish;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NotifyCommitQueueTest {
+
+    private final List<Runnable> tasks = new ArrayList<>();
+    private final List<NotifyCommitQueue.Notification> processed = new ArrayList<>();
+    private NotifyCommitQueue queue;
+
+    @BeforeEach
+    void beforeEach() {
+        queue = new NotifyCommitQueue(2, tasks::add, processed::add);
+    }
+
+    private static NotifyCommitQueue.Notification notification(String url, String sha1, String... branches) throws Exception {
+        return notification(url, sha1, List.of(), branches);
+    }
+
+    private static NotifyCommitQueue.Notification notification(String url, String sha1, List<ParameterValue> buildParameters,
+                                                               String... branches) throws Exception {
+        return new NotifyCommitQueue.Notification(null, new URIish(url), sha1, buildParameters, branches);
+    }
+
+    private void runTasks() {
+        for (Runnable task : tasks) {
+            task.run();
+        }
+        tasks.clear();
+    }
+
+    @Test
+    void pendingNotificationForSameRepositoryAndBranchIsReplaced() throws Exception {
+        assertTrue(queue.submit(notification("https://example.com/org/a.git", null, "master")));
+        NotifyCommitQueue.Notification newest = notification("git@example.com:org/a", null, "master");
+        assertTrue(queue.submit(newest));
+        assertEquals(1, queue.getDepth());
+        assertEquals(1, queue.getCoalescedCount());
+
+        runTasks();
+        assertEquals(List.of(newest), processed);
+        assertEquals(0, queue.getDepth());
+        assertEquals(1, queue.getProcessedCount());
+    }
+
+    @Test
+    void differentBranchesAreNotCoalesced() throws Exception {
+        assertTrue(queue.submit(notification("https://example.com/org/a.git", null, "master")));
+        assertTrue(queue.submit(notification("https://example.com/org/a.git", null, "develop")));
+        assertEquals(2, queue.getDepth());
+        assertEquals(0, queue.getCoalescedCount());
+
+        runTasks();
+        assertEquals(2, processed.size());
+    }
+
+    @Test
+    void notificationsWithSha1AreNotCoalesced() throws Exception {
+        List<ParameterValue> parameters = List.of(new StringParameterValue("TARGET", "staging"));
+        assertTrue(queue.submit(notification("https://example.com/org/a.git", "aaaa", parameters, "master")));
+        assertTrue(queue.submit(notification("https://example.com/org/a.git", "bbbb", parameters, "master")));
+        assertEquals(2, queue.getDepth());
+        assertEquals(0, queue.getCoalescedCount());
+
+        runTasks();
+        assertEquals(2, processed.size());
+    }
+
+    @Test
+    void differentBuildParametersAreNotCoalesced() throws Exception {
+        assertTrue(queue.submit(notification("https://example.com/org/a.git", null,
+                List.of(new StringParameterValue("TARGET", "staging")), "master")));
+        assertTrue(queue.submit(notification("https://example.com/org/a.git", null,
+                List.of(new StringParameterValue("TARGET", "production")), "master")));
+        assertEquals(2, queue.getDepth());
+        assertEquals(0, queue.getCoalescedCount());
+    }
+
+    @Test
+    void fullQueueRejectsNewKeys() throws Exception {
+        assertTrue(queue.submit(notification("https://example.com/org/a.git", null)));
+        assertTrue(queue.submit(notification("https://example.com/org/b.git", null)));
+        assertFalse(queue.submit(notification("https://example.com/org/c.git", null)));
+        assertTrue(queue.submit(notification("https://example.com/org/b.git", null)));
+        assertEquals(1, queue.getRejectedCount());
+    }
+
+    @Test
+    void statisticsAreReportedAsJSON() throws Exception {
+        assertTrue(queue.submit(notification("https://example.com/org/a.git", null, "master")));
+        assertTrue(queue.submit(notification("https://example.com/org/a.git", null, "master")));
+        assertTrue(queue.submit(notification("https://example.com/org/b.git", null, "master")));
+        assertFalse(queue.submit(notification("https://example.com/org/c.git", null, "master")));
+        JSONObject statistics = queue.toJSON();
+        assertEquals(2, statistics.getInt("depth"));
+        assertEquals(2, statistics.getInt("capacity"));
+        assertEquals(3, statistics.getInt("submitted"));
+        assertEquals(1, statistics.getInt("coalesced"));
+        assertEquals(1, statistics.getInt("rejected"));
+        assertEquals(0, statistics.getInt("processed"));
+
+        runTasks();
+        statistics = queue.toJSON();
+        assertEquals(0, statistics.getInt("depth"));
+        assertEquals(2, statistics.getInt("processed"));
+        assertTrue(statistics.getJSONObject("latency").getLong("maxMs") >= 0);
+    }
+}
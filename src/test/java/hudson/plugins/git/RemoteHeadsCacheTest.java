@@ -0,0 +1,178 @@
+package hudson.plugins.git;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import net.sf.json.JSONObject;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.transport.URIish;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RemoteHeadsCacheTest {
+
+    private static final ObjectId SHA1 = ObjectId.fromString("7bb68ef21dc90bd4f7b08eca876203b2e049198d");
+
+    private final AtomicInteger loads = new AtomicInteger();
+    private RemoteHeadsCache cache;
+    private long ttlSeconds;
+
+    @BeforeEach
+    void beforeEach() {
+        ttlSeconds = RemoteHeadsCache.TTL_SECONDS;
+        RemoteHeadsCache.TTL_SECONDS = 60;
+        cache = new RemoteHeadsCache();
+    }
+
+    @AfterEach
+    void afterEach() {
+        RemoteHeadsCache.TTL_SECONDS = ttlSeconds;
+    }
+
+    private Map<String, ObjectId> load() {
+        loads.incrementAndGet();
+        return Map.of("refs/heads/master", SHA1);
+    }
+
+    @Test
+    void secondCallIsServedFromCache() throws Exception {
+        URIish uri = new URIish("https://example.com/org/repo.git");
+        Map<String, ObjectId> first = cache.getHeads(uri, "creds", "", "job", this::load);
+        first.clear(); // callers get their own copy
+        Map<String, ObjectId> second = cache.getHeads(uri, "creds", "", "other-job", this::load);
+        assertEquals(Map.of("refs/heads/master", SHA1), second);
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    void jobIsNotAnsweredTwiceWithOneListing() throws Exception {
+        URIish uri = new URIish("https://example.com/org/repo.git");
+        cache.getHeads(uri, "creds", "", "job", this::load);
+        cache.getHeads(uri, "creds", "", "other-job", this::load);
+        cache.getHeads(uri, "creds", "", "job", this::load);
+        cache.getHeads(uri, "creds", "", "other-job", this::load);
+        assertEquals(2, loads.get());
+        assertEquals(2, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+    }
+
+    @Test
+    void credentialsAreNotShared() throws Exception {
+        URIish uri = new URIish("https://example.com/org/repo.git");
+        cache.getHeads(uri, "creds", "", "job", this::load);
+        cache.getHeads(uri, "other", "", "job", this::load);
+        cache.getHeads(uri, null, "", "job", this::load);
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void credentialsOfOtherFoldersAreNotShared() throws Exception {
+        URIish uri = new URIish("https://example.com/org/repo.git");
+        cache.getHeads(uri, "creds", "folder", "job", this::load);
+        cache.getHeads(uri, "creds", "other-folder", "job", this::load);
+        cache.getHeads(uri, "creds", "folder", "other-job", this::load);
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void portsAreNotShared() throws Exception {
+        cache.getHeads(new URIish("ssh://git@example.com/org/repo.git"), "creds", "", "job", this::load);
+        cache.getHeads(new URIish("ssh://git@example.com:2222/org/repo.git"), "creds", "", "job", this::load);
+        cache.getHeads(new URIish("ssh://git@EXAMPLE.com/org/repo"), "creds", "", "other-job", this::load);
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void notificationInvalidatesEveryVariant() throws Exception {
+        cache.getHeads(new URIish("https://example.com/org/repo.git"), "creds", "", "job", this::load);
+        cache.invalidate(new URIish("git@example.com:org/repo"));
+        cache.getHeads(new URIish("https://example.com/org/repo.git"), "creds", "", "job", this::load);
+        assertEquals(2, loads.get());
+        assertEquals(1, cache.getInvalidationCount());
+    }
+
+    @Test
+    void listingsAreNotReusedWithoutTtl() throws Exception {
+        RemoteHeadsCache.TTL_SECONDS = 0;
+        URIish uri = new URIish("https://example.com/org/repo.git");
+        cache.getHeads(uri, "creds", "", "job", this::load);
+        cache.getHeads(uri, "creds", "", "job", this::load);
+        assertEquals(2, loads.get());
+        assertEquals(0, cache.getHitCount());
+    }
+
+    @Test
+    void concurrentCallsShareOneListingWithoutTtl() throws Exception {
+        RemoteHeadsCache.TTL_SECONDS = 0;
+        URIish uri = new URIish("https://example.com/org/repo.git");
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Map<String, ObjectId>> first = executor.submit(() -> cache.getHeads(uri, "creds", "", "job", () -> {
+                release.await();
+                return load();
+            }));
+            while (cache.getMissCount() == 0) {
+                Thread.sleep(10);
+            }
+            Future<Map<String, ObjectId>> second = executor.submit(() -> cache.getHeads(uri, "creds", "", "job", this::load));
+            while (cache.getSharedCount() == 0) {
+                Thread.sleep(10);
+            }
+            release.countDown();
+            assertEquals(first.get(), second.get());
+            assertEquals(1, loads.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void statisticsAreReportedAsJSON() throws Exception {
+        URIish uri = new URIish("https://example.com/org/repo.git");
+        cache.getHeads(uri, "creds", "", "job", this::load);
+        cache.getHeads(uri, "creds", "", "other-job", this::load);
+        cache.invalidate(uri);
+        JSONObject statistics = cache.toJSON();
+        assertEquals(60, statistics.getLong("ttlSeconds"));
+        assertEquals(1, statistics.getLong("hits"));
+        assertEquals(1, statistics.getLong("misses"));
+        assertEquals(0, statistics.getLong("shared"));
+        assertEquals(1, statistics.getLong("invalidations"));
+        assertTrue(statistics.getJSONObject("hitAge").getLong("maxMs") >= 0);
+    }
+
+    @Test
+    void concurrentCallsShareOneListing() throws Exception {
+        URIish uri = new URIish("https://example.com/org/repo.git");
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Map<String, ObjectId>> first = executor.submit(() -> cache.getHeads(uri, "creds", "", "job", () -> {
+                started.countDown();
+                release.await();
+                return load();
+            }));
+            started.await();
+            Thread waiter = new Thread(release::countDown);
+            waiter.start();
+            Map<String, ObjectId> second = cache.getHeads(uri, "creds", "", "other-job", this::load);
+            assertEquals(first.get(), second);
+            assertEquals(1, loads.get());
+            assertEquals(1, cache.getMissCount());
+            assertEquals(1, cache.getSharedCount() + cache.getHitCount());
+            waiter.join();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package hudson.plugins.git.extensions.impl;
+
+import nl.jqno.equalsverifier.EqualsVerifier;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AdaptivePollingTest {
+
+    @Test
+    void equalsContract() {
+        EqualsVerifier.forClass(AdaptivePolling.class)
+                .usingGetClass()
+                .verify();
+    }
+
+    @Test
+    void boundsAreClamped() {
+        AdaptivePolling polling = new AdaptivePolling(0, 0);
+        assertEquals(1, polling.getMinIntervalMinutes());
+        assertEquals(1, polling.getMaxIntervalMinutes());
+
+        polling = new AdaptivePolling(10, 5);
+        assertEquals(10, polling.getMinIntervalMinutes());
+        assertEquals(10, polling.getMaxIntervalMinutes());
+    }
+}
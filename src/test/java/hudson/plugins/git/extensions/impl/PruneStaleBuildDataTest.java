@@ -0,0 +1,107 @@
+package hudson.plugins.git.extensions.impl;
+
+import hudson.model.Job;
+import hudson.model.Result;
+import hudson.model.Run;
+import hudson.model.TaskListener;
+import hudson.plugins.git.Branch;
+import hudson.plugins.git.GitSCM;
+import hudson.plugins.git.Revision;
+import hudson.plugins.git.util.Build;
+import hudson.plugins.git.util.BuildData;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import hudson.util.LogTaskListener;
+import nl.jqno.equalsverifier.EqualsVerifier;
+import org.eclipse.jgit.lib.ObjectId;
+import org.jenkinsci.plugins.gitclient.GitClient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PruneStaleBuildDataTest {
+
+    private final TaskListener listener = new LogTaskListener(Logger.getLogger("prune build data"), Level.FINEST);
+    private GitSCM scm;
+    private Run<?, ?> run;
+    private GitClient git;
+    private BuildData buildData;
+
+    @BeforeEach
+    void beforeEach() throws Exception {
+        scm = new GitSCM("https://github.com/jenkinsci/git-plugin");
+        buildData = new BuildData("git", scm.getUserRemoteConfigs());
+        buildData.saveBuild(build(1, "origin/deleted-long-ago"));
+        buildData.saveBuild(build(2, "origin/deleted-recently"));
+        buildData.saveBuild(build(3, "v1.0"));
+        buildData.saveBuild(build(4, "refs/remotes/origin/feature"));
+        buildData.saveBuild(build(5, "origin/main"));
+        run = mock(Run.class);
+        when(run.getActions(BuildData.class)).thenReturn(List.of(buildData));
+        git = mock(GitClient.class);
+        when(git.getRemoteBranches()).thenReturn(Set.of(
+                new Branch("origin/main", ObjectId.zeroId()),
+                new Branch("origin/feature", ObjectId.zeroId())));
+    }
+
+    private static Build build(int number, String branch) {
+        ObjectId sha1 = ObjectId.fromString(String.format("%040x", number));
+        return new Build(new Revision(sha1, List.of(new Branch(branch, sha1))), number, Result.SUCCESS);
+    }
+
+    @Test
+    void staleBranchesArePruned() throws Exception {
+        new PruneStaleBuildData(0, 0).onCheckoutCompleted(scm, run, git, listener);
+        assertThat(buildData.buildsByBranchName.keySet(),
+                containsInAnyOrder("v1.0", "refs/remotes/origin/feature", "origin/main"));
+    }
+
+    @Test
+    void mostRecentStaleBranchesAreKept() throws Exception {
+        new PruneStaleBuildData(1, 0).onCheckoutCompleted(scm, run, git, listener);
+        assertThat(buildData.buildsByBranchName.keySet(),
+                containsInAnyOrder("origin/deleted-recently", "v1.0", "refs/remotes/origin/feature", "origin/main"));
+    }
+
+    @Test
+    void staleBranchesBuiltInTheLastDaysAreKept() throws Exception {
+        Job<?, ?> job = mock(Job.class);
+        long now = System.currentTimeMillis();
+        Run<?, ?>[] runs = new Run<?, ?>[6];
+        for (int number = 1; number <= 5; number++) {
+            runs[number] = mock(Run.class);
+            when(runs[number].getNumber()).thenReturn(number);
+            when(runs[number].getTimeInMillis()).thenReturn(number == 1 ? now - TimeUnit.DAYS.toMillis(30) : now);
+            doReturn(runs[number]).when(job).getNearestBuild(number);
+        }
+        doReturn(runs[1]).when(job).getFirstBuild();
+        doReturn(runs[5]).when(job).getLastBuild();
+        doReturn(job).when(run).getParent();
+
+        new PruneStaleBuildData(0, 7).onCheckoutCompleted(scm, run, git, listener);
+        assertThat(buildData.buildsByBranchName.keySet(),
+                containsInAnyOrder("origin/deleted-recently", "v1.0", "refs/remotes/origin/feature", "origin/main"));
+    }
+
+    @Test
+    void lastBuildIsKept() throws Exception {
+        when(git.getRemoteBranches()).thenReturn(Set.of());
+        new PruneStaleBuildData(0, 0).onCheckoutCompleted(scm, run, git, listener);
+        assertThat(buildData.buildsByBranchName.keySet(), containsInAnyOrder("v1.0", "origin/main"));
+    }
+
+    @Test
+    void equalsContract() {
+        EqualsVerifier.forClass(PruneStaleBuildData.class)
+                .usingGetClass()
+                .verify();
+    }
+}
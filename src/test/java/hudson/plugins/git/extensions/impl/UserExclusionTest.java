@@ -55,6 +55,24 @@ class UserExclusionTest extends GitSCMExtensionTest{
 
 	}
 
+    @Test
+    void mergeCommitOfIncludedUserIsProcessed() throws Exception {
+		repo.commit("repo-init", repo.johnDoe, "repo0 initial commit");
+		build(project, Result.SUCCESS);
+
+		repo.git.checkoutBranch("topic", "HEAD");
+		repo.commit("topic-file", repo.janeDoe, "excluded user commit on topic");
+		repo.git.checkoutBranch("master", "refs/heads/master");
+		repo.commit("master-file", repo.janeDoe, "excluded user commit on master");
+		assertFalse(project.poll(listener).hasChanges(), "scm polling should ignore excluded user");
+
+		repo.git.setAuthor(repo.johnDoe);
+		repo.git.setCommitter(repo.johnDoe);
+		repo.git.merge().setRevisionToMerge(repo.git.revParse("topic")).execute();
+
+		assertTrue(project.poll(listener).hasChanges(), "scm polling should detect the merge commit of an included user");
+    }
+
     private static File newFolder(File root, String... subDirs) throws IOException {
         String subFolder = String.join("/", subDirs);
         File result = new File(root, subFolder);
@@ -0,0 +1,53 @@
+package hudson.plugins.git.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptivePollingHistoryTest {
+
+    private static final long MIN = 60_000L;
+    private static final long MAX = 8 * 60_000L;
+
+    @Test
+    void firstPollIsDue() {
+        assertEquals(0, new AdaptivePollingHistory.Remote().getNextPollMs());
+    }
+
+    @Test
+    void intervalDoublesWithoutChangesUpToMaximum() {
+        AdaptivePollingHistory.Remote remote = new AdaptivePollingHistory.Remote();
+        long[] expected = {MIN, 2 * MIN, 4 * MIN, MAX, MAX};
+        for (long interval : expected) {
+            remote.poll(false, MIN, MAX);
+            assertEquals(interval, remote.getIntervalMs());
+        }
+        assertEquals(5, remote.getQuietPolls());
+        assertTrue(remote.getNextPollMs() > System.currentTimeMillis());
+    }
+
+    @Test
+    void changesResetInterval() {
+        AdaptivePollingHistory.Remote remote = new AdaptivePollingHistory.Remote();
+        remote.poll(false, MIN, MAX);
+        remote.poll(false, MIN, MAX);
+        remote.poll(true, MIN, MAX);
+        assertEquals(MIN, remote.getIntervalMs());
+        assertEquals(0, remote.getQuietPolls());
+        assertEquals(3, remote.getPollCount());
+        assertEquals(1, remote.getChangeCount());
+    }
+
+    @Test
+    void notificationLetsNextPollThrough() {
+        AdaptivePollingHistory.Remote remote = new AdaptivePollingHistory.Remote();
+        remote.poll(false, MIN, MAX);
+        remote.poll(false, MIN, MAX);
+        remote.skip();
+        remote.reset(MIN);
+        assertEquals(MIN, remote.getIntervalMs());
+        assertTrue(remote.getNextPollMs() <= System.currentTimeMillis());
+        assertEquals(1, remote.getSkippedCount());
+    }
+}
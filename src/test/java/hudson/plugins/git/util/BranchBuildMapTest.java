@@ -0,0 +1,109 @@
+package hudson.plugins.git.util;
+
+import hudson.model.Result;
+import hudson.plugins.git.Branch;
+import hudson.plugins.git.ObjectIdConverter;
+import hudson.plugins.git.Revision;
+import hudson.util.XStream2;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.eclipse.jgit.lib.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+class BranchBuildMapTest {
+
+    private Map<String, Build> base;
+
+    @BeforeEach
+    void beforeEach() {
+        base = new HashMap<>();
+        for (int i = 0; i < 10; i++) {
+            base.put("origin/branch-" + i, build("origin/branch-" + i, i));
+        }
+    }
+
+    private static Build build(String branch, int number) {
+        ObjectId sha1 = ObjectId.fromString(String.format("%040x", number + 1));
+        return new Build(new Revision(sha1, List.of(new Branch(branch, sha1))), number, Result.SUCCESS);
+    }
+
+    @Test
+    void rebaseKeepsOnlyChanges() {
+        Map<String, Build> builds = new HashMap<>(base);
+        builds.remove("origin/branch-0");
+        builds.put("origin/branch-1", build("origin/branch-1", 11));
+        builds.put("origin/new", build("origin/new", 12));
+
+        BranchBuildMap map = BranchBuildMap.rebase("1", base, builds);
+
+        assertThat(map, is(builds));
+        assertThat(map.size(), is(10));
+        assertThat(map.getDeltaSize(), is(3));
+        assertThat(map.get("origin/branch-2"), sameInstance(base.get("origin/branch-2")));
+        assertThat(map.containsKey("origin/branch-0"), is(false));
+    }
+
+    @Test
+    void changesDoNotAffectSnapshot() {
+        BranchBuildMap map = BranchBuildMap.rebase("1", base, base);
+        map.put("origin/branch-3", build("origin/branch-3", 13));
+        map.remove("origin/branch-4");
+        map.entrySet().removeIf(e -> e.getKey().equals("origin/branch-5"));
+        map.put("origin/branch-4", build("origin/branch-4", 14));
+
+        assertThat(map.size(), is(9));
+        assertThat(map.get("origin/branch-3").getBuildNumber(), is(13));
+        assertThat(map.get("origin/branch-4").getBuildNumber(), is(14));
+        assertThat(map.get("origin/branch-5"), nullValue());
+        assertThat(base.get("origin/branch-3").getBuildNumber(), is(3));
+        assertThat(base.size(), is(10));
+    }
+
+    @Test
+    void copySharesSnapshot() {
+        BranchBuildMap map = BranchBuildMap.rebase("1", base, base);
+        map.put("origin/new", build("origin/new", 12));
+
+        BranchBuildMap copy = map.copy(Build::clone);
+        copy.put("origin/other", build("origin/other", 13));
+
+        assertThat(copy.get("origin/branch-1"), sameInstance(map.get("origin/branch-1")));
+        assertThat(copy.get("origin/new"), not(sameInstance(map.get("origin/new"))));
+        assertThat(copy.get("origin/new"), is(map.get("origin/new")));
+        assertThat(map.containsKey("origin/other"), is(false));
+        assertThat(copy.size(), is(12));
+    }
+
+    @Test
+    void writesOnlyChanges() {
+        XStream2 xs = new XStream2();
+        xs.registerConverter(new ObjectIdConverter());
+        xs.registerConverter(new BranchBuildMap.ConverterImpl());
+        Map<String, Build> builds = new HashMap<>(base);
+        builds.remove("origin/branch-0");
+        builds.put("origin/new", build("origin/new", 12));
+        BranchBuildMap map = BranchBuildMap.rebase("7", base, builds);
+
+        String xml = xs.toXML(map);
+        assertThat(xml, containsString("base=\"7\""));
+        assertThat(xml, containsString("origin/new"));
+        assertThat(xml, containsString("<removed>origin/branch-0</removed>"));
+        assertThat(xml, not(containsString("origin/branch-1")));
+
+        BranchBuildMap read = (BranchBuildMap) xs.fromXML(xml);
+        assertThat(read.isResolved(), is(false));
+        read.resolve(base);
+        assertThat(read.isResolved(), is(true));
+        assertThat(read, is(builds));
+        assertThat(read.getBaseId(), is("7"));
+    }
+}
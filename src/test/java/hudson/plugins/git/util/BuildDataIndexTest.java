@@ -0,0 +1,66 @@
+package hudson.plugins.git.util;
+
+import hudson.model.FreeStyleBuild;
+import hudson.model.FreeStyleProject;
+import hudson.plugins.git.GitSCM;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+@WithJenkins
+class BuildDataIndexTest {
+
+    private static final String URL = "https://git.example.com/repo.git";
+
+    private JenkinsRule r;
+
+    @BeforeEach
+    void beforeEach(JenkinsRule rule) {
+        r = rule;
+    }
+
+    @Test
+    void attachedBuildDataIsIndexed() throws Exception {
+        FreeStyleProject project = r.createFreeStyleProject();
+        GitSCM scm = new GitSCM(URL);
+        FreeStyleBuild first = r.buildAndAssertSuccess(project);
+        FreeStyleBuild second = r.buildAndAssertSuccess(project);
+        FreeStyleBuild third = r.buildAndAssertSuccess(project);
+        BuildDataIndex index = BuildDataIndex.forJob(project);
+        assertThat(index.getLatest(List.of(URL)), nullValue());
+
+        BuildData data = new BuildData("git", scm.getUserRemoteConfigs());
+        second.addAction(data);
+
+        assertThat(index.getLatest(List.of(URL)), is(2));
+        assertThat(index.getLatest(List.of("https://git.example.com/other.git")), nullValue());
+        assertThat(scm.getBuildData(third), sameInstance(data));
+        assertThat(scm.getBuildData(second), sameInstance(data));
+        assertThat(scm.getBuildData(first), nullValue());
+
+        second.delete();
+        assertThat(index.getLatest(List.of(URL)), nullValue());
+        assertThat(scm.getBuildData(third), nullValue());
+    }
+
+    @Test
+    void buildDataWrittenBeforeIndexIsFoundAndRecorded() throws Exception {
+        FreeStyleProject project = r.createFreeStyleProject();
+        GitSCM scm = new GitSCM(URL);
+        FreeStyleBuild first = r.buildAndAssertSuccess(project);
+        BuildData data = new BuildData("git", scm.getUserRemoteConfigs());
+        // as if written before the index existed
+        first.getActions().add(data);
+        FreeStyleBuild second = r.buildAndAssertSuccess(project);
+
+        assertThat(scm.getBuildData(second), sameInstance(data));
+        assertThat(BuildDataIndex.forJob(project).getLatest(List.of(URL)), is(1));
+    }
+}
@@ -0,0 +1,92 @@
+package hudson.plugins.git.util;
+
+import hudson.model.FreeStyleBuild;
+import hudson.model.FreeStyleProject;
+import hudson.model.Result;
+import hudson.plugins.git.Branch;
+import hudson.plugins.git.Revision;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.eclipse.jgit.lib.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+
+@WithJenkins
+class BuildDataSnapshotsTest {
+
+    private JenkinsRule r;
+
+    @BeforeEach
+    void beforeEach(JenkinsRule rule) {
+        r = rule;
+    }
+
+    private static Build build(int number, String... names) {
+        ObjectId sha1 = ObjectId.fromString(String.format("%040x", number));
+        List<Branch> branches = new ArrayList<>();
+        for (String name : names) {
+            branches.add(new Branch(name, sha1));
+        }
+        return new Build(new Revision(sha1, branches), number, Result.SUCCESS);
+    }
+
+    @Test
+    void buildsWriteChangesSinceSnapshot() throws Exception {
+        FreeStyleProject project = r.createFreeStyleProject();
+        FreeStyleBuild first = r.buildAndAssertSuccess(project);
+        String[] names = new String[BuildData.DELTA_MIN_BRANCHES];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = "origin/branch-" + i;
+        }
+        BuildData data = new BuildData("git");
+        data.saveBuild(build(1, names));
+        first.addAction(data);
+        first.save();
+
+        assertThat(data.buildsByBranchName, instanceOf(BranchBuildMap.class));
+        BuildDataSnapshots snapshots = BuildDataSnapshots.forJob(project);
+        assertThat(snapshots.getLatest(), is("1"));
+        assertThat(((BranchBuildMap) data.buildsByBranchName).getDeltaSize(), is(0));
+
+        FreeStyleBuild second = r.buildAndAssertSuccess(project);
+        BuildData next = data.clone();
+        next.saveBuild(build(2, "origin/new"));
+        second.addAction(next);
+        second.save();
+        Map<String, Build> expected = new HashMap<>(next.buildsByBranchName);
+
+        assertThat(((BranchBuildMap) next.buildsByBranchName).getDeltaSize(), is(1));
+        assertThat(snapshots.getReferences("1"), contains(1, 2));
+
+        second.reload();
+        BuildData reloaded = second.getAction(BuildData.class);
+        assertThat(reloaded.buildsByBranchName, is(expected));
+        assertThat(reloaded.getLastBuild(ObjectId.fromString(String.format("%040x", 1))), not(nullValue()));
+
+        first.delete();
+        assertThat(snapshots.getReferences("1"), contains(2));
+    }
+
+    @Test
+    void smallBuildDataKeepsAllBranches() throws Exception {
+        FreeStyleProject project = r.createFreeStyleProject();
+        FreeStyleBuild build = r.buildAndAssertSuccess(project);
+        BuildData data = new BuildData("git");
+        data.saveBuild(build(1, "origin/main"));
+        build.addAction(data);
+
+        assertThat(data.buildsByBranchName, not(instanceOf(BranchBuildMap.class)));
+        assertThat(BuildDataSnapshots.forJob(project).getLatest(), nullValue());
+    }
+}
@@ -8,6 +8,7 @@ import hudson.plugins.git.UserRemoteConfig;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Map;
 import java.util.Random;
 
 import nl.jqno.equalsverifier.EqualsVerifier;
@@ -141,6 +142,71 @@ class BuildDataTest {
         assertThat(data.getLastBuild(unbuiltSha1), is(nullValue()));
     }
 
+    @Test
+    void testGetLastBuildFollowsBuildsByBranchName() {
+        ObjectId sha1b = ObjectId.fromString("2a2a6ad17ef0e22a7d20a0a9b2a24e0b76f2b6bc");
+        ObjectId sha1c = ObjectId.fromString("c19e1f6bb5a0a2d4e1e2e4a1f8d9ed2f2bb1bd11");
+        Build first = new Build(new Revision(sha1, branches("origin/first")), 1, Result.SUCCESS);
+        Build second = new Build(new Revision(sha1b, branches("origin/second")), 2, Result.SUCCESS);
+        data.saveBuild(first);
+        data.saveBuild(second);
+        assertThat(data.getLastBuild(sha1), is(first));
+
+        // the build replaced on its only branch is no longer found
+        Build third = new Build(new Revision(sha1c, branches("origin/first")), 3, Result.SUCCESS);
+        data.saveBuild(third);
+        assertThat(data.getLastBuild(sha1), is(nullValue()));
+        assertThat(data.getLastBuild(sha1c), is(third));
+
+        // changes made directly to the public map are noticed
+        data.buildsByBranchName.remove("origin/second");
+        assertThat(data.getLastBuild(sha1b), is(nullValue()));
+        data.buildsByBranchName.put("origin/restored", second);
+        assertThat(data.getLastBuild(sha1b), is(second));
+
+        BuildData clone = data.clone();
+        assertThat(clone.getLastBuild(sha1b), is(not(sameInstance(second))));
+        assertThat(clone.getLastBuild(sha1b), is(second));
+    }
+
+    @Test
+    void testGetLastBuildNoticesBuildsReplacedInPublicMap() {
+        ObjectId sha1b = ObjectId.fromString("2a2a6ad17ef0e22a7d20a0a9b2a24e0b76f2b6bc");
+        ObjectId sha1c = ObjectId.fromString("c19e1f6bb5a0a2d4e1e2e4a1f8d9ed2f2bb1bd11");
+        Build first = new Build(new Revision(sha1, branches("origin/first")), 1, Result.SUCCESS);
+        Build second = new Build(new Revision(sha1b, branches("origin/second")), 2, Result.SUCCESS);
+        Build third = new Build(new Revision(sha1c, branches("origin/first")), 3, Result.SUCCESS);
+        data.saveBuild(first);
+        data.saveBuild(second);
+
+        for (boolean snapshot : new boolean[]{false, true}) {
+            if (snapshot) {
+                data.buildsByBranchName = BranchBuildMap.rebase("snapshot", Map.copyOf(data.buildsByBranchName),
+                        data.buildsByBranchName);
+            }
+            assertThat(data.getLastBuild(sha1), is(first));
+
+            // replaced without changing the number of branches
+            data.buildsByBranchName.put("origin/first", third);
+            assertThat(data.getLastBuild(sha1), is(nullValue()));
+            assertThat(data.getLastBuild(sha1c), is(third));
+
+            for (Map.Entry<String, Build> entry : data.buildsByBranchName.entrySet()) {
+                if (entry.getKey().equals("origin/first")) {
+                    entry.setValue(first);
+                }
+            }
+            assertThat(data.getLastBuild(sha1c), is(nullValue()));
+            assertThat(data.getLastBuild(sha1), is(first));
+        }
+    }
+
+    private static Collection<Branch> branches(String name) {
+        Collection<Branch> branches = new ArrayList<>();
+        branches.add(new Branch(name, ObjectId.zeroId()));
+        return branches;
+    }
+
     @Test
     void testGetLastBuildWithNullSha1() {
         assertThat(data.getLastBuild(null), is(nullValue()));
@@ -382,6 +448,45 @@ class BuildDataTest {
         permuteBaseURL(SIMPLE_URL, simple);
     }
 
+    @Test
+    void testCloneCopiesRemoteUrls() {
+        data.addRemoteUrl(remoteUrl);
+        assertTrue(data.similarTo(data));
+        BuildData clone = data.clone();
+        assertThat(clone.getRemoteUrls(), is(not(sameInstance(data.getRemoteUrls()))));
+
+        clone.remoteUrls.add("https://github.com/jenkinsci/credentials-plugin");
+        assertThat(data.getRemoteUrls(), contains(remoteUrl));
+        assertFalse(clone.similarTo(data));
+        clone.remoteUrls.remove("https://github.com/jenkinsci/credentials-plugin");
+
+        clone.addRemoteUrl("https://github.com/jenkinsci/git-client-plugin");
+        assertThat(clone.getRemoteUrls(), hasSize(2));
+        assertThat(data.getRemoteUrls(), contains(remoteUrl));
+
+        data.addRemoteUrl(remoteUrl + ".git");
+        assertThat(data.getRemoteUrls(), hasSize(2));
+        assertThat(clone.getRemoteUrls(), not(hasItem(remoteUrl + ".git")));
+    }
+
+    @Test
+    void testSimilarToNoticesDirectChangesToRemoteUrls() {
+        data.addRemoteUrl(remoteUrl);
+        BuildData other = new BuildData();
+        other.addRemoteUrl(remoteUrl + ".git/");
+        assertTrue(data.similarTo(other));
+
+        other.remoteUrls.add("https://github.com/jenkinsci/git-client-plugin");
+        assertFalse(data.similarTo(other));
+
+        other.remoteUrls.remove("https://github.com/jenkinsci/git-client-plugin");
+        assertTrue(data.similarTo(other));
+        // replaced without changing the number of URLs
+        other.remoteUrls.remove(remoteUrl + ".git/");
+        other.remoteUrls.add("https://github.com/jenkinsci/credentials-plugin");
+        assertFalse(data.similarTo(other));
+    }
+
     @Test
     void testSimilarToSshRemoteURL() {
         final String SIMPLE_URL = "ssh://git@github.com/jenkinsci/git-plugin";
@@ -0,0 +1,118 @@
+package hudson.plugins.git.util;
+
+import hudson.model.FreeStyleBuild;
+import hudson.model.FreeStyleProject;
+import hudson.model.Result;
+import hudson.plugins.git.Branch;
+import hudson.plugins.git.Revision;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import net.sf.json.JSONArray;
+import org.eclipse.jgit.lib.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+
+@WithJenkins
+class CommitBuildIndexTest {
+
+    private JenkinsRule r;
+    private int mergeThreshold;
+
+    @BeforeEach
+    void beforeEach(JenkinsRule rule) {
+        r = rule;
+        mergeThreshold = CommitBuildIndex.MERGE_THRESHOLD;
+    }
+
+    @AfterEach
+    void afterEach() {
+        CommitBuildIndex.MERGE_THRESHOLD = mergeThreshold;
+    }
+
+    private static ObjectId commit(int i) {
+        return ObjectId.fromString(String.format("%040x", i));
+    }
+
+    @Test
+    void lookupMergesLogAndSortedFile() throws Exception {
+        CommitBuildIndex.MERGE_THRESHOLD = 5;
+        FreeStyleProject project = r.createFreeStyleProject();
+        CommitBuildIndex index = CommitBuildIndex.forJob(project);
+        index.add(project, 1, List.of(commit(3), commit(1), commit(2)));
+        index.add(project, 2, List.of(commit(2), commit(4), commit(5)));
+        // merged into the sorted file, then appended to a new log
+        index.add(project, 3, List.of(commit(2)));
+
+        // builds alone do not make the index complete
+        assertThat(index.isComplete(project), is(false));
+        assertThat(index.getBuilds(project, commit(2)), contains(1, 2, 3));
+        assertThat(index.getBuilds(project, commit(1)), contains(1));
+        assertThat(index.getBuilds(project, commit(5)), contains(2));
+        assertThat(index.getBuilds(project, commit(6)), empty());
+    }
+
+    @Test
+    void recordTruncatedByCrashIsDroppedBeforeAppending() throws Exception {
+        CommitBuildIndex.MERGE_THRESHOLD = 3;
+        FreeStyleProject project = r.createFreeStyleProject();
+        CommitBuildIndex index = CommitBuildIndex.forJob(project);
+        index.add(project, 1, List.of(commit(1)));
+        Files.write(new File(project.getRootDir(), "git-build-data/commits.log").toPath(), new byte[]{1, 2, 3},
+                StandardOpenOption.APPEND);
+
+        index.add(project, 2, List.of(commit(2)));
+        assertThat(index.getBuilds(project, commit(1)), contains(1));
+        assertThat(index.getBuilds(project, commit(2)), contains(2));
+        // merged into the sorted file
+        index.add(project, 3, List.of(commit(3)));
+        assertThat(index.getBuilds(project, commit(2)), contains(2));
+        assertThat(index.getBuilds(project, commit(3)), contains(3));
+    }
+
+    @Test
+    void rebuildReadsBuildHistory() throws Exception {
+        FreeStyleProject project = r.createFreeStyleProject();
+        FreeStyleBuild build = r.buildAndAssertSuccess(project);
+        BuildData data = new BuildData("git");
+        data.saveBuild(new Build(new Revision(commit(7), List.of(new Branch("origin/main", commit(7)))),
+                build.getNumber(), Result.SUCCESS));
+        build.addAction(data);
+
+        try (JenkinsRule.WebClient wc = r.createWebClient()) {
+            wc.setThrowExceptionOnFailingStatusCode(false);
+            // the index is not built from a GET
+            assertThat(wc.getPage(r.getURL() + "git/builds?sha=" + commit(7).name() + "&job=" + project.getFullName())
+                    .getWebResponse().getStatusCode(), is(409));
+        }
+
+        CommitBuildIndex index = CommitBuildIndex.forJob(project);
+        assertThat(index.isComplete(project), is(false));
+        assertThat(index.rebuild(project), is(1));
+        assertThat(index.isComplete(project), is(true));
+        assertThat(index.getBuilds(project, commit(7)), contains(build.getNumber()));
+
+        JSONArray builds = JSONArray.fromObject(r.createWebClient()
+                .goTo("git/builds?sha=" + commit(7).name() + "&job=" + project.getFullName(), "application/json")
+                .getWebResponse().getContentAsString());
+        assertThat(builds.size(), is(1));
+        assertThat(builds.getJSONObject(0).getInt("number"), is(build.getNumber()));
+
+        try (JenkinsRule.WebClient wc = r.createWebClient()) {
+            wc.setThrowExceptionOnFailingStatusCode(false);
+            // every job is not searched
+            assertThat(wc.getPage(r.getURL() + "git/builds?sha=" + commit(7).name())
+                    .getWebResponse().getStatusCode(), greaterThanOrEqualTo(400));
+        }
+    }
+}
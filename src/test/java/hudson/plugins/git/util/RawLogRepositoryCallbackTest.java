@@ -0,0 +1,115 @@
+package hudson.plugins.git.util;
+
+import hudson.plugins.git.GitException;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RawLogRepositoryCallbackTest {
+
+    @TempDir
+    private File dir;
+
+    private Git git;
+    private int time;
+
+    @BeforeEach
+    void beforeEach() throws Exception {
+        git = Git.init().setDirectory(dir).setInitialBranch("master").call();
+    }
+
+    private RevCommit commit(String path) throws Exception {
+        Files.writeString(new File(dir, path).toPath(), path);
+        git.add().addFilepattern(path).call();
+        // distinct commit times, so that the walk order is the reverse of the commit order
+        PersonIdent ident = new PersonIdent("John Doe", "john@doe.com", 1_700_000_000_000L + 1000L * time++, 0);
+        return git.commit().setMessage("add " + path).setAuthor(ident).setCommitter(ident).setSign(false).call();
+    }
+
+    private List<List<String>> read(ObjectId from, ObjectId to, int skip, int limit) throws Exception {
+        return new RawLogRepositoryCallback(from, to, skip, limit, true).invoke(git.getRepository(), null);
+    }
+
+    private static List<String> ids(List<List<String>> commits) {
+        List<String> ids = new ArrayList<>();
+        for (List<String> lines : commits) {
+            ids.add(lines.get(0).substring("commit ".length()));
+        }
+        return ids;
+    }
+
+    @Test
+    void commitsAreReadInBatches() throws Exception {
+        RevCommit from = commit("a");
+        RevCommit b = commit("b");
+        RevCommit c = commit("c");
+        RevCommit d = commit("d");
+
+        assertThat(ids(read(from, d, 0, 2)), contains(d.name(), c.name()));
+        assertThat(ids(read(from, d, 2, 2)), contains(b.name()));
+        assertThat(read(from, d, 3, 2), hasSize(0));
+    }
+
+    @Test
+    void changedPathsAreListed() throws Exception {
+        RevCommit from = commit("a");
+        RevCommit to = commit("b");
+
+        List<String> lines = read(from, to, 0, 10).get(0);
+        assertThat(lines, hasItem("parent " + from.name()));
+        assertThat(lines, hasItem("    add b"));
+        assertThat(lines.get(lines.size() - 1).endsWith(" A\tb"), is(true));
+    }
+
+    @Test
+    void mergeIsFormattedForEachParent() throws Exception {
+        RevCommit from = commit("a");
+        git.checkout().setCreateBranch(true).setName("topic").call();
+        RevCommit topic = commit("topic");
+        git.checkout().setName("master").call();
+        commit("master");
+        git.merge().include(topic).setMessage("merge topic").call();
+        RevCommit merge = git.getRepository().parseCommit(git.getRepository().resolve("HEAD"));
+
+        List<String> lines = read(from, merge, 0, 1).get(0);
+        List<String> headers = new ArrayList<>();
+        for (String line : lines) {
+            if (line.startsWith("commit ")) {
+                headers.add(line);
+            }
+        }
+        assertThat(headers, contains("commit " + merge.name(), "commit " + merge.name()));
+        assertThat(lines.stream().anyMatch(line -> line.endsWith(" A\ttopic")), is(true));
+        assertThat(lines.stream().anyMatch(line -> line.endsWith(" A\tmaster")), is(true));
+    }
+
+    @Test
+    void withoutLastBuildOnlyTheHeadIsRead() throws Exception {
+        commit("a");
+        RevCommit to = commit("b");
+
+        assertThat(ids(read(null, to, 0, 10)), contains(to.name()));
+    }
+
+    @Test
+    void missingLastBuiltRevisionIsGitException() throws Exception {
+        RevCommit to = commit("a");
+
+        assertThrows(GitException.class, () -> read(ObjectId.fromString("0123456789012345678901234567890123456789"), to, 0, 10));
+    }
+}
@@ -174,6 +174,40 @@ class AbstractGitSCMSourceTest {
         assertEquals(GIT_BRANCH_SCM_HEAD_DEV_DEV_2_MASTER, source.fetch(listener).toString());
     }
 
+    @Test
+    void retrieveHeadsSkipsFetchWhenRemoteReferencesAreUnchanged() throws Exception {
+        assumeTrue(isTimeAvailable(), "Test class max time " + MAX_SECONDS_FOR_THESE_TESTS + " exceeded");
+        sampleRepo.init();
+        sampleRepo.git("checkout", "-b", "dev");
+        sampleRepo.write("file", "modified");
+        sampleRepo.git("commit", "--all", "--message=dev");
+        GitSCMSource source = new GitSCMSource(sampleRepo.toString());
+        source.setTraits(Arrays.asList(new BranchDiscoveryTrait(), new PruneStaleBranchTrait()));
+        TaskListener listener = StreamTaskListener.fromStderr();
+        CacheStatistics statistics = AbstractGitSCMSource.getCacheEntryStatistics(source.getCacheEntry());
+        long fetched = statistics.fetched.sum();
+        long skipped = statistics.fetchSkipped.sum();
+
+        assertEquals(GIT_BRANCH_SCM_HEAD_DEV_MASTER, source.fetch(listener).toString());
+        assertThat(statistics.fetched.sum(), is(fetched + 1));
+        // Nothing changed:
+        assertEquals(GIT_BRANCH_SCM_HEAD_DEV_MASTER, source.fetch(listener).toString());
+        assertThat(statistics.fetched.sum(), is(fetched + 1));
+        assertThat(statistics.fetchSkipped.sum(), is(skipped + 1));
+        // A new branch is fetched:
+        sampleRepo.git("checkout", "-b", "dev2");
+        sampleRepo.write("file", "modified again");
+        sampleRepo.git("commit", "--all", "--message=dev2");
+        assertEquals(GIT_BRANCH_SCM_HEAD_DEV_DEV_2_MASTER, source.fetch(listener).toString());
+        assertThat(statistics.fetched.sum(), is(fetched + 2));
+        // A deleted branch is pruned:
+        sampleRepo.git("checkout", "master");
+        sampleRepo.git("branch", "-D", "dev2");
+        assertEquals(GIT_BRANCH_SCM_HEAD_DEV_MASTER, source.fetch(listener).toString());
+        assertThat(statistics.fetched.sum(), is(fetched + 3));
+        assertThat(statistics.fetchSkipped.sum(), is(skipped + 1));
+    }
+
     @Issue("JENKINS-46207")
     @Test
     void retrieveHeadsSupportsTagDiscovery_ignoreTagsWithoutTagDiscoveryTrait() throws Exception {
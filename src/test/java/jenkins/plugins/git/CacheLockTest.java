@@ -0,0 +1,62 @@
+package jenkins.plugins.git;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import net.sf.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+
+class CacheLockTest {
+
+    @Test
+    void readersShareTheLockAndWritersWait() throws Exception {
+        CacheStatistics cacheStatistics = new CacheStatistics();
+        CacheLock lock = new CacheLock(cacheStatistics);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            lock.readLock().lock();
+            try {
+                // another reader is not blocked
+                assertThat(executor.submit(() -> {
+                    boolean locked = lock.readLock().tryLock(10, TimeUnit.SECONDS);
+                    lock.readLock().unlock();
+                    return locked;
+                }).get(), is(true));
+                // a writer is
+                assertThat(executor.submit(() -> lock.writeLock().tryLock()).get(), is(false));
+            } finally {
+                lock.readLock().unlock();
+            }
+
+            CountDownLatch locked = new CountDownLatch(1);
+            Future<?> writer = executor.submit(() -> {
+                lock.writeLock().lock();
+                locked.countDown();
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            });
+            locked.await();
+            lock.readLock().lock();
+            lock.readLock().unlock();
+            writer.get();
+        } finally {
+            executor.shutdownNow();
+        }
+
+        JSONObject statistics = cacheStatistics.toJSON().getJSONObject("lock");
+        assertThat(statistics.getJSONObject("read").getInt("acquired"), is(3));
+        assertThat(statistics.getJSONObject("read").getLong("maxWaitMillis"), greaterThanOrEqualTo(50L));
+        assertThat(statistics.getJSONObject("write").getInt("acquired"), is(1));
+    }
+}
@@ -0,0 +1,87 @@
+package jenkins.plugins.git;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.eclipse.jgit.transport.RefSpec;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+class FetchCoordinatorTest {
+
+    private static final String URL = "https://example.com/org/repo.git";
+
+    private static final RefSpec HEADS = new RefSpec("+refs/heads/*:refs/remotes/origin/*");
+
+    private static FetchCoordinator.Fetch fetch(boolean tags, boolean prune, RefSpec... refSpecs) {
+        return new FetchCoordinator.Fetch(URL, "origin", Arrays.asList(refSpecs), tags, prune);
+    }
+
+    @Test
+    void fetchCoversTheRefsItUpdates() {
+        FetchCoordinator.Fetch heads = fetch(true, true, HEADS);
+        assertThat(heads.covers(fetch(false, false, HEADS)), is(true));
+        assertThat(heads.covers(fetch(true, true, new RefSpec("+refs/heads/feature/x:refs/remotes/origin/feature/x"))), is(true));
+        // another destination, another remote, or tags and pruning the fetch does not do
+        assertThat(heads.covers(fetch(true, true, new RefSpec("+refs/heads/x:refs/remotes/upstream/x"))), is(false));
+        assertThat(heads.covers(fetch(true, true, new RefSpec("+refs/pull/1/head:refs/remotes/origin/PR-1"))), is(false));
+        assertThat(heads.covers(new FetchCoordinator.Fetch(URL, "upstream", Collections.singletonList(HEADS), true, true)), is(false));
+        assertThat(fetch(false, true, HEADS).covers(fetch(true, true, HEADS)), is(false));
+        assertThat(fetch(true, false, HEADS).covers(fetch(true, true, HEADS)), is(false));
+        // a fetch excluding refs covers nothing
+        assertThat(fetch(true, true, HEADS, new RefSpec("^refs/heads/x")).covers(fetch(false, false, HEADS)), is(false));
+    }
+
+    @Test
+    void queuedFetchIsReusedOnceSucceeded() {
+        FetchCoordinator coordinator = new FetchCoordinator();
+        FetchCoordinator.Fetch first = fetch(false, true, HEADS);
+        FetchCoordinator.Fetch second = fetch(false, true, HEADS);
+        assertThat(coordinator.join(first), is(nullValue()));
+        FetchCoordinator.Fetch joined = coordinator.join(second);
+        assertThat(joined, is(sameInstance(first)));
+        // not run yet
+        assertThat(coordinator.reusable(joined), is(false));
+
+        coordinator.start(first);
+        // started before the caller arrived, it may miss newer refs
+        FetchCoordinator.Fetch late = fetch(false, true, HEADS);
+        assertThat(coordinator.join(late), is(nullValue()));
+        coordinator.finish(first, true);
+        coordinator.leave(first);
+        assertThat(coordinator.reusable(joined), is(true));
+        coordinator.leave(second);
+        coordinator.leave(late);
+
+        FetchCoordinator.Fetch failing = fetch(false, true, HEADS);
+        assertThat(coordinator.join(failing), is(nullValue()));
+        joined = coordinator.join(second);
+        assertThat(joined, is(sameInstance(failing)));
+        coordinator.start(failing);
+        coordinator.finish(failing, false);
+        assertThat(coordinator.reusable(joined), is(false));
+        assertThat(coordinator.reusable(null), is(false));
+    }
+
+    @Test
+    void fetchThatDidNotRunIsNotJoined() {
+        FetchCoordinator coordinator = new FetchCoordinator();
+        FetchCoordinator.Fetch unused = fetch(false, true, HEADS);
+        assertThat(coordinator.join(unused), is(nullValue()));
+        coordinator.leave(unused);
+        assertThat(coordinator.join(fetch(false, true, HEADS)), is(nullValue()));
+    }
+
+    @Test
+    void fetchCopiesItsRefSpecs() {
+        List<RefSpec> refSpecs = new ArrayList<>(Collections.singletonList(HEADS));
+        FetchCoordinator.Fetch fetch = new FetchCoordinator.Fetch(URL, "origin", refSpecs, false, false);
+        refSpecs.clear();
+        assertThat(fetch.covers(fetch(false, false, HEADS)), is(true));
+    }
+}
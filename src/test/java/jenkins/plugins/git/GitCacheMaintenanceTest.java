@@ -0,0 +1,169 @@
+package jenkins.plugins.git;
+
+import hudson.Util;
+import hudson.model.TaskListener;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.io.FileUtils;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.lib.StoredConfig;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+class GitCacheMaintenanceTest {
+
+    @TempDir
+    private File root;
+
+    private long maxSizeMB;
+    private int hotDays;
+
+    @BeforeEach
+    void beforeEach() {
+        maxSizeMB = GitCacheMaintenance.MAX_SIZE_MB;
+        hotDays = GitCacheMaintenance.HOT_DAYS;
+    }
+
+    @AfterEach
+    void afterEach() {
+        GitCacheMaintenance.MAX_SIZE_MB = maxSizeMB;
+        GitCacheMaintenance.HOT_DAYS = hotDays;
+    }
+
+    private File cache(String name, int megabytes, long daysAgo) throws Exception {
+        File dir = new File(root, name);
+        assertThat(dir.mkdirs(), is(true));
+        Files.write(new File(dir, "pack").toPath(), new byte[megabytes * (int) FileUtils.ONE_MB]);
+        assertThat(dir.setLastModified(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(daysAgo)), is(true));
+        return dir;
+    }
+
+    @Test
+    void leastRecentlyUsedCachesAreEvictedAboveBudget() throws Exception {
+        GitCacheMaintenance.MAX_SIZE_MB = 3;
+        GitCacheMaintenance.HOT_DAYS = 0;
+        File oldest = cache("git-oldest", 2, 30);
+        File old = cache("git-old", 1, 20);
+        File recent = cache("git-recent", 2, 1);
+        File notCache = cache("other", 2, 40);
+
+        GitCacheMaintenance.maintain(root, TaskListener.NULL);
+
+        assertThat(oldest.exists(), is(false));
+        assertThat(old.exists(), is(true));
+        assertThat(recent.exists(), is(true));
+        assertThat(notCache.exists(), is(true));
+    }
+
+    @Test
+    void cacheInUseIsNotEvicted() throws Exception {
+        GitCacheMaintenance.MAX_SIZE_MB = 1;
+        GitCacheMaintenance.HOT_DAYS = 0;
+        File busy = cache("git-busy", 2, 30);
+        CacheLock lock = AbstractGitSCMSource.getCacheReadWriteLock("git-busy");
+        lock.readLock().lock();
+        try {
+            GitCacheMaintenance.maintain(root, TaskListener.NULL);
+        } finally {
+            lock.readLock().unlock();
+        }
+        assertThat(busy.exists(), is(true));
+    }
+
+    @Test
+    void recentlyUsedCachesAreGarbageCollected() throws Exception {
+        File dir = new File(root, "git-hot");
+        try (Git git = Git.init().setDirectory(dir).call()) {
+            Files.writeString(new File(dir, "file").toPath(), "content");
+            git.add().addFilepattern("file").call();
+            git.commit().setMessage("commit").setAuthor("author", "author@example.com").setSign(false).call();
+        }
+
+        GitCacheMaintenance.maintain(root, TaskListener.NULL);
+
+        try (Repository repository = new FileRepositoryBuilder().setGitDir(new File(dir, ".git")).build()) {
+            assertThat(repository.getConfig().getBoolean("gc", "writeCommitGraph", false), is(true));
+        }
+        String[] packs = new File(dir, ".git/objects/pack").list((packDir, name) -> name.endsWith(".pack"));
+        assertThat(packs != null && packs.length > 0, is(true));
+    }
+
+    @Test
+    void cachesNotFetchedIntoSinceLastGarbageCollectionAreSkipped() throws Exception {
+        File dir = new File(root, "git-idle");
+        ObjectId commit;
+        try (Git git = Git.init().setDirectory(dir).call()) {
+            Files.writeString(new File(dir, "file").toPath(), "content");
+            git.add().addFilepattern("file").call();
+            commit = git.commit().setMessage("commit").setAuthor("author", "author@example.com").setSign(false).call();
+        }
+        GitCacheMaintenance.maintain(root, TaskListener.NULL);
+        File loose = new File(dir, ".git/objects/" + commit.name().substring(0, 2) + "/" + commit.name().substring(2));
+        assertThat(loose.exists(), is(false));
+
+        try (Git git = Git.open(dir)) {
+            Files.writeString(new File(dir, "file").toPath(), "changed");
+            git.add().addFilepattern("file").call();
+            commit = git.commit().setMessage("commit").setAuthor("author", "author@example.com").setSign(false).call();
+        }
+        loose = new File(dir, ".git/objects/" + commit.name().substring(0, 2) + "/" + commit.name().substring(2));
+        GitCacheMaintenance.maintain(root, TaskListener.NULL);
+        assertThat(loose.exists(), is(true));
+
+        File fetchHead = new File(dir, ".git/FETCH_HEAD");
+        Files.writeString(fetchHead.toPath(), commit.name() + "\t\tbranch 'master' of origin\n");
+        assertThat(fetchHead.setLastModified(new File(dir, ".git/jenkins-gc").lastModified() + 2000), is(true));
+        GitCacheMaintenance.maintain(root, TaskListener.NULL);
+        assertThat(loose.exists(), is(false));
+    }
+
+    /**
+     * A cache directory named as before cache entries were shared by the spellings of a URL.
+     */
+    private ObjectId formerCache(String remote, String content) throws Exception {
+        File dir = new File(root, "git-" + Util.getDigestOf(remote));
+        try (Git git = Git.init().setDirectory(dir).call()) {
+            StoredConfig config = git.getRepository().getConfig();
+            config.setString("remote", "origin", "url", remote);
+            config.save();
+            Files.writeString(new File(dir, "file").toPath(), content);
+            git.add().addFilepattern("file").call();
+            ObjectId commit = git.commit().setMessage(content).setAuthor("author", "author@example.com").setSign(false).call();
+            git.gc().call();
+            return commit;
+        }
+    }
+
+    @Test
+    void duplicateCachesAreMerged() throws Exception {
+        ObjectId first = formerCache("https://example.com/org/repo", "first");
+        ObjectId second = formerCache("git@example.com:org/repo.git", "second");
+        File local = new File(root, "git-" + Util.getDigestOf("/srv/git/repo"));
+        formerCache("/srv/git/repo", "local");
+
+        GitCacheMaintenance.mergeDuplicates(root, false, TaskListener.NULL);
+        // renamed only, objects are copied by the next run
+        String[] renamed = root.list();
+        assertThat(renamed != null ? renamed.length : 0, is(3));
+
+        GitCacheMaintenance.mergeDuplicates(root, true, TaskListener.NULL);
+
+        File merged = new File(root, AbstractGitSCMSource.getCacheEntry("https://example.com/org/repo"));
+        String[] caches = root.list();
+        assertThat(caches != null ? caches.length : 0, is(2));
+        assertThat(local.isDirectory(), is(true));
+        try (Repository repository = new FileRepositoryBuilder().setGitDir(new File(merged, ".git")).setMustExist(true).build()) {
+            assertThat(repository.getObjectDatabase().has(first), is(true));
+            assertThat(repository.getObjectDatabase().has(second), is(true));
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package jenkins.plugins.git;
+
+import hudson.model.FreeStyleProject;
+import hudson.model.TaskListener;
+import hudson.plugins.git.BranchSpec;
+import hudson.plugins.git.GitChangeSet;
+import hudson.plugins.git.GitSCM;
+import hudson.plugins.git.TestGitRepo;
+import hudson.plugins.git.extensions.GitSCMExtension;
+import hudson.plugins.git.extensions.impl.MessageExclusion;
+import hudson.plugins.git.extensions.impl.PathRestriction;
+import hudson.plugins.git.extensions.impl.UserExclusion;
+import hudson.plugins.git.util.BuildData;
+import hudson.util.StreamTaskListener;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.ResetCommand;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import org.eclipse.jgit.util.SystemReader;
+import org.jenkinsci.plugins.gitclient.GitClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@WithJenkins
+class GitCachePollingTest {
+
+    private JenkinsRule r;
+
+    @TempDir
+    private File tmp;
+
+    private TaskListener listener;
+    private TestGitRepo repo;
+    private FreeStyleProject workspaceProject;
+    private FreeStyleProject cacheProject;
+
+    @BeforeEach
+    void beforeEach(JenkinsRule rule) throws Exception {
+        r = rule;
+        SystemReader.getInstance().getUserConfig().clear();
+        listener = StreamTaskListener.fromStderr();
+        GitSCM.ALLOW_LOCAL_CHECKOUT = true;
+        repo = new TestGitRepo("repo", tmp, listener);
+        workspaceProject = project("workspace", false);
+        cacheProject = project("cache", true);
+    }
+
+    @AfterEach
+    void afterEach() {
+        GitSCM.ALLOW_LOCAL_CHECKOUT = false;
+    }
+
+    private FreeStyleProject project(String name, boolean pollOnController) throws Exception {
+        FreeStyleProject project = r.createFreeStyleProject(name);
+        GitSCM scm = new GitSCM(
+                repo.remoteConfigs(),
+                Collections.singletonList(new BranchSpec("master")),
+                null, null,
+                Collections.emptyList());
+        PathRestriction pathRestriction = new PathRestriction("src/.*", "src/generated/.*");
+        pathRestriction.setPollOnController(pollOnController);
+        scm.getExtensions().add(pathRestriction);
+        scm.getExtensions().add(new UserExclusion("Jane Doe"));
+        scm.getExtensions().add(new MessageExclusion("(?s).*\\[skip ci\\].*"));
+        project.setScm(scm);
+        return project;
+    }
+
+    private void buildBoth() throws Exception {
+        r.buildAndAssertSuccess(workspaceProject);
+        r.buildAndAssertSuccess(cacheProject);
+    }
+
+    /**
+     * Polls both projects, checking that the cache repository gives the same result as the workspace.
+     *
+     * @return the polling log of the project polling in the cache repository.
+     */
+    private String assertPolling(boolean expected, String message) throws Exception {
+        assertEquals(expected, workspaceProject.poll(listener).hasChanges(), message + " in the workspace");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(expected, cacheProject.poll(new StreamTaskListener(out, StandardCharsets.UTF_8)).hasChanges(),
+                message + " in the cache repository");
+        String log = out.toString(StandardCharsets.UTF_8);
+        assertTrue(log.contains("[poll] Fetching refs/heads/master into the cache repository"), log);
+        return log;
+    }
+
+    @Test
+    void cacheRepositoryExcludesTheSameCommitsAsWorkspace() throws Exception {
+        repo.commit("src/init", repo.johnDoe, "initial commit");
+        assertFalse(cacheProject.getScm().requiresWorkspaceForPolling());
+        buildBoth();
+
+        repo.commit("src/excluded-user", repo.janeDoe, "excluded user commit");
+        assertPolling(false, "commit of an excluded user");
+
+        repo.commit("doc/readme", repo.johnDoe, "commit outside the included regions");
+        assertPolling(false, "commit outside the included regions");
+
+        repo.commit("src/generated/file", repo.johnDoe, "commit in an excluded region");
+        assertPolling(false, "commit in an excluded region");
+
+        repo.commit("src/excluded-message", repo.johnDoe, "[skip ci] excluded message commit");
+        String log = assertPolling(false, "commit with an excluded message");
+        assertTrue(log.contains("[poll] All 4 commits are excluded"), log);
+
+        String head = repo.commit("src/included", repo.johnDoe, "included commit");
+        log = assertPolling(true, "included commit");
+        assertTrue(log.contains("[poll] Commit " + head + " is not excluded"), log);
+        try (Repository cache = new FileRepositoryBuilder()
+                .setGitDir(new File(AbstractGitSCMSource.getCacheDir(AbstractGitSCMSource.getCacheEntry(repo.gitDir.getAbsolutePath())), ".git"))
+                .setMustExist(true)
+                .build()) {
+            assertNotNull(cache.parseCommit(ObjectId.fromString(head)));
+        }
+    }
+
+    @Test
+    void mergeIsEvaluatedAgainstEachParentAsInWorkspace() throws Exception {
+        repo.commit("src/init", repo.johnDoe, "initial commit");
+        buildBoth();
+
+        repo.git.checkoutBranch("topic", "HEAD");
+        repo.commit("src/topic", repo.janeDoe, "excluded user commit on topic");
+        repo.git.checkoutBranch("master", "refs/heads/master");
+        repo.commit("src/master", repo.janeDoe, "excluded user commit on master");
+        assertPolling(false, "commits of an excluded user");
+
+        repo.git.setAuthor(repo.johnDoe);
+        repo.git.setCommitter(repo.johnDoe);
+        repo.git.merge().setRevisionToMerge(repo.git.revParse("topic")).execute();
+        assertPolling(true, "merge of an included user bringing in included paths");
+    }
+
+    @Test
+    void lastBuiltRevisionMissingFromCacheRepositoryIsBuilt() throws Exception {
+        String first = repo.commit("src/init", repo.johnDoe, "initial commit");
+        repo.commit("src/second", repo.johnDoe, "second commit");
+        buildBoth();
+
+        // rewrite the branch before the first poll, so that the last built revision cannot be fetched into the cache
+        try (Git git = Git.open(repo.gitDir)) {
+            git.reset().setMode(ResetCommand.ResetType.HARD).setRef(first).call();
+        }
+        repo.commit("src/rewritten", repo.janeDoe, "excluded user commit");
+
+        assertFalse(workspaceProject.poll(listener).hasChanges(), "workspace still has the last built revision");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertTrue(cacheProject.poll(new StreamTaskListener(out, StandardCharsets.UTF_8)).hasChanges(),
+                "cache repository falls back to building");
+        String log = out.toString(StandardCharsets.UTF_8);
+        assertTrue(log.contains("is not in the cache repository"), log);
+    }
+
+    @Test
+    void changedPathFiltersOnlyApplyWhenNoExtensionBeforePathRestrictionIncludesCommits() {
+        PathRestriction pathRestriction = new PathRestriction("src/.*", null);
+        assertTrue(GitCachePolling.pathRestrictionDecidesFirst(scm(pathRestriction, new IncludeEveryCommit())));
+        assertTrue(GitCachePolling.pathRestrictionDecidesFirst(scm(new UserExclusion("John Doe"), pathRestriction)),
+                "user exclusion only excludes commits");
+        assertFalse(GitCachePolling.pathRestrictionDecidesFirst(scm(new IncludeEveryCommit(), pathRestriction)),
+                "an earlier extension may include commits");
+        assertFalse(GitCachePolling.pathRestrictionDecidesFirst(scm(new UserExclusion("John Doe"))), "no path restriction");
+    }
+
+    private GitSCM scm(GitSCMExtension... extensions) {
+        return new GitSCM(repo.remoteConfigs(), Collections.singletonList(new BranchSpec("master")), null, null,
+                List.of(extensions));
+    }
+
+    private static class IncludeEveryCommit extends GitSCMExtension {
+        @Override
+        public Boolean isRevExcluded(GitSCM scm, GitClient git, GitChangeSet commit, TaskListener listener, BuildData buildData) {
+            return false;
+        }
+    }
+
+    @Test
+    void literalDirectories() {
+        assertEquals(List.of("included", "src/main"),
+                GitCachePolling.literalDirectories(new String[]{"included/.*", "src/main/Foo\\.java"}));
+        assertEquals(List.of("a-b_c"), GitCachePolling.literalDirectories(new String[]{"a-b_c/x"}));
+    }
+
+    @Test
+    void regionsMatchingAnyDirectoryHaveNoLiteralDirectories() {
+        assertNull(GitCachePolling.literalDirectories(null));
+        assertNull(GitCachePolling.literalDirectories(new String[0]));
+        assertNull(GitCachePolling.literalDirectories(new String[]{".*\\.included"}));
+        assertNull(GitCachePolling.literalDirectories(new String[]{"included/.*", "other"}));
+        assertNull(GitCachePolling.literalDirectories(new String[]{"included/.*|other/.*"}));
+        assertNull(GitCachePolling.literalDirectories(new String[]{"(?i)included/.*"}));
+        assertNull(GitCachePolling.literalDirectories(new String[]{"included/?x"}));
+        assertNull(GitCachePolling.literalDirectories(new String[]{"/included/.*"}));
+    }
+}
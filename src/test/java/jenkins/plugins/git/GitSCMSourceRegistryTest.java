@@ -0,0 +1,62 @@
+package jenkins.plugins.git;
+
+import java.util.List;
+import jenkins.branch.BranchSource;
+import jenkins.plugins.git.traits.IgnoreOnPushNotificationTrait;
+import org.eclipse.jgit.transport.URIish;
+import org.jenkinsci.plugins.workflow.multibranch.WorkflowMultiBranchProject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@WithJenkins
+class GitSCMSourceRegistryTest {
+
+    private JenkinsRule r;
+    private GitSCMSourceRegistry registry;
+
+    @BeforeEach
+    void beforeEach(JenkinsRule rule) {
+        r = rule;
+        registry = GitSCMSourceRegistry.get();
+    }
+
+    private WorkflowMultiBranchProject createProject(String name, GitSCMSource source) throws Exception {
+        WorkflowMultiBranchProject project = r.createProject(WorkflowMultiBranchProject.class, name);
+        project.getSourcesList().add(new BranchSource(source));
+        project.save();
+        return project;
+    }
+
+    @Test
+    void matchesOnlySourcesWithTheNotifiedRemote() throws Exception {
+        GitSCMSource a = new GitSCMSource("https://example.com/org/a.git");
+        WorkflowMultiBranchProject owner = createProject("a", a);
+        createProject("b", new GitSCMSource("https://example.com/org/b.git"));
+
+        List<GitSCMSourceRegistry.Match> matches = registry.findMatches(new URIish("git@example.com:org/a"));
+        assertEquals(1, matches.size());
+        assertSame(owner, matches.get(0).getOwner());
+        assertSame(a, matches.get(0).getSource());
+        assertTrue(registry.findMatches(new URIish("https://example.com/org/c")).isEmpty());
+    }
+
+    @Test
+    void traitChangesInvalidateCachedSettings() throws Exception {
+        GitSCMSource a = new GitSCMSource("https://example.com/org/a.git");
+        createProject("a", a);
+        URIish uri = new URIish("https://example.com/org/a");
+        assertEquals(1, registry.findMatches(uri).size());
+
+        a.setTraits(List.of(new IgnoreOnPushNotificationTrait()));
+        assertTrue(registry.findMatches(uri).isEmpty());
+
+        a.setTraits(List.of());
+        assertEquals(1, registry.findMatches(uri).size());
+    }
+}
@@ -361,6 +361,27 @@ class GitToolChooserTest {
         assertThat("Remote: " + otherRemote, sizeEstimator.convertToCanonicalURL(otherRemote), is(otherRemote + ".git"));
     }
 
+    /* Test that every remote alternative of a git repo URL shares the cache entry of its repository */
+    @Test
+    void testCanonicalRepository() throws Exception {
+        String[] remoteAlternatives = {
+                "git://example.com/jenkinsci/git-plugin",
+                "git@example.com:jenkinsci/git-plugin.git",
+                "git@Example.com:/jenkinsci/git-plugin/",
+                "https://example.com/jenkinsci/git-plugin",
+                "http://user@EXAMPLE.com/jenkinsci/git-plugin.git/",
+                "ssh://git@example.com/jenkinsci/git-plugin.git",
+        };
+        for (String remote : remoteAlternatives) {
+            assertThat("Remote: " + remote, GitToolChooser.canonicalRepository(remote), is("https://example.com/jenkinsci/git-plugin.git"));
+            assertThat("Remote: " + remote, AbstractGitSCMSource.getCacheEntry(remote), is(AbstractGitSCMSource.getCacheEntry(remoteAlternatives[0])));
+        }
+
+        /* Other URLs are not rewritten, a local repository and its ".git" sibling are different repositories */
+        assertThat(GitToolChooser.canonicalRepository("/srv/git/repo"), is("/srv/git/repo"));
+        assertThat(AbstractGitSCMSource.getCacheEntry("/srv/git/repo"), is(not(AbstractGitSCMSource.getCacheEntry("/srv/git/repo.git"))));
+    }
+
     /*
     In the event of having an extension which returns the size of repository as 10000 KiB, the estimator should
     recommend "git" as the optimal implementation from the heuristics
@@ -0,0 +1,58 @@
+package jmh.benchmarks;
+
+import hudson.EnvVars;
+import hudson.plugins.git.BranchSpec;
+import java.util.ArrayList;
+import java.util.List;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Matches 10k refs against 20 branch specs, half of them literal and half with wildcards.
+ */
+@State(Scope.Benchmark)
+public class BranchSpecBenchmark {
+
+    private final List<String> refs = new ArrayList<>();
+    private final List<String> names = new ArrayList<>();
+    private final List<BranchSpec> specs = new ArrayList<>();
+    private final EnvVars env = new EnvVars();
+
+    @Setup
+    public void setup() {
+        for (int i = 0; i < 10_000; i++) {
+            refs.add(i % 2 == 0 ? "refs/heads/feature/dev-" + i : "refs/remotes/origin/bugfix-" + i);
+        }
+        for (int i = 0; i < 10; i++) {
+            names.add("release-" + i);
+            names.add("origin/feature/*-" + i);
+        }
+        for (String name : names) {
+            specs.add(new BranchSpec(name));
+        }
+    }
+
+    @Benchmark
+    public void cachedSpecs(Blackhole blackhole) {
+        for (String ref : refs) {
+            for (BranchSpec spec : specs) {
+                blackhole.consume(spec.matches(ref, env));
+            }
+        }
+    }
+
+    /**
+     * Compiles the spec on every match, as was done before compiled specs were cached.
+     */
+    @Benchmark
+    public void freshSpecs(Blackhole blackhole) {
+        for (String ref : refs) {
+            for (String name : names) {
+                blackhole.consume(new BranchSpec(name).matches(ref, env));
+            }
+        }
+    }
+}
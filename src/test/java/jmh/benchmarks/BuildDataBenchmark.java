@@ -0,0 +1,77 @@
+package jmh.benchmarks;
+
+import hudson.plugins.git.UserRemoteConfig;
+import hudson.plugins.git.util.BuildData;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Replays the build data comparisons of a checkout: the build data of the previous build is cloned and compared with
+ * the 20 build data already attached to the build. Run with the GC profiler to compare the bytes allocated per
+ * operation.
+ */
+@State(Scope.Benchmark)
+public class BuildDataBenchmark {
+
+    private final List<UserRemoteConfig> configs = new ArrayList<>();
+    private final List<BuildData> attached = new ArrayList<>();
+    private BuildData previous;
+
+    @Setup
+    public void setup() {
+        configs.add(new UserRemoteConfig("https://github.com/jenkinsci/git-plugin.git/", "origin", null, null));
+        configs.add(new UserRemoteConfig("ssh://git@github.com/jenkinsci/git-client-plugin.git", "client", null, null));
+        configs.add(new UserRemoteConfig("git@github.com:jenkinsci/jenkins.git", "core", null, null));
+        previous = new BuildData("git", configs);
+        for (int i = 0; i < 20; i++) {
+            BuildData data = new BuildData("git-" + i, configs);
+            data.addRemoteUrl("https://github.com/jenkinsci/plugin-" + i + ".git");
+            attached.add(data);
+        }
+    }
+
+    @Benchmark
+    public void memoizedUrls(Blackhole blackhole) {
+        BuildData buildData = previous.clone();
+        for (BuildData data : attached) {
+            blackhole.consume(data.similarTo(buildData));
+        }
+    }
+
+    /**
+     * Normalizes the URLs of both sides of each comparison, as {@link BuildData#similarTo(BuildData)} did before
+     * normalized URLs were memoized.
+     */
+    @Benchmark
+    public void normalizedOnEachCall(Blackhole blackhole) {
+        BuildData buildData = previous.clone();
+        for (BuildData data : attached) {
+            blackhole.consume(normalize(data.getRemoteUrls()).equals(normalize(buildData.getRemoteUrls())));
+        }
+    }
+
+    private static Set<String> normalize(Set<String> remoteUrls) {
+        Set<String> urls = new HashSet<>(remoteUrls.size());
+        for (String url : remoteUrls) {
+            String normalized = url.replaceAll("/+$", "").replaceAll("[.]git$", "");
+            if (url.contains("://")) {
+                try {
+                    normalized = new URI(normalized).normalize().toString();
+                } catch (URISyntaxException ex) {
+                    // kept as is
+                }
+            }
+            urls.add(normalized);
+        }
+        return urls;
+    }
+}
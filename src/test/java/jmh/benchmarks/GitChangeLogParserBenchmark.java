@@ -0,0 +1,79 @@
+package jmh.benchmarks;
+
+import hudson.plugins.git.GitChangeLogParser;
+import hudson.plugins.git.GitChangeSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Parses a changelog of 1000 commits changing 5 files each, the size of the changelog of a build after a busy day.
+ * Compares the throughput of {@link GitChangeLogParser} with the regular expressions the change set parser ran on
+ * each line before the raw format was scanned by hand.
+ */
+@State(Scope.Benchmark)
+public class GitChangeLogParserBenchmark {
+
+    private static final Pattern FILE_LOG_ENTRY = Pattern.compile("^:[0-9]{6} [0-9]{6} ([0-9a-f]{40}) ([0-9a-f]{40}) ([ACDMRTUX])(?>[0-9]+)?\t(.*)$");
+    private static final Pattern AUTHOR_ENTRY = Pattern.compile("^author ([^<]*)<(.*)> (.*)$");
+    private static final Pattern COMMITTER_ENTRY = Pattern.compile("^committer ([^<]*)<(.*)> (.*)$");
+
+    private final List<String> changelog = new ArrayList<>();
+    private GitChangeLogParser parser;
+
+    @Setup
+    public void setup() {
+        parser = new GitChangeLogParser(null, true);
+        for (int i = 0; i < 1000; i++) {
+            changelog.add("commit " + String.format("%040x", i));
+            changelog.add("tree " + String.format("%040x", i + 1000));
+            changelog.add("parent " + String.format("%040x", i + 2000));
+            changelog.add("author Author " + (i % 10) + " <author" + (i % 10) + "@example.com> " + (1600000000 + i) + " +0100");
+            changelog.add("committer Author " + (i % 10) + " <author" + (i % 10) + "@example.com> " + (1600000000 + i) + " +0100");
+            changelog.add("");
+            changelog.add("    Change number " + i);
+            changelog.add("");
+            for (int f = 0; f < 5; f++) {
+                changelog.add(":100644 100644 " + String.format("%040x", i * 5 + f) + " " + String.format("%040x", i * 5 + f + 1)
+                        + " M\tsrc/main/java/module" + (f % 3) + "/File" + ((i + f) % 50) + ".java");
+            }
+        }
+    }
+
+    @Benchmark
+    public List<GitChangeSet> parse() {
+        return parser.parse(changelog);
+    }
+
+    /**
+     * Only the regular expression matching the change set parser did for each line, without building change sets.
+     */
+    @Benchmark
+    public void regexMatching(Blackhole blackhole) {
+        for (String line : changelog) {
+            if (line.startsWith("commit ") || line.startsWith("parent ")) {
+                blackhole.consume(line.split(" "));
+            } else if (line.startsWith("committer ")) {
+                matches(COMMITTER_ENTRY.matcher(line), blackhole);
+            } else if (line.startsWith("author ")) {
+                matches(AUTHOR_ENTRY.matcher(line), blackhole);
+            } else if (line.startsWith(":")) {
+                matches(FILE_LOG_ENTRY.matcher(line), blackhole);
+            }
+        }
+    }
+
+    private static void matches(Matcher matcher, Blackhole blackhole) {
+        if (matcher.matches()) {
+            for (int i = 1; i <= matcher.groupCount(); i++) {
+                blackhole.consume(matcher.group(i));
+            }
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package jmh.benchmarks;
+
+import hudson.plugins.git.GitChangeSet;
+import java.util.ArrayList;
+import java.util.List;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Parses a changelog of 1000 commits by 10 authors touching files of a few directories, keeping the change sets as a
+ * build's changelog does. Run with the GC profiler to compare the bytes allocated per 1000 change sets.
+ */
+@State(Scope.Benchmark)
+public class GitChangeSetBenchmark {
+
+    private final List<List<String>> commits = new ArrayList<>();
+
+    @Setup
+    public void setup() {
+        for (int i = 0; i < 1000; i++) {
+            List<String> lines = new ArrayList<>();
+            String author = "Author " + (i % 10);
+            String email = "author" + (i % 10) + "@example.com";
+            lines.add("commit " + String.format("%040x", i));
+            lines.add("tree " + String.format("%040x", i + 1000));
+            lines.add("parent " + String.format("%040x", i + 2000));
+            lines.add("author " + author + " <" + email + "> " + (1600000000 + i) + " +0100");
+            lines.add("committer " + author + " <" + email + "> " + (1600000000 + i) + " +0100");
+            lines.add("");
+            lines.add("    Change number " + i);
+            lines.add("");
+            for (int f = 0; f < 5; f++) {
+                lines.add(":100644 100644 " + String.format("%040x", i * 5 + f) + " " + String.format("%040x", i * 5 + f + 1)
+                        + " M\tsrc/main/java/module" + (f % 3) + "/File" + ((i + f) % 50) + ".java");
+            }
+            // copy the strings, the changelog parser reads each line from the file
+            List<String> copy = new ArrayList<>(lines.size());
+            for (String line : lines) {
+                copy.add(new String(line.toCharArray()));
+            }
+            commits.add(copy);
+        }
+    }
+
+    @Benchmark
+    public List<GitChangeSet> parse1000ChangeSets() {
+        List<GitChangeSet> changeSets = new ArrayList<>(commits.size());
+        for (List<String> lines : commits) {
+            changeSets.add(new GitChangeSet(lines, true, false));
+        }
+        return changeSets;
+    }
+}